@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.BatteryManager;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.achep.acdisplay.ui.widgets.status.BatteryMeterView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * JUnit4 unit tests for the battery meter: only the changes of
+ * the shown state may redraw it.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class BatteryMeterViewInstTest extends InstrumentationTestCase {
+
+    private CountingBatteryMeterView mView;
+
+    @Before
+    public void setUp() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mView = new CountingBatteryMeterView(context);
+            }
+        });
+    }
+
+    @Test
+    public void testVoltageAndTemperatureChanges() {
+        feed(intent(50, 0, BatteryManager.BATTERY_STATUS_DISCHARGING, 3800, 250));
+        assertEquals(1, mView.redraws);
+
+        // Only voltage and temperature change.
+        for (int i = 0; i < 10; i++) {
+            feed(intent(50, 0, BatteryManager.BATTERY_STATUS_DISCHARGING, 3800 + i, 250 + i));
+        }
+        assertEquals(1, mView.redraws);
+    }
+
+    @Test
+    public void testShownStateChanges() {
+        feed(intent(50, 0, BatteryManager.BATTERY_STATUS_DISCHARGING, 3800, 250));
+        feed(intent(49, 0, BatteryManager.BATTERY_STATUS_DISCHARGING, 3800, 250));
+        assertEquals(2, mView.redraws);
+        assertEquals(49, mView.getBatteryLevel());
+
+        // Plug in.
+        feed(intent(49, BatteryManager.BATTERY_PLUGGED_AC,
+                BatteryManager.BATTERY_STATUS_DISCHARGING, 3800, 250));
+        assertEquals(3, mView.redraws);
+
+        // Start charging.
+        feed(intent(49, BatteryManager.BATTERY_PLUGGED_AC,
+                BatteryManager.BATTERY_STATUS_CHARGING, 3800, 250));
+        assertEquals(4, mView.redraws);
+        assertTrue(mView.getBatteryCharging());
+
+        // The status changes, but it's shown the same way.
+        feed(intent(100, BatteryManager.BATTERY_PLUGGED_AC,
+                BatteryManager.BATTERY_STATUS_CHARGING, 3800, 250));
+        feed(intent(100, BatteryManager.BATTERY_PLUGGED_AC,
+                BatteryManager.BATTERY_STATUS_FULL, 3800, 250));
+        assertEquals(5, mView.redraws);
+    }
+
+    private void feed(final Intent intent) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mView.feed(intent);
+            }
+        });
+    }
+
+    private static Intent intent(int level, int plugged, int status, int voltage, int temperature) {
+        Intent intent = new Intent(Intent.ACTION_BATTERY_CHANGED);
+        intent.putExtra(BatteryManager.EXTRA_LEVEL, level);
+        intent.putExtra(BatteryManager.EXTRA_SCALE, 100);
+        intent.putExtra(BatteryManager.EXTRA_PLUGGED, plugged);
+        intent.putExtra(BatteryManager.EXTRA_STATUS, status);
+        intent.putExtra(BatteryManager.EXTRA_VOLTAGE, voltage);
+        intent.putExtra(BatteryManager.EXTRA_TEMPERATURE, temperature);
+        return intent;
+    }
+
+    /**
+     * Counts the redraws requested by the battery tracker.
+     */
+    private static class CountingBatteryMeterView extends BatteryMeterView {
+
+        int redraws;
+
+        CountingBatteryMeterView(Context context) {
+            super(context);
+        }
+
+        void feed(Intent intent) {
+            mTracker.onReceive(getContext(), intent);
+        }
+
+        @Override
+        protected void onBatteryStateChanged() {
+            super.onBatteryStateChanged();
+            redraws++;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.telephony.TelephonyManager;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * JUnit4 unit tests for the fan-out of the device state, driven
+ * by replayed state transitions.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class DeviceStateInstTest extends InstrumentationTestCase {
+
+    private DeviceState mState;
+    private ArrayList<Integer> mEvents;
+
+    @Before
+    public void setUp() {
+        mState = new DeviceState();
+        mEvents = new ArrayList<>();
+        mState.registerListener(new DeviceState.OnDeviceStateChangedListener() {
+            @Override
+            public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+                mEvents.add(what);
+            }
+        });
+    }
+
+    @Test
+    public void testDeduplication() {
+        replay(new Runnable() {
+            @Override
+            public void run() {
+                mState.setScreenOn(true);
+                mState.setScreenOn(true);
+                mState.setScreenOn(false);
+
+                // The battery intent is sent often with the same level.
+                mState.setBattery(false, 50);
+                mState.setBattery(false, 50);
+                mState.setBattery(true, 50);
+            }
+        });
+
+        assertEquals(4, mEvents.size());
+        assertEquals(2, count(DeviceState.STATE_SCREEN));
+        assertEquals(2, count(DeviceState.STATE_BATTERY));
+    }
+
+    @Test
+    public void testCallState() {
+        replayCallState(TelephonyManager.CALL_STATE_RINGING);
+        assertTrue(mState.isCalling());
+        replayCallState(TelephonyManager.CALL_STATE_OFFHOOK);
+        assertTrue(mState.isCalling());
+        replayCallState(TelephonyManager.CALL_STATE_IDLE);
+        assertFalse(mState.isCalling());
+
+        assertEquals(3, count(DeviceState.STATE_CALL));
+    }
+
+    @Test
+    public void testNotifications() {
+        replay(new Runnable() {
+            @Override
+            public void run() {
+                mState.setNotifications(2, 1000);
+                mState.setNotifications(2, 1000);
+                // Changed notification: same count, but newer.
+                mState.setNotifications(2, 2000);
+                mState.setNotifications(0, 2000);
+            }
+        });
+
+        assertEquals(3, count(DeviceState.STATE_NOTIFICATIONS));
+        assertEquals(0, mState.getNotificationCount());
+        assertEquals(2000, mState.getNotificationTime());
+    }
+
+    @Test
+    public void testSnapshot() {
+        replay(new Runnable() {
+            @Override
+            public void run() {
+                mState.setScreenOn(true);
+                mState.setBattery(true, 42);
+            }
+        });
+
+        DeviceState.Snapshot snapshot = mState.getSnapshot();
+        assertTrue(snapshot.screenOn);
+        assertTrue(snapshot.plugged);
+        assertEquals(42, snapshot.batteryLevel);
+
+        // The snapshot is a copy.
+        replay(new Runnable() {
+            @Override
+            public void run() {
+                mState.setScreenOn(false);
+            }
+        });
+        assertTrue(snapshot.screenOn);
+        assertFalse(mState.getSnapshot().screenOn);
+    }
+
+    /**
+     * Replays the transitions on the main thread, as the
+     * device state does.
+     */
+    private void replay(@NonNull Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    private void replayCallState(final int callState) {
+        replay(new Runnable() {
+            @Override
+            public void run() {
+                mState.setCallState(callState);
+            }
+        });
+    }
+
+    private int count(int what) {
+        int count = 0;
+        for (int event : mEvents) if (event == what) count++;
+        return count;
+    }
+
+}
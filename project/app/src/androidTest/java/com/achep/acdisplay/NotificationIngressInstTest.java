@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.achep.acdisplay.notifications.NotificationIngress;
+import com.achep.acdisplay.notifications.NotificationIngress.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.achep.acdisplay.notifications.NotificationIngress.SOURCE_ACCESSIBILITY;
+import static com.achep.acdisplay.notifications.NotificationIngress.SOURCE_LISTENER;
+
+/**
+ * JUnit4 unit tests for the de-duplication of the notification ingress.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class NotificationIngressInstTest extends InstrumentationTestCase {
+
+    private NotificationIngress mIngress;
+
+    @Before
+    public void setUp() {
+        mIngress = new NotificationIngress();
+        mIngress.setWindow(1000);
+    }
+
+    @Test
+    public void testUpdateWithinWindow() {
+        // An update that changes only the actions has the same key,
+        // and must not be suppressed.
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 0));
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 500));
+        assertEquals(2, mIngress.getPassedCount());
+
+        // ...but is still merged with the other source.
+        assertFalse(mIngress.accept(new Event(SOURCE_ACCESSIBILITY, "a", null), 600));
+        assertEquals(1, mIngress.getMergedCount());
+    }
+
+    @Test
+    public void testBothSources() {
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 0));
+        assertFalse(mIngress.accept(new Event(SOURCE_ACCESSIBILITY, "a", null), 100));
+        assertEquals(1, mIngress.getMergedCount());
+
+        assertTrue(mIngress.accept(new Event(SOURCE_ACCESSIBILITY, "b", null), 200));
+        assertFalse(mIngress.accept(new Event(SOURCE_LISTENER, "b", "2"), 300));
+        assertEquals(2, mIngress.getMergedCount());
+
+        // The window has passed.
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "b", "2"), 1400));
+    }
+
+    @Test
+    public void testDifferentNotifications() {
+        // Same content, but different ids.
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 0));
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "2"), 10));
+
+        // Updated content.
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a2", "1"), 20));
+        assertEquals(3, mIngress.getPassedCount());
+    }
+
+    @Test
+    public void testRemoval() {
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 0));
+        mIngress.forget(SOURCE_LISTENER, "1");
+
+        // Posting it again right after the removal is fine.
+        assertTrue(mIngress.accept(new Event(SOURCE_LISTENER, "a", "1"), 10));
+    }
+
+}
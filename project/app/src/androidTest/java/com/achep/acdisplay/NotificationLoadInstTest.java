@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import android.app.Instrumentation;
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.achep.acdisplay.notifications.NotificationLoad;
+import com.achep.acdisplay.notifications.NotificationPresenter;
+import com.achep.acdisplay.notifications.NotificationLoad.Report;
+import com.achep.acdisplay.notifications.NotificationLoad.Scenario;
+import com.achep.base.Device;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * JUnit4 regression tests and a benchmark of the notification presenter
+ * under synthetic load. The harness needs the framework, see {@link NotificationLoad}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class NotificationLoadInstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "NotificationLoadInstTest";
+
+    /**
+     * The delays of the presenter's proxy.
+     */
+    private static final long DELAY = 400;
+    private static final long MAX_DELAY = 2000;
+
+    /**
+     * Generous bounds of the 99th percentile of the cost of posting a
+     * notification and of delivering it, in nanos; exceeding them means
+     * a regression rather than a slow device.
+     */
+    private static final long ENQUEUE_LIMIT = 5 * 1000 * 1000; // 5 ms.
+    private static final long DELIVERY_LIMIT = 100 * 1000 * 1000; // 100 ms.
+
+    private Instrumentation mInstrumentation;
+
+    @Before
+    public void setUp() {
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+    }
+
+    @Test
+    public void testChatFlood() {
+        assumeTrue(Device.hasLollipopApi());
+
+        final int rate = 50;
+        Report report = run(new Scenario(getPackageName()).flood(500, rate, true));
+        assertEquals(500, report.posted);
+        assertEquals(500, report.latency.length);
+
+        // Ten seconds of updates are batched, but no one waits
+        // for longer than the max delay.
+        assertTrue(report.toString(), report.flushes <= 10000 / MAX_DELAY + 1);
+        assertEquals(report.flushes, report.delivered);
+        assertFloodLatency(report, rate);
+        assertFloodDispatches(report);
+    }
+
+    @Test
+    public void testRestoreAtBoot() {
+        assumeTrue(Device.hasLollipopApi());
+
+        Report report = run(new Scenario(getPackageName()).restore(200, 10));
+        assertEquals(210, report.posted);
+        assertEquals(210, report.delivered);
+        assertEquals(210, report.latency.length);
+
+        // Everything comes in a single batch.
+        assertEquals(1, report.flushes);
+        assertEquals(DELAY, Report.percentile(report.latency, 100));
+        assertRestoreDispatches(report);
+    }
+
+    @Test
+    public void testBenchmark() {
+        assumeTrue(Device.hasLollipopApi());
+
+        final int rate = 50;
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            Report flood = run(new Scenario(getPackageName()).flood(500, rate, true));
+            Report restore = run(new Scenario(getPackageName()).restore(200, 10));
+            if (round > 0) {
+                Log.i(TAG, "flood: " + flood);
+                Log.i(TAG, "restore: " + restore);
+
+                assertFloodLatency(flood, rate);
+                assertFloodDispatches(flood);
+                assertEquals(restore.toString(), DELAY, Report.percentile(restore.latency, 100));
+                assertRestoreDispatches(restore);
+                assertCost(flood);
+                assertCost(restore);
+            }
+        }
+    }
+
+    private static void assertFloodLatency(@NonNull Report report, int rate) {
+        assertTrue(report.toString(),
+                Report.percentile(report.latency, 100) <= MAX_DELAY + 1000 / rate);
+    }
+
+    /**
+     * Every update of the single notification results in at
+     * most one event, and nothing is removed.
+     */
+    private static void assertFloodDispatches(@NonNull Report report) {
+        assertTrue(report.toString(), report.getDispatchCount() <= report.delivered);
+        assertEquals(report.toString(), 0,
+                report.dispatches[NotificationPresenter.EVENT_REMOVED]);
+    }
+
+    /**
+     * Every restored notification is posted once and, if it is a child of
+     * a group, removed once in favor of its summary.
+     */
+    private static void assertRestoreDispatches(@NonNull Report report) {
+        assertTrue(report.toString(), report.getDispatchCount() <= 2 * report.posted);
+        assertTrue(report.toString(), report.dispatches[NotificationPresenter.EVENT_POSTED]
+                <= report.posted);
+    }
+
+    private static void assertCost(@NonNull Report report) {
+        assertTrue(report.toString(), Report.percentile(report.enqueueCost, 99) <= ENQUEUE_LIMIT);
+        assertTrue(report.toString(), Report.percentile(report.deliveryCost, 99) <= DELIVERY_LIMIT);
+    }
+
+    @NonNull
+    private String getPackageName() {
+        return mInstrumentation.getTargetContext().getPackageName();
+    }
+
+    @NonNull
+    private Report run(@NonNull final Scenario scenario) {
+        final Report[] report = new Report[1];
+        mInstrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                report[0] = NotificationLoad.run(mInstrumentation.getTargetContext(), scenario);
+            }
+        });
+        return report[0];
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.achep.base.async.TaskQueueThread;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit4 unit tests and a benchmark for the task queue thread.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class TaskQueueThreadInstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "TaskQueueThreadInstTest";
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        final int producers = 4;
+        final int count = 1000;
+        final CountDownLatch latch = new CountDownLatch(producers * count);
+        final int[] last = new int[producers];
+        final boolean[] ordered = {true};
+        final TaskQueueThread<int[]> thread = new TaskQueueThread<int[]>() {
+            @Override
+            protected void onHandleTask(int[] task) {
+                // Tasks of each producer must come in order.
+                if (task[1] != last[task[0]]++) ordered[0] = false;
+                latch.countDown();
+            }
+
+            @Override
+            protected boolean isLost() {
+                return false;
+            }
+        };
+        thread.start();
+
+        for (int i = 0; i < producers; i++) {
+            final int producer = i;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < count; j++) thread.sendTask(new int[]{producer, j});
+                }
+            }.start();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(ordered[0]);
+        thread.finish();
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        Recorder thread = new Recorder(4, TaskQueueThread.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 10; i++) thread.sendTask(i);
+        thread.start();
+        thread.await(4);
+
+        assertEquals(list(6, 7, 8, 9), thread.handled);
+        assertEquals(list(0, 1, 2, 3, 4, 5), thread.dropped);
+        thread.finish();
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        Recorder thread = new Recorder(16, TaskQueueThread.OVERFLOW_COALESCE) {
+            @Override
+            protected Object getTaskKey(@NonNull Integer object) {
+                return object % 2;
+            }
+        };
+        for (int i = 0; i < 10; i++) thread.sendTask(i);
+        thread.start();
+        thread.await(2);
+
+        assertEquals(list(8, 9), thread.handled);
+        assertEquals(8, thread.dropped.size());
+        thread.finish();
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        final Recorder thread = new Recorder(2, TaskQueueThread.OVERFLOW_BLOCK);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) thread.sendTask(i);
+            }
+        };
+        producer.start();
+
+        // The third task doesn't fit.
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(2, thread.getTaskCount());
+
+        thread.start();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        thread.await(3);
+        assertEquals(list(0, 1, 2), thread.handled);
+        thread.finish();
+    }
+
+    @Test
+    public void testClear() throws InterruptedException {
+        Recorder thread = new Recorder(0, TaskQueueThread.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 5; i++) thread.sendTask(i);
+        thread.clearTask(2);
+        assertEquals(4, thread.getTaskCount());
+        thread.start();
+        thread.await(4);
+        assertEquals(list(0, 1, 3, 4), thread.handled);
+
+        thread.finish(true);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void testFinishKeepsInterruptedStatus() {
+        Recorder thread = new Recorder(0, TaskQueueThread.OVERFLOW_DROP_OLDEST);
+        thread.start();
+
+        Thread.currentThread().interrupt();
+        thread.finish();
+        assertTrue(Thread.interrupted());
+        assertFalse(thread.isAlive());
+    }
+
+    /**
+     * Compares the enqueue-to-handle latency of this implementation
+     * with the previous one, based on {@code wait/notify}.
+     */
+    @Test
+    public void testBenchmark() throws InterruptedException {
+        final int count = 20000;
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            for (boolean legacy : new boolean[]{true, false}) {
+                final Task[] tasks = new Task[count];
+                for (int i = 0; i < count; i++) tasks[i] = new Task();
+                final CountDownLatch latch = new CountDownLatch(count);
+                final long[] latency = new long[2]; // sum, max
+                final Handler handler = new Handler() {
+                    @Override
+                    public void handle(Task task) {
+                        final long delta = System.nanoTime() - task.time;
+                        latency[0] += delta;
+                        latency[1] = Math.max(latency[1], delta);
+                        latch.countDown();
+                    }
+                };
+
+                final Sender sender;
+                final Thread thread;
+                if (legacy) {
+                    final LegacyTaskQueueThread<Task> t = new LegacyTaskQueueThread<Task>() {
+                        @Override
+                        protected void onHandleTask(Task object) {
+                            handler.handle(object);
+                        }
+                    };
+                    sender = new Sender() {
+                        @Override
+                        public void send(Task task) {
+                            t.sendTask(task);
+                        }
+                    };
+                    thread = t;
+                } else {
+                    final TaskQueueThread<Task> t = new TaskQueueThread<Task>() {
+                        @Override
+                        protected void onHandleTask(Task object) {
+                            handler.handle(object);
+                        }
+
+                        @Override
+                        protected boolean isLost() {
+                            return false;
+                        }
+                    };
+                    sender = new Sender() {
+                        @Override
+                        public void send(Task task) {
+                            t.sendTask(task);
+                        }
+                    };
+                    thread = t;
+                }
+                thread.start();
+
+                final long start = System.nanoTime();
+                for (Task task : tasks) {
+                    task.time = System.nanoTime();
+                    sender.send(task);
+                }
+                assertTrue(latch.await(30, TimeUnit.SECONDS));
+                final long duration = System.nanoTime() - start;
+
+                if (legacy) {
+                    ((LegacyTaskQueueThread) thread).finish();
+                } else ((TaskQueueThread) thread).finish();
+
+                if (round > 0) {
+                    Log.i(TAG, (legacy ? "legacy" : "mpsc") + ":"
+                            + " tasks=" + count
+                            + " total=" + TimeUnit.NANOSECONDS.toMillis(duration) + "ms"
+                            + " latency_avg=" + latency[0] / count / 1000 + "us"
+                            + " latency_max=" + latency[1] / 1000 + "us");
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private static List<Integer> list(Integer... values) {
+        ArrayList<Integer> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    /**
+     * Records the handled and dropped tasks.
+     */
+    private static class Recorder extends TaskQueueThread<Integer> {
+
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Integer> dropped = Collections.synchronizedList(new ArrayList<Integer>());
+
+        Recorder(int capacity, int overflowPolicy) {
+            super(capacity, overflowPolicy);
+        }
+
+        void await(int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (handled.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // Make sure nothing else comes.
+            Thread.sleep(50);
+        }
+
+        @Override
+        protected void onHandleTask(Integer object) {
+            handled.add(object);
+        }
+
+        @Override
+        protected void onTaskDropped(@NonNull Integer object) {
+            dropped.add(object);
+        }
+
+        @Override
+        protected boolean isLost() {
+            return false;
+        }
+
+    }
+
+    private static class Task {
+        volatile long time;
+    }
+
+    private interface Sender {
+        void send(Task task);
+    }
+
+    private interface Handler {
+        void handle(Task task);
+    }
+
+    /**
+     * The previous implementation of the {@link TaskQueueThread}.
+     */
+    private static abstract class LegacyTaskQueueThread<T> extends Thread {
+
+        private final Queue<T> mQueue = new ConcurrentLinkedQueue<>();
+        private boolean mWaiting = false;
+
+        protected boolean mRunning = true;
+
+        public void finish() {
+            mRunning = false;
+            synchronized (this) {
+                mQueue.clear();
+                if (mWaiting) notifyAll();
+            }
+            while (true) {
+                try {
+                    join();
+                    break;
+                } catch (InterruptedException e) { /* pretty please! */ }
+            }
+        }
+
+        @Override
+        public void run() {
+            Queue<T> queue = new ConcurrentLinkedQueue<>();
+            while (mRunning) {
+                synchronized (this) {
+                    if (mQueue.isEmpty())
+                        try {
+                            mWaiting = true;
+                            wait();
+                        } catch (InterruptedException ignored) {
+                        } finally {
+                            mWaiting = false;
+                        }
+
+                    while (!mQueue.isEmpty()) {
+                        queue.add(mQueue.poll());
+                    }
+                }
+
+                Iterator<T> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    T object = iterator.next();
+                    onHandleTask(object);
+                    iterator.remove();
+                }
+            }
+        }
+
+        public void sendTask(@NonNull T object) {
+            synchronized (this) {
+                mQueue.add(object);
+                if (mWaiting) notifyAll();
+            }
+        }
+
+        protected abstract void onHandleTask(T object);
+
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.achep.base.Timeout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * JUnit4 unit tests for the timeout, driven by a virtual clock.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class TimeoutInstTest extends InstrumentationTestCase {
+
+    private FakeClock mClock;
+    private Timeout mTimeout;
+    private ArrayList<Integer> mEvents;
+
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mTimeout = new Timeout(mClock);
+        mEvents = new ArrayList<>();
+        mTimeout.registerListener(new Timeout.OnTimeoutEventListener() {
+            @Override
+            public void onTimeoutEvent(@NonNull Timeout timeout, int event) {
+                mEvents.add(event);
+            }
+        });
+    }
+
+    @Test
+    public void testTimeout() {
+        mTimeout.set(1000);
+        assertTrue(mTimeout.isOngoing());
+        assertEquals(1000, mTimeout.getRemainingTime());
+
+        mClock.advance(999);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        assertEquals(1, mTimeout.getRemainingTime());
+
+        mClock.advance(1);
+        assertTrue(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        assertFalse(mTimeout.isOngoing());
+    }
+
+    @Test
+    public void testOverride() {
+        mTimeout.set(1000);
+
+        // The nearest timeout wins...
+        mTimeout.set(5000);
+        assertEquals(1000, mTimeout.getRemainingTime());
+        mTimeout.set(500);
+        assertEquals(500, mTimeout.getRemainingTime());
+
+        // ...unless it's overridden.
+        mTimeout.set(5000, true);
+        assertEquals(5000, mTimeout.getRemainingTime());
+
+        mClock.advance(4999);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        mClock.advance(1);
+        assertTrue(mEvents.contains(Timeout.EVENT_TIMEOUT));
+    }
+
+    @Test
+    public void testPauseDuringTouch() {
+        mTimeout.set(1000);
+        mClock.advance(400);
+
+        // The user touches the screen.
+        mTimeout.pause();
+        assertTrue(mTimeout.isPaused());
+        mClock.advance(10000);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        assertEquals(600, mTimeout.getRemainingTime());
+        assertEquals(0.4f, mTimeout.getProgress(), 0.001f);
+
+        // The user releases the screen.
+        mTimeout.resume();
+        assertFalse(mTimeout.isPaused());
+        mClock.advance(599);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        mClock.advance(1);
+        assertTrue(mEvents.contains(Timeout.EVENT_TIMEOUT));
+    }
+
+    @Test
+    public void testSetWhilePaused() {
+        mTimeout.pause();
+        mTimeout.set(1000, true);
+        assertTrue(mTimeout.isPaused());
+
+        mClock.advance(5000);
+        assertEquals(1000, mTimeout.getRemainingTime());
+
+        mTimeout.resume();
+        mClock.advance(1000);
+        assertTrue(mEvents.contains(Timeout.EVENT_TIMEOUT));
+    }
+
+    @Test
+    public void testDelay() {
+        mTimeout.set(1000);
+        mClock.advance(800);
+        mTimeout.delay(500);
+        assertEquals(700, mTimeout.getRemainingTime());
+
+        mClock.advance(699);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        mClock.advance(1);
+        assertTrue(mEvents.contains(Timeout.EVENT_TIMEOUT));
+
+        // Paused timeout can not be delayed.
+        mTimeout.set(1000);
+        mTimeout.pause();
+        mTimeout.delay(500);
+        assertEquals(1000, mTimeout.getRemainingTime());
+    }
+
+    @Test
+    public void testClear() {
+        mTimeout.set(1000);
+        mTimeout.clear();
+        assertFalse(mTimeout.isOngoing());
+        assertEquals(0, mTimeout.getRemainingTime());
+
+        mClock.advance(2000);
+        assertFalse(mEvents.contains(Timeout.EVENT_TIMEOUT));
+        assertTrue(mEvents.contains(Timeout.EVENT_CLEARED));
+    }
+
+    /**
+     * The virtual clock that runs the scheduled runnable
+     * when the time is advanced past it.
+     */
+    private static class FakeClock implements Timeout.Clock {
+
+        private long mTime = 1000;
+        private Runnable mRunnable;
+        private long mRunnableTime;
+
+        void advance(long millis) {
+            final long target = mTime + millis;
+            while (mRunnable != null && mRunnableTime <= target) {
+                final Runnable runnable = mRunnable;
+                mTime = Math.max(mTime, mRunnableTime);
+                mRunnable = null;
+                runnable.run();
+            }
+            mTime = target;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return mTime;
+        }
+
+        @Override
+        public void schedule(@NonNull Runnable runnable, long uptimeMillis) {
+            mRunnable = runnable;
+            mRunnableTime = uptimeMillis;
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable runnable) {
+            if (mRunnable == runnable) mRunnable = null;
+        }
+
+    }
+
+}
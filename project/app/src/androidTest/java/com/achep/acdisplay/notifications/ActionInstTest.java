@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.text.SpannableString;
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import com.achep.acdisplay.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * JUnit4 unit tests for the content equality and the memoisation
+ * of the {@link Action actions}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ActionInstTest extends InstrumentationTestCase {
+
+    private static final String KEY = "com.example|2|null";
+
+    private Context mContext;
+    private PendingIntent mIntent;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mIntent = PendingIntent.getBroadcast(mContext, 0,
+                new Intent("com.achep.acdisplay.test.ACTION"), 0);
+    }
+
+    @Test
+    public void testEquality() {
+        Action action = newAction("Reply");
+        assertEquals(action, newAction(new SpannableString("Reply")));
+        assertEquals(action.hashCode(), newAction(new SpannableString("Reply")).hashCode());
+        assertFalse(action.equals(newAction("Archive")));
+        assertFalse(action.equals(newAction(null)));
+        assertFalse(newAction(null).equals(action));
+    }
+
+    @Test
+    public void testNullTitle() {
+        Action action = newAction(null);
+        assertNull(action.title);
+        assertEquals(action, newAction(null));
+        assertEquals(action.hashCode(), newAction(null).hashCode());
+
+        // The updates of the notification compare the actions.
+        Action[] actions = Action.makeFor(KEY, newNotification(null), 1);
+        assertNotNull(actions);
+        assertSame(actions, Action.makeFor(KEY, newNotification(null), 2));
+        assertNotSame(actions, Action.makeFor(KEY, newNotification("Reply"), 3));
+    }
+
+    private Action newAction(@Nullable CharSequence title) {
+        Action[] actions = Action.makeFor(newNotification(title));
+        assertNotNull(actions);
+        return actions[0];
+    }
+
+    @SuppressWarnings("deprecation")
+    private Notification newNotification(@Nullable CharSequence title) {
+        return new Notification.Builder(mContext)
+                .setSmallIcon(R.drawable.stat_acdisplay)
+                .addAction(R.drawable.stat_acdisplay, title, mIntent)
+                .build();
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.os.Debug;
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * JUnit4 unit tests and a benchmark of the {@link BrandColorCache brand color cache}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class BrandColorCacheInstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "BrandColorCacheInstTest";
+
+    private static final String PREF_NAME = "test_brand_colors";
+    private static final int COLOR = 0xFF123456;
+
+    private Context mContext;
+    private PackageInfo mPackageInfo;
+    private ArrayList<Integer> mColors;
+
+    @NonNull
+    private final BrandColorCache.OnBrandColorLoadedListener mListener =
+            new BrandColorCache.OnBrandColorLoadedListener() {
+                @Override
+                public void onBrandColorLoaded(@NonNull String packageName, int color) {
+                    mColors.add(color);
+                }
+            };
+
+    @Before
+    public void setUp() throws PackageManager.NameNotFoundException {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mPackageInfo = mContext.getPackageManager().getPackageInfo(mContext.getPackageName(), 0);
+        mColors = new ArrayList<>();
+        clear();
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    @Test
+    public void testSurvivesRestart() {
+        new BrandColorCache(mContext, PREF_NAME).put(mPackageInfo, COLOR);
+        load(new BrandColorCache(mContext, PREF_NAME));
+
+        assertEquals(1, mColors.size());
+        assertEquals(COLOR, (int) mColors.get(0));
+    }
+
+    @Test
+    public void testStaleVersionIsIgnored() {
+        PackageInfo pi = new PackageInfo();
+        pi.packageName = mPackageInfo.packageName;
+        pi.versionCode = mPackageInfo.versionCode - 1;
+        pi.lastUpdateTime = mPackageInfo.lastUpdateTime;
+        new BrandColorCache(mContext, PREF_NAME).put(pi, COLOR);
+        load(new BrandColorCache(mContext, PREF_NAME));
+
+        // The color is being generated again.
+        assertTrue(mColors.isEmpty());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final BrandColorCache cache = new BrandColorCache(mContext, PREF_NAME);
+        cache.put(mPackageInfo, COLOR);
+        cache.invalidate(mPackageInfo.packageName);
+        load(new BrandColorCache(mContext, PREF_NAME));
+
+        assertTrue(mColors.isEmpty());
+    }
+
+    @Test
+    public void testInvalidateWhileGenerating() {
+        final ArrayList<ArrayList<BrandColorCache.OnBrandColorLoadedListener>> runs =
+                new ArrayList<>();
+        final BrandColorCache cache = new BrandColorCache(mContext, PREF_NAME) {
+            @Override
+            boolean generate(@NonNull PackageInfo pi,
+                             @NonNull ArrayList<OnBrandColorLoadedListener> pending) {
+                runs.add(pending);
+                return true;
+            }
+        };
+        final String packageName = mPackageInfo.packageName;
+        cache.load(packageName, mListener);
+        cache.invalidate(packageName);
+        cache.load(packageName, mListener);
+
+        // The first listener is loaded again, the second one joins the new run.
+        assertEquals(2, runs.size());
+        assertEquals(2, runs.get(1).size());
+
+        // The stale run neither notifies nor caches its color.
+        cache.onGenerated(mPackageInfo, runs.get(0), COLOR - 1);
+        assertTrue(mColors.isEmpty());
+        assertFalse(mContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
+                .contains(packageName));
+
+        cache.onGenerated(mPackageInfo, runs.get(1), COLOR);
+        assertEquals(2, mColors.size());
+        assertEquals(COLOR, (int) mColors.get(0));
+        assertEquals(COLOR, (int) mColors.get(1));
+    }
+
+    @Test
+    public void testBenchmark() {
+        final int burst = 20;
+        final BrandColorCache cache = new BrandColorCache(mContext, PREF_NAME);
+        final PackageManager pm = mContext.getPackageManager();
+
+        // Without the cache every notification generates the color.
+        long time = Debug.threadCpuTimeNanos();
+        int color = 0;
+        for (int i = 0; i < burst; i++) {
+            Bitmap bitmap = BrandColorCache.drawIcon(pm, mPackageInfo);
+            assertNotNull(bitmap);
+            color = BrandColorCache.newPaletteBuilder(bitmap).generate().getVibrantColor(0);
+            bitmap.recycle();
+        }
+        final long uncached = Debug.threadCpuTimeNanos() - time;
+
+        // With the cache only the first one does.
+        time = Debug.threadCpuTimeNanos();
+        Bitmap bitmap = BrandColorCache.drawIcon(pm, mPackageInfo);
+        assertNotNull(bitmap);
+        cache.put(mPackageInfo, BrandColorCache.newPaletteBuilder(bitmap).generate().getVibrantColor(0));
+        bitmap.recycle();
+        for (int i = 1; i < burst; i++) cache.load(mPackageInfo.packageName, mListener);
+        final long cached = Debug.threadCpuTimeNanos() - time;
+
+        assertEquals(burst - 1, mColors.size());
+        assertEquals(color, (int) mColors.get(0));
+        Log.i(TAG, "burst of " + burst + ": uncached=" + uncached / 1000 + "us cached="
+                + cached / 1000 + "us saved=" + (uncached - cached) / 1000 + "us");
+    }
+
+    /**
+     * Loads the color of the test's package on the main thread, as
+     * the notifications do.
+     */
+    private void load(@NonNull final BrandColorCache cache) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                cache.load(mPackageInfo.packageName, mListener);
+                cache.cancel(mListener);
+            }
+        });
+    }
+
+    private void clear() {
+        mContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+    }
+
+}
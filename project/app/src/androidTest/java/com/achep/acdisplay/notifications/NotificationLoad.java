@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.annotation.TargetApi;
+import android.app.Notification;
+import android.content.Context;
+import android.os.Build;
+import android.os.Looper;
+import android.os.Process;
+import android.service.notification.StatusBarNotification;
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+
+import com.achep.acdisplay.R;
+import com.achep.base.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Pushes synthetic notification load, such as a chat flood or a restore of
+ * notifications at boot, through the {@link NotificationPresenter presenter} with
+ * a virtual clock, and reports the delivery latency, cost and dispatches.
+ * <p>
+ * The harness runs on a device: the presenter reads the posted notifications
+ * through the framework (the extras of the {@link Notification}, the icons and
+ * resources of the package, the preferences of the {@link com.achep.acdisplay.Config config}
+ * and of the {@link com.achep.acdisplay.blacklist.Blacklist blacklist}), all of
+ * which are stubs in the android.jar of the JVM unit tests.
+ * <p>
+ * Must be run on the main thread.
+ *
+ * @author Artem Chepurnoy
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public final class NotificationLoad {
+
+    /**
+     * The virtual time of the start of the scenario; the proxy
+     * treats zero time as unset.
+     */
+    private static final long START_TIME = 1000;
+
+    /**
+     * All pending notifications are processed this long after the
+     * last step of the scenario.
+     */
+    private static final long FLUSH_TIME = 60000;
+
+    /**
+     * The sequence of notifications to post, with their virtual times.
+     */
+    public static final class Scenario {
+
+        private final ArrayList<Step> mSteps = new ArrayList<>();
+        private final String mPackageName;
+        private long mTime;
+        private int mNextId = 1000;
+
+        /**
+         * @param packageName the package of the notifications; it must be
+         *                    installed, for the icons to be loaded.
+         */
+        public Scenario(@NonNull String packageName) {
+            mPackageName = packageName;
+        }
+
+        /**
+         * Posts the updates of a single notification with the given rate, like
+         * a chat app does.
+         *
+         * @param textChurn {@code true} to change the text of every update,
+         *                  {@code false} to repost the same content.
+         */
+        @NonNull
+        public Scenario flood(int updates, int perSecond, boolean textChurn) {
+            final int id = mNextId++;
+            final long period = 1000 / perSecond;
+            for (int i = 0; i < updates; i++) {
+                final String text = textChurn ? "Message #" + i : "Message";
+                mSteps.add(new Step(mTime, id, "flood", null, false, text));
+                mTime += period;
+            }
+            return this;
+        }
+
+        /**
+         * Posts a bunch of notifications at once, like they are restored
+         * at boot. Every group gets a summary, posted after its children.
+         *
+         * @param groups the number of groups to spread notifications by,
+         *               or {@code 0} to post them ungrouped.
+         */
+        @NonNull
+        public Scenario restore(int count, int groups) {
+            for (int i = 0; i < count; i++) {
+                final String group = groups > 0 ? "group" + i % groups : null;
+                mSteps.add(new Step(mTime, mNextId++, "restore", group, false, "Restored #" + i));
+            }
+            for (int i = 0; i < groups; i++) {
+                mSteps.add(new Step(mTime, mNextId++, "restore", "group" + i, true, "Summary #" + i));
+            }
+            return this;
+        }
+
+        /**
+         * Advances the virtual time of the next steps.
+         */
+        @NonNull
+        public Scenario idle(long millis) {
+            mTime += millis;
+            return this;
+        }
+
+        @NonNull
+        private OpenNotification newNotification(@NonNull Context context, @NonNull Step step) {
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context)
+                    .setSmallIcon(R.drawable.stat_notify)
+                    .setContentTitle("Load")
+                    .setContentText(step.text)
+                    .setWhen(step.time)
+                    .setGroup(step.group)
+                    .setGroupSummary(step.summary);
+            Notification n = builder.build();
+            //noinspection deprecation
+            StatusBarNotification sbn = new StatusBarNotification(
+                    mPackageName, mPackageName, step.id, step.tag,
+                    Process.myUid(), Process.myPid(), 0, n,
+                    Process.myUserHandle(), step.time);
+            return OpenNotification.newInstance(sbn);
+        }
+
+    }
+
+    private static final class Step {
+
+        final long time;
+        final int id;
+        final String tag;
+        final String group;
+        final boolean summary;
+        final String text;
+
+        Step(long time, int id, String tag, String group, boolean summary, String text) {
+            this.time = time;
+            this.id = id;
+            this.tag = tag;
+            this.group = group;
+            this.summary = summary;
+            this.text = text;
+        }
+
+    }
+
+    /**
+     * The results of the {@link #run(Context, Scenario) run}.
+     */
+    public static final class Report {
+
+        /**
+         * The number of notifications posted to the presenter.
+         */
+        public int posted;
+
+        /**
+         * The number of notifications that have reached the lists; the rest
+         * have been overridden by their later updates.
+         */
+        public int delivered;
+
+        /**
+         * The number of times the posted notifications were
+         * processed in a batch.
+         */
+        public int flushes;
+
+        /**
+         * The number of events sent to the list listeners, indexed
+         * by {@link NotificationPresenter#EVENT_POSTED event}.
+         */
+        public final int[] dispatches = new int[NotificationPresenter.EVENT_REMOVED + 1];
+
+        /**
+         * The virtual time from posting a notification to delivery of it,
+         * or of its later update, in millis.
+         */
+        public long[] latency;
+
+        /**
+         * The cost of posting a notification to the presenter, in nanos.
+         */
+        public long[] enqueueCost;
+
+        /**
+         * The cost of delivering a notification to the lists, in nanos.
+         */
+        public long[] deliveryCost;
+
+        /**
+         * The cost of rebuilding the local list after the run, in nanos.
+         */
+        public long rebuildCost;
+
+        /**
+         * @return the total number of events sent to the list listeners.
+         */
+        public int getDispatchCount() {
+            int count = 0;
+            for (int n : dispatches) count += n;
+            return count;
+        }
+
+        /**
+         * @param p the percentile, from {@code 0} to {@code 100}
+         * @return the value of given percentile of the sorted values.
+         */
+        public static long percentile(@NonNull long[] values, int p) {
+            if (values.length == 0) return 0;
+            final int i = (int) Math.ceil(p / 100d * values.length) - 1;
+            return values[Math.max(0, Math.min(values.length - 1, i))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "posted=%d delivered=%d flushes=%d"
+                            + " dispatches=%s"
+                            + " latency_p50=%dms latency_p99=%dms latency_max=%dms"
+                            + " enqueue_p50=%dus enqueue_p99=%dus"
+                            + " delivery_p50=%dus delivery_p99=%dus"
+                            + " rebuild=%dus",
+                    posted, delivered, flushes,
+                    Arrays.toString(dispatches),
+                    percentile(latency, 50), percentile(latency, 99), percentile(latency, 100),
+                    percentile(enqueueCost, 50) / 1000, percentile(enqueueCost, 99) / 1000,
+                    percentile(deliveryCost, 50) / 1000, percentile(deliveryCost, 99) / 1000,
+                    rebuildCost / 1000);
+        }
+
+    }
+
+    /**
+     * Runs the scenario through a new presenter, driven by a virtual clock.
+     */
+    @NonNull
+    public static Report run(@NonNull Context context, @NonNull Scenario scenario) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("Must be run on the main thread!");
+        }
+
+        final Report report = new Report();
+        final FakeClock clock = new FakeClock();
+        final ArrayList<OpenNotification> pending = new ArrayList<>();
+        final ArrayList<Long> pendingTimes = new ArrayList<>();
+        final ArrayList<Long> latency = new ArrayList<>();
+        final ArrayList<Long> deliveryCost = new ArrayList<>();
+        final NotificationPresenter presenter = new NotificationPresenter(clock) {
+            @Override
+            void postNotification(@NonNull Context context, @NonNull OpenNotification n, int flags) {
+                // The notification is delivered together with all
+                // of its previous updates it has overridden.
+                for (int i = pending.size() - 1; i >= 0; i--) {
+                    if (NotificationUtils.hasIdenticalIds(pending.get(i), n)) {
+                        latency.add(clock.uptimeMillis() - pendingTimes.get(i));
+                        pending.remove(i);
+                        pendingTimes.remove(i);
+                    }
+                }
+                report.delivered++;
+                final long start = System.nanoTime();
+                super.postNotification(context, n, flags);
+                deliveryCost.add(System.nanoTime() - start);
+            }
+        };
+        // Keep the strong reference: listeners are held weakly.
+        final NotificationPresenter.OnNotificationListChangedListener listener =
+                new NotificationPresenter.OnNotificationListChangedListener() {
+                    @Override
+                    public void onNotificationListChanged(@NonNull NotificationPresenter np,
+                                                          OpenNotification n, int event,
+                                                          boolean isLastEventInSequence) {
+                        report.dispatches[event]++;
+                    }
+                };
+        presenter.registerListener(listener);
+
+        // Create notifications beforehand, their cost is not
+        // the presenter's business.
+        final int size = scenario.mSteps.size();
+        final OpenNotification[] notifications = new OpenNotification[size];
+        for (int i = 0; i < size; i++) {
+            notifications[i] = scenario.newNotification(context, scenario.mSteps.get(i));
+        }
+
+        final long[] enqueueCost = new long[size];
+        for (int i = 0; i < size; i++) {
+            final Step step = scenario.mSteps.get(i);
+            final OpenNotification n = notifications[i];
+            clock.advanceTo(START_TIME + step.time);
+            pending.add(n);
+            pendingTimes.add(clock.uptimeMillis());
+            final long start = System.nanoTime();
+            presenter.postNotificationFromMain(context, n, 0);
+            enqueueCost[i] = System.nanoTime() - start;
+        }
+        clock.advanceTo(clock.uptimeMillis() + FLUSH_TIME);
+
+        synchronized (presenter.monitor) {
+            final long start = System.nanoTime();
+            presenter.rebuildLocalList();
+            report.rebuildCost = System.nanoTime() - start;
+            presenter.clear(false);
+        }
+        presenter.unregisterListener(listener);
+
+        report.posted = size;
+        report.flushes = clock.mRuns;
+        report.latency = toSortedArray(latency);
+        report.deliveryCost = toSortedArray(deliveryCost);
+        Arrays.sort(enqueueCost);
+        report.enqueueCost = enqueueCost;
+        return report;
+    }
+
+    @NonNull
+    private static long[] toSortedArray(@NonNull ArrayList<Long> list) {
+        final long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * The virtual clock that runs the scheduled runnables
+     * when the time is advanced past them.
+     */
+    private static final class FakeClock implements Timeout.Clock {
+
+        private final ArrayList<Runnable> mRunnables = new ArrayList<>();
+        private final ArrayList<Long> mTimes = new ArrayList<>();
+        private long mTime = START_TIME;
+        private int mRuns;
+
+        void advanceTo(long time) {
+            while (true) {
+                int next = -1;
+                for (int i = 0; i < mTimes.size(); i++) {
+                    if (mTimes.get(i) <= time && (next == -1 || mTimes.get(i) < mTimes.get(next))) {
+                        next = i;
+                    }
+                }
+                if (next == -1) break;
+
+                final Runnable runnable = mRunnables.remove(next);
+                mTime = Math.max(mTime, mTimes.remove(next));
+                mRuns++;
+                runnable.run();
+            }
+            mTime = Math.max(mTime, time);
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return mTime;
+        }
+
+        @Override
+        public void schedule(@NonNull Runnable runnable, long uptimeMillis) {
+            mRunnables.add(runnable);
+            mTimes.add(uptimeMillis);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable runnable) {
+            for (int i = mRunnables.size() - 1; i >= 0; i--) {
+                if (mRunnables.get(i) == runnable) {
+                    mRunnables.remove(i);
+                    mTimes.remove(i);
+                }
+            }
+        }
+
+    }
+
+    private NotificationLoad() {
+    }
+
+}
@@ -18,9 +18,21 @@
  */
 package com.achep.acdisplay.suite;
 
+import com.achep.acdisplay.BatteryMeterViewInstTest;
+import com.achep.acdisplay.DeviceStateInstTest;
 import com.achep.acdisplay.FileUtilsInstTest;
 import com.achep.acdisplay.GzipUtilsInstTest;
+import com.achep.acdisplay.NotificationIngressInstTest;
+import com.achep.acdisplay.NotificationLoadInstTest;
 import com.achep.acdisplay.SharedListInstTest;
+import com.achep.acdisplay.TaskQueueThreadInstTest;
+import com.achep.acdisplay.TimeoutInstTest;
+import com.achep.acdisplay.notifications.ActionInstTest;
+import com.achep.acdisplay.notifications.BrandColorCacheInstTest;
+import com.achep.acdisplay.utils.BitmapUtilsInstTest;
+import com.achep.base.permissions.PermissionInstTest;
+import com.achep.base.ui.drawables.RippleDrawable2InstTest;
+import com.achep.base.ui.drawables.TransformationDrawableInstTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -29,6 +41,22 @@ import org.junit.runners.Suite;
  * Runs all Junit3 and Junit4 Instrumentation tests.
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({FileUtilsInstTest.class, GzipUtilsInstTest.class, SharedListInstTest.class})
+@Suite.SuiteClasses({
+        ActionInstTest.class,
+        BatteryMeterViewInstTest.class,
+        BitmapUtilsInstTest.class,
+        BrandColorCacheInstTest.class,
+        DeviceStateInstTest.class,
+        FileUtilsInstTest.class,
+        GzipUtilsInstTest.class,
+        NotificationIngressInstTest.class,
+        NotificationLoadInstTest.class,
+        PermissionInstTest.class,
+        RippleDrawable2InstTest.class,
+        SharedListInstTest.class,
+        TaskQueueThreadInstTest.class,
+        TimeoutInstTest.class,
+        TransformationDrawableInstTest.class,
+})
 public class InstrumentationTestSuite {
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * JUnit4 unit tests and a benchmark of the analysis of the
+ * {@link Bitmap bitmaps} by the {@link BitmapUtils}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class BitmapUtilsInstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "BitmapUtilsInstTest";
+
+    @Test
+    public void testSmallBitmapIsFullySampled() {
+        Bitmap bitmap = newBitmap(8, 8);
+        int[] pixels = new int[8 * 8];
+        bitmap.getPixels(pixels, 0, 8, 0, 0, 8, 8);
+
+        assertEquals(BitmapUtils.getAverageColor(pixels, 0, pixels.length, false),
+                BitmapUtils.getAverageColor(bitmap));
+        assertEquals(BitmapUtils.getAverageColor(pixels, 0, pixels.length, true),
+                BitmapUtils.getAverageColor(bitmap, true));
+        bitmap.recycle();
+    }
+
+    @Test
+    public void testTransparentCorners() {
+        Bitmap bitmap = Bitmap.createBitmap(7, 5, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+        assertFalse(BitmapUtils.hasTransparentCorners(bitmap));
+
+        bitmap.setPixel(6, 4, Color.TRANSPARENT);
+        assertTrue(BitmapUtils.hasTransparentCorners(bitmap));
+        bitmap.recycle();
+
+        // One pixel is all the corners.
+        bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+        assertTrue(BitmapUtils.hasTransparentCorners(bitmap));
+        bitmap.recycle();
+    }
+
+    @Test
+    public void testAverageColorOfIcon() {
+        // Round icon: the transparent corners fade the color.
+        Bitmap bitmap = Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < 96; y++) {
+            for (int x = 0; x < 96; x++) {
+                final int dx = x - 48, dy = y - 48;
+                if (dx * dx + dy * dy < 48 * 48) bitmap.setPixel(x, y, Color.BLUE);
+            }
+        }
+
+        assertEquals(Color.BLUE, BitmapUtils.getAverageColor(bitmap, true));
+        final int color = BitmapUtils.getAverageColor(bitmap);
+        assertEquals(Color.BLUE, color | 0xFF000000);
+        assertTrue(Color.alpha(color) < 255);
+        bitmap.recycle();
+    }
+
+    @Test
+    public void testBenchmark() {
+        final Bitmap bitmap = newBitmap(512, 512);
+        final int count = 200;
+        int result = 0;
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            long time = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < count; i++) {
+                Bitmap onePixelBitmap = Bitmap.createScaledBitmap(bitmap, 1, 1, true);
+                result ^= onePixelBitmap.getPixel(0, 0);
+                onePixelBitmap.recycle();
+            }
+            final long scaled = (SystemClock.elapsedRealtimeNanos() - time) / count;
+
+            time = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < count; i++) {
+                result ^= BitmapUtils.getAverageColor(bitmap);
+            }
+            final long sampled = (SystemClock.elapsedRealtimeNanos() - time) / count;
+
+            if (round > 0) {
+                Log.i(TAG, "average color of 512x512: scaled=" + scaled + "ns sampled="
+                        + sampled + "ns [" + Integer.toHexString(result) + "]");
+            }
+        }
+        bitmap.recycle();
+    }
+
+    /**
+     * @return The new bitmap of a gradient with transparent pixels.
+     */
+    @NonNull
+    private static Bitmap newBitmap(int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int alpha = (x + y) % 3 == 0 ? 0 : 255;
+                bitmap.setPixel(x, y, Color.argb(alpha, x * 255 / width, y * 255 / height, 128));
+            }
+        }
+        return bitmap;
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.base.permissions;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * JUnit4 unit tests for the cached state of the {@link Permission permission}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PermissionInstTest extends InstrumentationTestCase {
+
+    private FakePermission mPermission;
+    private ArrayList<Boolean> mEvents;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mPermission = new FakePermission(context);
+        mEvents = new ArrayList<>();
+        mPermission.registerListener(new Permission.OnPermissionStateChanged() {
+            @Override
+            public void onPermissionStateChanged(@NonNull Permission permission, boolean granted) {
+                mEvents.add(granted);
+            }
+        });
+    }
+
+    @Test
+    public void testNotObservedQueriesEveryTime() {
+        mPermission.isGranted();
+        mPermission.isGranted();
+        assertEquals(2, mPermission.queries);
+
+        mPermission.granted = true;
+        mPermission.refresh();
+        assertTrue(mPermission.isGranted());
+        assertTrue(mEvents.isEmpty());
+    }
+
+    @Test
+    public void testObservedIsCached() {
+        mPermission.startObserving(new Handler(Looper.getMainLooper()));
+        final int queries = mPermission.queries;
+        for (int i = 0; i < 100; i++) assertFalse(mPermission.isGranted());
+        assertEquals(queries, mPermission.queries);
+
+        // The cache is stale until refreshed.
+        mPermission.granted = true;
+        assertFalse(mPermission.isGranted());
+        mPermission.refresh();
+        assertTrue(mPermission.isGranted());
+
+        mPermission.stopObserving();
+        mPermission.granted = false;
+        assertFalse(mPermission.isGranted());
+    }
+
+    @Test
+    public void testNotifiesOnTransitionsOnly() {
+        mPermission.startObserving(new Handler(Looper.getMainLooper()));
+        mPermission.refresh();
+        mPermission.granted = true;
+        mPermission.refresh();
+        mPermission.refresh();
+        mPermission.granted = false;
+        mPermission.refresh();
+
+        assertEquals(2, mEvents.size());
+        assertTrue(mEvents.get(0));
+        assertFalse(mEvents.get(1));
+    }
+
+    /**
+     * @author Artem Chepurnoy
+     */
+    private static class FakePermission extends Permission {
+
+        boolean granted;
+        int queries;
+
+        FakePermission(@NonNull Context context) {
+            super(context);
+        }
+
+        @Override
+        protected boolean queryGranted() {
+            queries++;
+            return granted;
+        }
+
+        @NonNull
+        @Override
+        public Intent getIntentSettings() {
+            return new Intent();
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.base.ui.drawables;
+
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.os.SystemClock;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import com.achep.base.Device;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * JUnit4 unit tests and a benchmark of the tinting of the ripple.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class RippleDrawable2InstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "RippleDrawable2InstTest";
+
+    @Test
+    public void testTint() {
+        final int ripple = Color.argb(0x40, 0xFF, 0xFF, 0xFF);
+        final int color = Color.argb(0xFF, 0x80, 0x40, 0x00);
+
+        assertTrue(RippleDrawable2.isTintSupported(PorterDuff.Mode.MULTIPLY));
+        assertFalse(RippleDrawable2.isTintSupported(PorterDuff.Mode.SCREEN));
+
+        assertEquals(color, RippleDrawable2.tint(ripple, color, PorterDuff.Mode.SRC));
+        assertEquals(Color.argb(0x40, 0x80, 0x40, 0x00),
+                RippleDrawable2.tint(ripple, color, PorterDuff.Mode.SRC_IN));
+        assertEquals(Color.argb(0x40, 0x80, 0x40, 0x00),
+                RippleDrawable2.tint(ripple, color, PorterDuff.Mode.MULTIPLY));
+        assertEquals(Color.argb(0x40, 0x40, 0x20, 0x00), RippleDrawable2.tint(
+                Color.argb(0x40, 0x80, 0x80, 0x80), color, PorterDuff.Mode.MULTIPLY));
+    }
+
+    @Test
+    public void testRepeatedTintIsNotReapplied() {
+        if (!Device.hasLollipopApi()) return;
+
+        final int[] colors = new int[1];
+        RippleDrawable2 drawable = new RippleDrawable2(
+                ColorStateList.valueOf(0x40FFFFFF), null, null) {
+            @Override
+            public void setColor(ColorStateList color) {
+                super.setColor(color);
+                colors[0]++;
+            }
+        };
+        drawable.setColorFilter(Color.RED, PorterDuff.Mode.MULTIPLY);
+
+        // Applying the tint creates a new color filter and color
+        // of the ripple; the same tint must keep the current ones.
+        final int count = colors[0];
+        assertTrue(count > 0);
+        for (int i = 0; i < 100; i++) {
+            drawable.setColorFilter(Color.RED, PorterDuff.Mode.MULTIPLY);
+        }
+        assertEquals(count, colors[0]);
+    }
+
+    @Test
+    public void testBenchmark() {
+        if (!Device.hasLollipopApi()) return;
+
+        final int count = 1000;
+        RippleDrawable2 drawable = newRippleDrawable();
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            // Dynamic colors: every tint is new.
+            long time = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < count; i++) {
+                drawable.setColorFilter(Color.rgb(i % 256, 128, 255 - i % 256),
+                        PorterDuff.Mode.MULTIPLY);
+            }
+            final long tint = (SystemClock.elapsedRealtimeNanos() - time) / count;
+
+            // Fallback to the paint of the ripple.
+            time = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < count; i++) {
+                drawable.setColorFilter(Color.rgb(i % 256, 128, 255 - i % 256),
+                        PorterDuff.Mode.SCREEN);
+            }
+            final long fallback = (SystemClock.elapsedRealtimeNanos() - time) / count;
+
+            if (round > 0) {
+                Log.i(TAG, "tint=" + tint + "ns fallback=" + fallback + "ns");
+            }
+        }
+    }
+
+    private static RippleDrawable2 newRippleDrawable() {
+        return new RippleDrawable2(ColorStateList.valueOf(0x40FFFFFF), null, null);
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.base.ui.drawables;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.SmallTest;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * JUnit4 unit tests and a frame time benchmark of the
+ * {@link TransformationDrawable transformation drawable}.
+ *
+ * @author Artem Chepurnoy
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class TransformationDrawableInstTest extends InstrumentationTestCase {
+
+    private static final String TAG = "TransformationDrawableInstTest";
+
+    private static final int SIZE = 96;
+    private static final int KEYFRAMES = 36;
+
+    @Test
+    public void testKeyframesMatchContinuousPath() {
+        PlayPauseDrawable keyframed = newDrawable(KEYFRAMES);
+        PlayPauseDrawable continuous = newDrawable(0);
+        keyframed.transformToShape(1, false);
+        continuous.transformToShape(1, false);
+        keyframed.setTargetShape(2);
+        continuous.setTargetShape(2);
+
+        for (int k = 0; k <= KEYFRAMES; k++) {
+            final float progress = (float) k / KEYFRAMES;
+            keyframed.setTransformation(progress);
+            continuous.setTransformation(progress);
+            assertBounds(bounds(continuous), bounds(keyframed));
+        }
+    }
+
+    @Test
+    public void testInterruptionIsContinuous() {
+        for (int keyframes : new int[]{0, KEYFRAMES}) {
+            PlayPauseDrawable drawable = newDrawable(keyframes);
+
+            // Go back in the middle of transition.
+            drawable.setTargetShape(1);
+            drawable.setTransformation(0.4f);
+            RectF bounds = bounds(drawable);
+            drawable.setTargetShape(0);
+            drawable.setTransformation(drawable.getTransformation());
+            assertBounds(bounds, bounds(drawable));
+
+            // Go to the other shape in the middle of transition.
+            drawable.setTransformation(0.3f);
+            bounds = bounds(drawable);
+            drawable.setTargetShape(2);
+            drawable.setTransformation(drawable.getTransformation());
+            assertBounds(bounds, bounds(drawable));
+
+            drawable.setTransformation(1f);
+            assertBounds(bounds(newDrawable(0, 2)), bounds(drawable));
+        }
+    }
+
+    @Test
+    public void testFramesReusePaths() {
+        for (int keyframes : new int[]{0, KEYFRAMES}) {
+            PlayPauseDrawable drawable = newDrawable(keyframes);
+            playFrames(drawable); // to end up in the same state after every run
+            Set<Path> paths = playFrames(drawable);
+            if (keyframes == 0) assertEquals(1, paths.size());
+
+            // The same frames are drawn with the same paths again.
+            Set<Path> again = playFrames(drawable);
+            again.removeAll(paths);
+            assertTrue(again.isEmpty());
+        }
+    }
+
+    /**
+     * @return the paths of the frames of the interrupted transitions.
+     */
+    @NonNull
+    private static Set<Path> playFrames(@NonNull PlayPauseDrawable drawable) {
+        Set<Path> paths = Collections.newSetFromMap(new IdentityHashMap<Path, Boolean>());
+        drawable.transformToShape(0, false);
+        drawable.setTargetShape(1);
+        for (int i = 0; i < 100; i++) {
+            drawable.setTransformation(i / 100f);
+            if (i % 10 == 5) drawable.setTargetShape(i % 3); // interrupt
+            paths.add(drawable.getPath());
+        }
+        return paths;
+    }
+
+    @Test
+    public void testBenchmark() {
+        final Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        final int frames = 2000;
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            long[] time = new long[2];
+            for (int i = 0; i < 2; i++) {
+                PlayPauseDrawable drawable = newDrawable(i == 0 ? 0 : KEYFRAMES);
+                long start = SystemClock.elapsedRealtimeNanos();
+                for (int frame = 0; frame < frames; frame++) {
+                    if (frame % 20 == 0) drawable.setTargetShape(frame / 20 % 3);
+                    drawable.setTransformation(frame % 20 / 19f);
+                    drawable.draw(canvas);
+                }
+                time[i] = (SystemClock.elapsedRealtimeNanos() - start) / frames;
+            }
+
+            if (round > 0) {
+                Log.i(TAG, "frame time: continuous=" + time[0] + "ns keyframes=" + time[1] + "ns");
+            }
+        }
+        bitmap.recycle();
+    }
+
+    @NonNull
+    private static PlayPauseDrawable newDrawable(int keyframes) {
+        return newDrawable(keyframes, 0);
+    }
+
+    @NonNull
+    private static PlayPauseDrawable newDrawable(int keyframes, int shape) {
+        PlayPauseDrawable drawable = new PlayPauseDrawable();
+        drawable.setKeyframes(keyframes);
+        drawable.setBounds(0, 0, SIZE, SIZE);
+        drawable.transformToShape(shape, false);
+        return drawable;
+    }
+
+    private static void assertBounds(@NonNull RectF expected, @NonNull RectF actual) {
+        final float delta = 0.01f;
+        assertEquals(expected.left, actual.left, delta);
+        assertEquals(expected.top, actual.top, delta);
+        assertEquals(expected.right, actual.right, delta);
+        assertEquals(expected.bottom, actual.bottom, delta);
+    }
+
+    @NonNull
+    private static RectF bounds(@NonNull TransformationDrawable drawable) {
+        RectF rect = new RectF();
+        drawable.getPath().computeBounds(rect, true);
+        return rect;
+    }
+
+}
@@ -164,6 +164,7 @@ public class App extends Application {
         });
         Config.getInstance().init(this);
         Blacklist.getInstance().init(this);
+        DeviceState.getInstance().init(this);
         SmileyParser.init(this);
 
         // Init the main notification listener.
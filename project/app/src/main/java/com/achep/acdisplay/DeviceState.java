@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.Settings;
+import androidx.annotation.NonNull;
+import android.telephony.PhoneStateListener;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import com.achep.acdisplay.notifications.NotificationPresenter;
+import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.base.Device;
+import com.achep.base.interfaces.ISubscriptable;
+import com.achep.base.tests.Check;
+import com.achep.base.utils.power.PowerUtils;
+import com.achep.base.utils.zen.ZenConsts;
+import com.achep.base.utils.zen.ZenUtils;
+
+import java.util.ArrayList;
+
+import static com.achep.base.Build.DEBUG;
+
+/**
+ * The device's state: screen, power, call state, zen mode and notifications.
+ * <p>
+ * It is kept up-to-date by a single set of broadcast receivers and observers, so reading
+ * it is just a volatile field read: no binder calls and no locks. The changes of the state
+ * are de-duplicated and sent to the {@link OnDeviceStateChangedListener listeners} on the
+ * main thread, which is the one place to log or replay them.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class DeviceState implements ISubscriptable<DeviceState.OnDeviceStateChangedListener> {
+
+    private static final String TAG = "DeviceState";
+
+    public static final int STATE_SCREEN = 1;
+    public static final int STATE_BATTERY = 1 << 1;
+    public static final int STATE_CALL = 1 << 2;
+    public static final int STATE_ZEN = 1 << 3;
+    public static final int STATE_NOTIFICATIONS = 1 << 4;
+
+    private static DeviceState sInstance;
+
+    /**
+     * @author Artem Chepurnoy
+     */
+    public interface OnDeviceStateChangedListener {
+
+        /**
+         * Called on the main thread when the state has changed.
+         *
+         * @param what one of the {@code STATE_*} constants, such
+         *             as {@link #STATE_SCREEN}.
+         */
+        void onDeviceStateChanged(@NonNull DeviceState state, int what);
+
+    }
+
+    /**
+     * The immutable copy of the device's state.
+     *
+     * @author Artem Chepurnoy
+     * @see #getSnapshot()
+     */
+    public static final class Snapshot {
+
+        public final boolean screenOn;
+        public final boolean plugged;
+        public final int batteryLevel;
+        public final int callState;
+        public final int zenMode;
+        public final int notificationCount;
+        public final long notificationTime;
+
+        private Snapshot(@NonNull DeviceState state) {
+            screenOn = state.mScreenOn;
+            plugged = state.mPlugged;
+            batteryLevel = state.mBatteryLevel;
+            callState = state.mCallState;
+            zenMode = state.mZenMode;
+            notificationCount = state.mNotificationCount;
+            notificationTime = state.mNotificationTime;
+        }
+
+        @Override
+        public String toString() {
+            return "DeviceState.Snapshot[screen_on=" + screenOn
+                    + " plugged=" + plugged
+                    + " battery_level=" + batteryLevel
+                    + " call_state=" + callState
+                    + " zen_mode=" + zenMode
+                    + " notification_count=" + notificationCount
+                    + " notification_time=" + notificationTime + "]";
+        }
+
+    }
+
+    private final ArrayList<OnDeviceStateChangedListener> mListeners = new ArrayList<>(6);
+
+    private volatile boolean mScreenOn;
+    private volatile boolean mPlugged;
+    private volatile int mBatteryLevel = 100;
+    private volatile int mCallState = TelephonyManager.CALL_STATE_IDLE;
+    private volatile int mZenMode = ZenUtils.ZEN_MODE_DEFAULT;
+    private volatile int mNotificationCount;
+    private volatile long mNotificationTime;
+
+    private Context mContext;
+    private Handler mHandler;
+
+    @NonNull
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            switch (intent.getAction()) {
+                case Intent.ACTION_SCREEN_ON:
+                    setScreenOn(true);
+                    break;
+                case Intent.ACTION_SCREEN_OFF:
+                    setScreenOn(false);
+                    break;
+                case Intent.ACTION_BATTERY_CHANGED:
+                    setBattery(PowerUtils.isPlugged(intent), PowerUtils.getBatteryLevel(intent));
+                    break;
+            }
+        }
+    };
+
+    private PhoneStateListener mPhoneStateListener;
+    private ContentObserver mZenObserver;
+
+    @NonNull
+    private final NotificationPresenter.OnNotificationListChangedListener mNotificationListener =
+            new NotificationPresenter.OnNotificationListChangedListener() {
+
+                private boolean mPostedPending;
+
+                @Override
+                public void onNotificationListChanged(@NonNull NotificationPresenter np,
+                                                      OpenNotification n, int event,
+                                                      boolean isLastEventInSequence) {
+                    if (event != NotificationPresenter.EVENT_REMOVED) mPostedPending = true;
+                    if (isLastEventInSequence) {
+                        final long time = mPostedPending
+                                ? SystemClock.elapsedRealtime()
+                                : mNotificationTime;
+                        mPostedPending = false;
+                        setNotifications(np.size(), time);
+                    }
+                }
+
+            };
+
+    @NonNull
+    public static synchronized DeviceState getInstance() {
+        if (sInstance == null) {
+            sInstance = new DeviceState();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Creates the state that is not tracking anything, until
+     * it's {@link #init(Context) initialized}.
+     */
+    DeviceState() {
+    }
+
+    /**
+     * Starts tracking the device's state. Must be called
+     * once from the main thread.
+     */
+    @SuppressLint("NewApi")
+    public void init(@NonNull Context context) {
+        mContext = context.getApplicationContext();
+        mHandler = new Handler(Looper.getMainLooper());
+        mScreenOn = PowerUtils.isScreenOn(mContext);
+
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(Intent.ACTION_SCREEN_ON);
+        intentFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        intentFilter.addAction(Intent.ACTION_BATTERY_CHANGED);
+        intentFilter.setPriority(IntentFilter.SYSTEM_HIGH_PRIORITY - 1);
+        // The battery intent is sticky, so the receiver is
+        // called with the current state right away.
+        Intent battery = mContext.registerReceiver(mReceiver, intentFilter, null, mHandler);
+        mPlugged = PowerUtils.isPlugged(battery);
+        mBatteryLevel = PowerUtils.getBatteryLevel(battery);
+
+        TelephonyManager tm = (TelephonyManager) mContext.getSystemService(Context.TELEPHONY_SERVICE);
+        mCallState = tm.getCallState();
+        mPhoneStateListener = new PhoneStateListener() {
+            @Override
+            public void onCallStateChanged(int state, String incomingNumber) {
+                super.onCallStateChanged(state, incomingNumber);
+                setCallState(state);
+            }
+        };
+        tm.listen(mPhoneStateListener, PhoneStateListener.LISTEN_CALL_STATE);
+
+        if (Device.hasLollipopApi()) {
+            mZenObserver = new ContentObserver(mHandler) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    super.onChange(selfChange);
+                    setZenMode(ZenUtils.getValue(mContext));
+                }
+            };
+            mContext.getContentResolver().registerContentObserver(
+                    Settings.Global.getUriFor(ZenConsts.ZEN_MODE), false, mZenObserver);
+            mZenMode = ZenUtils.getValue(mContext);
+        }
+
+        NotificationPresenter np = NotificationPresenter.getInstance();
+        np.registerListener(mNotificationListener);
+        mNotificationCount = np.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerListener(@NonNull OnDeviceStateChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregisterListener(@NonNull OnDeviceStateChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    private void notifyListeners(int what) {
+        Check.getInstance().isInMainThread();
+        if (DEBUG) Log.d(TAG, "State changed: what=" + what + " " + getSnapshot());
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onDeviceStateChanged(this, what);
+        }
+    }
+
+    //-- CHANGING THE STATE ---------------------------------------------------
+
+    void setScreenOn(boolean screenOn) {
+        if (mScreenOn == screenOn) return;
+        mScreenOn = screenOn;
+        notifyListeners(STATE_SCREEN);
+    }
+
+    void setBattery(boolean plugged, int level) {
+        if (mPlugged == plugged && mBatteryLevel == level) return;
+        mPlugged = plugged;
+        mBatteryLevel = level;
+        notifyListeners(STATE_BATTERY);
+    }
+
+    void setCallState(int callState) {
+        if (mCallState == callState) return;
+        mCallState = callState;
+        notifyListeners(STATE_CALL);
+    }
+
+    void setZenMode(int zenMode) {
+        if (mZenMode == zenMode) return;
+        mZenMode = zenMode;
+        if (DEBUG) Log.d(TAG, "Zen mode is " + ZenUtils.zenModeToString(zenMode));
+        notifyListeners(STATE_ZEN);
+    }
+
+    void setNotifications(int count, long time) {
+        if (mNotificationCount == count && mNotificationTime == time) return;
+        mNotificationCount = count;
+        mNotificationTime = time;
+        notifyListeners(STATE_NOTIFICATIONS);
+    }
+
+    //-- READING THE STATE ----------------------------------------------------
+
+    /**
+     * @return the immutable copy of the current state.
+     */
+    @NonNull
+    public Snapshot getSnapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * @return {@code true} if the screen is on, {@code false} otherwise.
+     * @see PowerUtils#isScreenOn(Context)
+     */
+    public boolean isScreenOn() {
+        return mScreenOn;
+    }
+
+    /**
+     * @return {@code true} if the device is plugged, {@code false} otherwise.
+     * @see PowerUtils#isPlugged(Context)
+     */
+    public boolean isPlugged() {
+        return mPlugged;
+    }
+
+    /**
+     * @return the battery level, in percents.
+     * @see PowerUtils#getBatteryLevel(Intent)
+     */
+    public int getBatteryLevel() {
+        return mBatteryLevel;
+    }
+
+    /**
+     * @return the current call state, one of the
+     * {@code TelephonyManager#CALL_STATE_*} constants.
+     */
+    public int getCallState() {
+        return mCallState;
+    }
+
+    /**
+     * @return {@code true} if the phone is ringing or in a call,
+     * {@code false} otherwise.
+     */
+    public boolean isCalling() {
+        final int state = mCallState;
+        return state == TelephonyManager.CALL_STATE_RINGING
+                || state == TelephonyManager.CALL_STATE_OFFHOOK;
+    }
+
+    /**
+     * @return the current zen mode, one of the
+     * {@code ZenConsts#ZEN_MODE_*} constants.
+     * @see ZenUtils#getValue(Context)
+     */
+    public int getZenMode() {
+        return mZenMode;
+    }
+
+    /**
+     * @return the number of notifications in the {@link NotificationPresenter#getList() list}.
+     */
+    public int getNotificationCount() {
+        return mNotificationCount;
+    }
+
+    /**
+     * @return the {@link SystemClock#elapsedRealtime() time} of the latest posted or
+     * changed notification, or {@code 0} if there were none.
+     */
+    public long getNotificationTime() {
+        return mNotificationTime;
+    }
+
+}
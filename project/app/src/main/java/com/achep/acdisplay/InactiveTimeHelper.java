@@ -18,34 +18,71 @@
  */
 package com.achep.acdisplay;
 
-import android.os.Build;
-import android.text.format.Time;
-
-import com.achep.base.utils.DateUtils;
-
-import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 /**
  * Created by Artem on 10.03.14.
  */
 public class InactiveTimeHelper {
 
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
     public static boolean isInactiveTime(Config config) {
-        int now=0;
-        if(Build.VERSION.SDK_INT< Build.VERSION_CODES.LOLLIPOP_MR1)
-        {
-            Time time = new Time();
-            time.setToNow();
-            now = time.hour * 60 + time.minute;
-        }
-        else {
-            GregorianCalendar gregorianCalendar = new GregorianCalendar();
-            now = gregorianCalendar.get(GregorianCalendar.HOUR) * 60 + gregorianCalendar.get(GregorianCalendar.MINUTE);
-        }
-
-        int from = config.getInactiveTimeFrom();
-        int to = config.getInactiveTimeTo();
-        return from < to ? now >= from && now <= to : now >= from || now <= to;
+        return isInactiveTime(
+                config.getInactiveTimeFrom(),
+                config.getInactiveTimeTo(),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * @param from   the start of inactive time, in minutes of the day
+     * @param to     the end of inactive time, in minutes of the day
+     * @param millis the wall clock time to check
+     */
+    public static boolean isInactiveTime(int from, int to, long millis) {
+        return isInactiveMinute(from, to, getMinuteOfDay(millis));
+    }
+
+    private static boolean isInactiveMinute(int from, int to, int minute) {
+        return from < to ? minute >= from && minute <= to : minute >= from || minute <= to;
+    }
+
+    /**
+     * @param from   the start of inactive time, in minutes of the day
+     * @param to     the end of inactive time, in minutes of the day
+     * @param millis the wall clock time to start from
+     * @return the wall clock time of the next start or end of inactive time,
+     * or {@code -1} if the inactive time lasts all day.
+     */
+    public static long getNextTransitionTime(int from, int to, long millis) {
+        final boolean inactive = isInactiveTime(from, to, millis);
+        // The last minute of the range is inclusive.
+        final int target = inactive ? (to + 1) % MINUTES_PER_DAY : from;
+        if (inactive && isInactiveMinute(from, to, target)) return -1;
+
+        final TimeZone tz = TimeZone.getDefault();
+        final int offset = tz.getOffset(millis);
+        final long local = millis + offset;
+        final long minuteStart = millis - ((local % 60000L) + 60000L) % 60000L;
+
+        int delta = target - getMinuteOfDay(millis);
+        if (delta <= 0) delta += MINUTES_PER_DAY;
+        long time = minuteStart + delta * 60000L;
+
+        // Keep the local time if the daylight saving time
+        // changes in between.
+        time -= tz.getOffset(time) - offset;
+        return time > millis ? time : time + MINUTES_PER_DAY * 60000L;
+    }
+
+    /**
+     * @return the local minute of the day (from {@code 0} to {@code 1439})
+     * of given wall clock time.
+     */
+    public static int getMinuteOfDay(long millis) {
+        final long local = millis + TimeZone.getDefault().getOffset(millis);
+        final int minute = (int) ((local / 60000L) % MINUTES_PER_DAY);
+        return minute < 0 ? minute + MINUTES_PER_DAY : minute;
     }
 
 }
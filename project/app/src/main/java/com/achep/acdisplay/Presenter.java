@@ -18,13 +18,13 @@
  */
 package com.achep.acdisplay;
 
-import android.app.Notification;
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
 import android.os.PowerManager;
+import android.os.Trace;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import android.telephony.TelephonyManager;
 import android.util.Log;
 
 import com.achep.acdisplay.blacklist.Blacklist;
@@ -33,17 +33,19 @@ import com.achep.acdisplay.notifications.OpenNotification;
 import com.achep.acdisplay.services.activemode.sensors.ProximitySensor;
 import com.achep.acdisplay.ui.activities.AcDisplayActivity;
 import com.achep.acdisplay.ui.activities.KeyguardActivity;
+import com.achep.base.Device;
+import com.achep.base.content.ConfigBase;
 import com.achep.base.utils.Operator;
 import com.achep.base.utils.power.PowerUtils;
-import com.achep.base.utils.zen.ZenConsts;
-import com.achep.base.utils.zen.ZenUtils;
 
 import static com.achep.base.Build.DEBUG;
 
 /**
  * Created by Artem on 07.03.14.
  */
-public class Presenter implements NotificationPresenter.OnNotificationPostedListener {
+public class Presenter implements
+        NotificationPresenter.OnNotificationPostedListener,
+        ConfigBase.OnConfigChangedListener {
 
     private static final String TAG = "AcDisplayPresenter";
     private static final String WAKE_LOCK_TAG = "AcDisplay launcher.";
@@ -55,12 +57,26 @@ public class Presenter implements NotificationPresenter.OnNotificationPostedList
     public static final int STATE_STOPPED = 1;
     public static final int STATE_DESTROYED = 0;
 
+    /**
+     * The wake decision results that are not covered
+     * by {@link WakeRules}.
+     */
+    private static final int RESULT_NEAR = 100;
+    private static final int RESULT_BLACKLISTED = 101;
+
+    private static final boolean TRACE = DEBUG && Device.hasJellyBeanMR2Api();
+
     private static Presenter sPresenter;
 
     @Nullable
     private AcDisplayActivity mActivity;
     private int mActivityState = STATE_DESTROYED;
 
+    @NonNull
+    private final DeviceState mDeviceState = DeviceState.getInstance();
+    @NonNull
+    private volatile WakeRules mWakeRules;
+
     public static synchronized Presenter getInstance() {
         if (sPresenter == null) {
             sPresenter = new Presenter();
@@ -68,6 +84,31 @@ public class Presenter implements NotificationPresenter.OnNotificationPostedList
         return sPresenter;
     }
 
+    private Presenter() {
+        Config config = Config.getInstance();
+        config.registerListener(this);
+        mWakeRules = WakeRules.compile(config);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onConfigChanged(@NonNull ConfigBase config,
+                                @NonNull String key,
+                                @NonNull Object value) {
+        switch (key) {
+            case Config.KEY_ENABLED:
+            case Config.KEY_NOTIFY_WAKE_UP_ON:
+            case Config.KEY_ONLY_WHILE_CHARGING:
+            case Config.KEY_INACTIVE_TIME_ENABLED:
+            case Config.KEY_INACTIVE_TIME_FROM:
+            case Config.KEY_INACTIVE_TIME_TO:
+                mWakeRules = WakeRules.compile((Config) config);
+                break;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -85,71 +126,83 @@ public class Presenter implements NotificationPresenter.OnNotificationPostedList
      * of notification, or no.
      */
     public boolean checkNotification(@NonNull Context context, @NonNull OpenNotification n) {
+        return checkNotificationInternal(context, n) == WakeRules.RESULT_WAKE;
+    }
+
+    private int checkNotificationInternal(@NonNull Context context, @NonNull OpenNotification n) {
         NotificationPresenter np = NotificationPresenter.getInstance();
 
         if (np.isTestNotification(context, n)) {
-            return true;  // force test notification to be shown
+            return WakeRules.RESULT_WAKE;  // force test notification to be shown
         }
 
         if (ProximitySensor.isNear()) {
             // Don't display while device is face down.
-            return false;
-        }
-
-        Config config = Config.getInstance();
-        if (!config.isEnabled() || !config.isNotifyWakingUp()
-                // Inactive time
-                || config.isInactiveTimeEnabled()
-                && InactiveTimeHelper.isInactiveTime(config)
-                // Only while charging
-                || config.isEnabledOnlyWhileCharging()
-                && !PowerUtils.isPlugged(context)) {
-            // Don't turn screen on due to user settings.
-            return false;
+            return RESULT_NEAR;
         }
 
-        // Respect the device's zen mode.
-        final int zenMode = ZenUtils.getValue(context);
-        if (DEBUG) Log.d(TAG, "The current ZEN mode is " + ZenUtils.zenModeToString(zenMode));
-        switch (zenMode) {
-            case ZenConsts.ZEN_MODE_IMPORTANT_INTERRUPTIONS:
-                if (n.getNotification().priority >= Notification.PRIORITY_HIGH) {
-                    break;
-                }
-            case ZenConsts.ZEN_MODE_NO_INTERRUPTIONS:
-                return false;
+        final int result = mWakeRules.checkNotification(mDeviceState, n.getNotification().priority);
+        if (result != WakeRules.RESULT_WAKE) {
+            return result;
         }
 
         String packageName = n.getPackageName();
         Blacklist blacklist = Blacklist.getInstance();
-        return !blacklist.getAppConfig(packageName).isRestricted();
+        return blacklist.getAppConfig(packageName).isRestricted()
+                ? RESULT_BLACKLISTED
+                : WakeRules.RESULT_WAKE;
     }
 
     /**
      * Checks if the screen if off and call state is idle.
      */
     public boolean checkBasics(@NonNull Context context) {
-        TelephonyManager ts = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
-        return !PowerUtils.isScreenOn(context) && ts.getCallState() == TelephonyManager.CALL_STATE_IDLE;
+        return checkBasicsInternal(context) == WakeRules.RESULT_WAKE;
+    }
+
+    private int checkBasicsInternal(@NonNull Context context) {
+        final int result = WakeRules.checkBasics(mDeviceState);
+        if (result == WakeRules.RESULT_WAKE && PowerUtils.isScreenOn(context)) {
+            // The cached state lags behind the screen turned on by
+            // the previous launch until the broadcast arrives.
+            return WakeRules.RESULT_SCREEN_ON;
+        }
+
+        return result;
     }
 
     public boolean tryStartGuiCauseNotification(
             @NonNull Context context,
             @NonNull OpenNotification n) {
-        final int hash = n.hashCode();
-        return checkNotification(context, n) && checkBasics(context) && start(context, hash);
+        int result = checkNotificationInternal(context, n);
+        if (result == WakeRules.RESULT_WAKE) result = checkBasicsInternal(context);
+        if (DEBUG) Log.d(TAG, "Wake decision: result=" + resultToString(result));
+        return result == WakeRules.RESULT_WAKE && start(context, n.hashCode());
     }
 
     public boolean tryStartGuiCauseSensor(@NonNull Context context) {
         return checkBasics(context) && start(context);
     }
 
+    @NonNull
+    private static String resultToString(int result) {
+        switch (result) {
+            case RESULT_NEAR:
+                return "RESULT_NEAR";
+            case RESULT_BLACKLISTED:
+                return "RESULT_BLACKLISTED";
+            default:
+                return WakeRules.resultToString(result);
+        }
+    }
+
     //-- START-UP -------------------------------------------------------------
 
     public boolean start(@NonNull Context context) {
         return start(context, 0);
     }
 
+    @SuppressLint("NewApi")
     public boolean start(@NonNull Context context, int notification) {
         PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
 
@@ -165,13 +218,18 @@ public class Presenter implements NotificationPresenter.OnNotificationPostedList
         pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, WAKE_LOCK_TAG).acquire(1000);
 
         //kill();
-        context.startActivity(new Intent(context, AcDisplayActivity.class)
-                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK
-                        | Intent.FLAG_ACTIVITY_NO_USER_ACTION
-                        | Intent.FLAG_ACTIVITY_NO_ANIMATION
-                        | Intent.FLAG_FROM_BACKGROUND)
-                .putExtra(KeyguardActivity.EXTRA_CAUSE, notification)
-                .putExtra(KeyguardActivity.EXTRA_TURN_SCREEN_ON, true));
+        if (TRACE) Trace.beginSection("Presenter.startActivity");
+        try {
+            context.startActivity(new Intent(context, AcDisplayActivity.class)
+                    .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK
+                            | Intent.FLAG_ACTIVITY_NO_USER_ACTION
+                            | Intent.FLAG_ACTIVITY_NO_ANIMATION
+                            | Intent.FLAG_FROM_BACKGROUND)
+                    .putExtra(KeyguardActivity.EXTRA_CAUSE, notification)
+                    .putExtra(KeyguardActivity.EXTRA_TURN_SCREEN_ON, true));
+        } finally {
+            if (TRACE) Trace.endSection();
+        }
 
         if (DEBUG) Log.i(TAG, "Launching AcDisplay activity; state=" + mActivityState);
         return true;
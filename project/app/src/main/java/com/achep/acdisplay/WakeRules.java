@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import android.app.Notification;
+import androidx.annotation.NonNull;
+import android.telephony.TelephonyManager;
+
+import com.achep.base.utils.zen.ZenConsts;
+
+/**
+ * The immutable set of rules that decide whether we may wake the device up
+ * or not. It is compiled from the {@link Config config} once per change, and
+ * then evaluated against the {@link DeviceState device state} without
+ * touching any of system services.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class WakeRules {
+
+    public static final int RESULT_WAKE = 0;
+    public static final int RESULT_DISABLED = 1;
+    public static final int RESULT_INACTIVE_TIME = 2;
+    public static final int RESULT_NOT_CHARGING = 3;
+    public static final int RESULT_ZEN_MODE = 4;
+    public static final int RESULT_SCREEN_ON = 5;
+    public static final int RESULT_CALLING = 6;
+
+    private final boolean mEnabled;
+    private final boolean mOnlyWhileCharging;
+    private final boolean mInactiveTime;
+    private final int mInactiveTimeFrom;
+    private final int mInactiveTimeTo;
+
+    /**
+     * Compiles the rules from the current state of given config.
+     */
+    @NonNull
+    public static WakeRules compile(@NonNull Config config) {
+        return new WakeRules(
+                config.isEnabled() && config.isNotifyWakingUp(),
+                config.isEnabledOnlyWhileCharging(),
+                config.isInactiveTimeEnabled(),
+                config.getInactiveTimeFrom(),
+                config.getInactiveTimeTo());
+    }
+
+    private WakeRules(boolean enabled, boolean onlyWhileCharging,
+                      boolean inactiveTime, int inactiveTimeFrom, int inactiveTimeTo) {
+        mEnabled = enabled;
+        mOnlyWhileCharging = onlyWhileCharging;
+        mInactiveTime = inactiveTime;
+        mInactiveTimeFrom = inactiveTimeFrom;
+        mInactiveTimeTo = inactiveTimeTo;
+    }
+
+    /**
+     * Checks if the user settings allow waking-up cause of
+     * the notification with given priority.
+     *
+     * @return {@link #RESULT_WAKE} or the reason why we can not wake up.
+     * @see #checkBasics(DeviceState)
+     */
+    public int checkNotification(@NonNull DeviceState state, int priority) {
+        if (!mEnabled) {
+            return RESULT_DISABLED;
+        } else if (mOnlyWhileCharging && !state.isPlugged()) {
+            return RESULT_NOT_CHARGING;
+        } else if (mInactiveTime && InactiveTimeHelper.isInactiveTime(
+                mInactiveTimeFrom, mInactiveTimeTo, System.currentTimeMillis())) {
+            return RESULT_INACTIVE_TIME;
+        }
+
+        // Respect the device's zen mode.
+        switch (state.getZenMode()) {
+            case ZenConsts.ZEN_MODE_IMPORTANT_INTERRUPTIONS:
+                if (priority >= Notification.PRIORITY_HIGH) {
+                    break;
+                }
+            case ZenConsts.ZEN_MODE_NO_INTERRUPTIONS:
+                return RESULT_ZEN_MODE;
+        }
+
+        return RESULT_WAKE;
+    }
+
+    /**
+     * Checks if the screen if off and call state is idle.
+     *
+     * @return {@link #RESULT_WAKE} or the reason why we can not wake up.
+     */
+    public static int checkBasics(@NonNull DeviceState state) {
+        if (state.isScreenOn()) {
+            return RESULT_SCREEN_ON;
+        } else if (state.getCallState() != TelephonyManager.CALL_STATE_IDLE) {
+            return RESULT_CALLING;
+        }
+
+        return RESULT_WAKE;
+    }
+
+    /**
+     * @return the same name as its constant.
+     */
+    @NonNull
+    public static String resultToString(int result) {
+        switch (result) {
+            case RESULT_WAKE:
+                return "RESULT_WAKE";
+            case RESULT_DISABLED:
+                return "RESULT_DISABLED";
+            case RESULT_INACTIVE_TIME:
+                return "RESULT_INACTIVE_TIME";
+            case RESULT_NOT_CHARGING:
+                return "RESULT_NOT_CHARGING";
+            case RESULT_ZEN_MODE:
+                return "RESULT_ZEN_MODE";
+            case RESULT_SCREEN_ON:
+                return "RESULT_SCREEN_ON";
+            case RESULT_CALLING:
+                return "RESULT_CALLING";
+            default:
+                return "UNKNOWN_VALUE";
+        }
+    }
+
+}
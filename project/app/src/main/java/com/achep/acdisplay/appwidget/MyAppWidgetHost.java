@@ -22,24 +22,86 @@ import android.appwidget.AppWidgetHost;
 import android.appwidget.AppWidgetHostView;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.TransactionTooLargeException;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import android.util.Log;
+import android.util.SparseArray;
 
+import com.achep.acdisplay.ui.components.HostWidget;
 import com.achep.base.Device;
+import com.achep.base.tests.Check;
+
+import static com.achep.base.Build.DEBUG;
 
 /**
  * Specific {@link AppWidgetHost} that creates our {@link MyAppWidgetHostView}
  * which eats all touch events. This ensures that users can not
  * bypass the keyguard.
+ * <p>
+ * The {@link #getInstance(Context) shared host} lives as long as the process does, and
+ * keeps listening for a while after its last user has {@link #release() left}: starting
+ * to listen makes all the providers resend their views, and the lock screen is shown
+ * and hidden all the time.
  *
  * @author Artem Chepurnoy
  */
 public class MyAppWidgetHost extends AppWidgetHost {
 
+    private static final String TAG = "MyAppWidgetHost";
+
+    /**
+     * How long the shared host keeps listening after
+     * its last user has left.
+     */
+    private static final long STOP_LISTENING_DELAY = 30 * 1000; // 30 sec.
+
+    private static MyAppWidgetHost sInstance;
+
     @Nullable
     private AppWidgetHostView mTempView;
 
+    /**
+     * The views this host currently updates, by the app widget id.
+     */
+    @NonNull
+    private final SparseArray<AppWidgetHostView> mViews = new SparseArray<>();
+
+    @Nullable
+    private Context mContext;
+    @Nullable
+    private Handler mHandler;
+    @Nullable
+    private MyAppWidgetHostView mCachedView;
+    private boolean mListening;
+    private int mUsers;
+
+    private final Runnable mStopListeningRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mUsers == 0) stopListening();
+        }
+    };
+
+    /**
+     * @return the host of the {@link HostWidget#HOST_ID lock screen widget}, shared
+     * across the activities.
+     * @see #acquire()
+     * @see #release()
+     */
+    @NonNull
+    public static synchronized MyAppWidgetHost getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            context = context.getApplicationContext();
+            sInstance = new MyAppWidgetHost(context, HostWidget.HOST_ID);
+            sInstance.mContext = context;
+            sInstance.mHandler = new Handler(Looper.getMainLooper());
+        }
+        return sInstance;
+    }
+
     public MyAppWidgetHost(@NonNull Context context, int hostId) {
         super(Device.hasLollipopMR1Api()
                 // Up to Android 5.1 app widget host has a bug, that
@@ -60,9 +122,62 @@ public class MyAppWidgetHost extends AppWidgetHost {
         mTempView = view;
         view = createView(context, appWidgetId, appWidget);
         mTempView = null;
+        mViews.put(appWidgetId, view);
         return view;
     }
 
+    /**
+     * Starts listening, unless already listening. Must be paired with {@link #release()};
+     * works with the {@link #getInstance(Context) shared host} only.
+     */
+    public void acquire() {
+        Check.getInstance().isInMainThread();
+        assert mHandler != null;
+        mUsers++;
+        mHandler.removeCallbacks(mStopListeningRunnable);
+        if (!mListening) startListening();
+    }
+
+    /**
+     * Stops listening in a while, unless {@link #acquire() acquired} again.
+     */
+    public void release() {
+        Check.getInstance().isInMainThread();
+        assert mHandler != null;
+        Check.getInstance().isTrue(mUsers > 0);
+        if (--mUsers == 0) {
+            mHandler.postDelayed(mStopListeningRunnable, STOP_LISTENING_DELAY);
+        }
+    }
+
+    /**
+     * Returns the cached view of the app widget, creating or rebinding
+     * it if needed. The view may be moved between the activities; it
+     * never holds a reference to any of them.
+     */
+    @NonNull
+    public MyAppWidgetHostView obtainView(int appWidgetId,
+                                          @NonNull AppWidgetProviderInfo appWidget) {
+        assert mContext != null;
+        MyAppWidgetHostView view = mCachedView;
+        if (view != null && view.getAppWidgetId() == appWidgetId
+                && mViews.get(appWidgetId) == view) {
+            return view;
+        }
+
+        if (DEBUG) Log.d(TAG, "Binding the view of app widget: id=" + appWidgetId);
+        if (view == null) view = new MyAppWidgetHostView(mContext);
+        updateView(mContext, appWidgetId, appWidget, view);
+        return mCachedView = view;
+    }
+
+    /**
+     * Drops the {@link #obtainView(int, AppWidgetProviderInfo) cached view}.
+     */
+    public void dropView() {
+        mCachedView = null;
+    }
+
     @NonNull
     @Override
     protected AppWidgetHostView onCreateView(@NonNull Context context, int appWidgetId,
@@ -72,6 +187,7 @@ public class MyAppWidgetHost extends AppWidgetHost {
 
     @Override
     public void startListening() {
+        mListening = true;
         try {
             super.startListening();
         } catch (Exception e) {
@@ -89,7 +205,9 @@ public class MyAppWidgetHost extends AppWidgetHost {
 
     @Override
     public void stopListening() {
+        mListening = false;
         super.stopListening();
         clearViews();
+        mViews.clear();
     }
 }
\ No newline at end of file
@@ -21,12 +21,18 @@ package com.achep.acdisplay.appwidget;
 import android.appwidget.AppWidgetHostView;
 import android.content.Context;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.ViewGroup;
 import android.widget.RemoteViews;
 
 /**
+ * The host view that applies at most one update of the {@link RemoteViews remote views}
+ * per frame, and none while it is detached: the widgets that update every second
+ * should not re-layout the lock screen that is not even shown.
+ * <p>
  * Created by Artem Chepurnoy on 19.04.2015.
  */
 public class MyAppWidgetHostView extends AppWidgetHostView {
@@ -39,6 +45,23 @@ public class MyAppWidgetHostView extends AppWidgetHostView {
 
     private boolean mTouchable;
 
+    /**
+     * The latest remote views that are not applied yet; note that
+     * the {@code null} remote views are valid too.
+     */
+    @Nullable
+    private RemoteViews mPendingRemoteViews;
+    private boolean mHasPendingRemoteViews;
+    private boolean mUpdateScheduled;
+
+    private final Runnable mUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mUpdateScheduled = false;
+            applyPendingRemoteViews();
+        }
+    };
+
     public MyAppWidgetHostView(@NonNull Context context) {
         super(context);
         mContext = context;
@@ -47,11 +70,41 @@ public class MyAppWidgetHostView extends AppWidgetHostView {
 
     @Override
     public void updateAppWidget(RemoteViews remoteViews) {
+        mPendingRemoteViews = remoteViews;
+        mHasPendingRemoteViews = true;
+        if (ViewCompat.isAttachedToWindow(this) && !mUpdateScheduled) {
+            mUpdateScheduled = true;
+            ViewCompat.postOnAnimation(this, mUpdateRunnable);
+        }
+    }
+
+    private void applyPendingRemoteViews() {
+        if (!mHasPendingRemoteViews) return;
+        RemoteViews remoteViews = mPendingRemoteViews;
+        mPendingRemoteViews = null;
+        mHasPendingRemoteViews = false;
+
         // Store the orientation in which the widget was inflated
         mPreviousOrientation = mContext.getResources().getConfiguration().orientation;
         super.updateAppWidget(remoteViews);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // Apply the latest update before the first frame.
+        applyPendingRemoteViews();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (mUpdateScheduled) {
+            mUpdateScheduled = false;
+            removeCallbacks(mUpdateRunnable);
+        }
+        super.onDetachedFromWindow();
+    }
+
     /**
      * Set whether this view can pass touches to the {@link RemoteViews}.
      */
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.blacklist;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The persistent cache of application labels, keyed by the package name and
+ * {@link android.content.pm.PackageInfo#lastUpdateTime last update time}.
+ * Loading the label of an application is a huge operation, while the labels
+ * change only on updates of the app (or the locale).
+ *
+ * @author Artem Chepurnoy
+ */
+public final class AppLabelCache {
+
+    private static final String PREF_NAME = "blacklist_labels";
+
+    /**
+     * Stores the locale of the cached labels; all labels are
+     * dropped when it changes.
+     */
+    private static final String KEY_LOCALE = ":locale";
+
+    @NonNull
+    private final SharedPreferences mPrefs;
+    @Nullable
+    private SharedPreferences.Editor mEditor;
+
+    public AppLabelCache(@NonNull Context context) {
+        mPrefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+
+        final String locale = Locale.getDefault().toString();
+        if (!locale.equals(mPrefs.getString(KEY_LOCALE, null))) {
+            mPrefs.edit().clear().putString(KEY_LOCALE, locale).apply();
+        }
+    }
+
+    /**
+     * @return the cached label of the app, or {@code null} if the app has
+     * been updated since the label was cached.
+     */
+    @Nullable
+    public synchronized String get(@NonNull String packageName, long lastUpdateTime) {
+        final String value = mPrefs.getString(packageName, null);
+        if (value == null) return null;
+
+        final int i = value.indexOf(';');
+        if (i <= 0) return null;
+        try {
+            return Long.parseLong(value.substring(0, i)) == lastUpdateTime
+                    ? value.substring(i + 1)
+                    : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Puts the label of the app to the cache. Call {@link #save()} to
+     * store the changes.
+     */
+    public synchronized void put(@NonNull String packageName, long lastUpdateTime,
+                                 @NonNull String label) {
+        getEditor().putString(packageName, lastUpdateTime + ";" + label);
+    }
+
+    /**
+     * Removes the label of the app from the cache. Call {@link #save()} to
+     * store the changes.
+     */
+    public synchronized void remove(@NonNull String packageName) {
+        getEditor().remove(packageName);
+    }
+
+    /**
+     * Removes the labels of all apps, but given ones. Call {@link #save()} to
+     * store the changes.
+     */
+    public synchronized void retainAll(@NonNull Collection<String> packageNames) {
+        for (Map.Entry<String, ?> entry : mPrefs.getAll().entrySet()) {
+            final String key = entry.getKey();
+            if (!KEY_LOCALE.equals(key) && !packageNames.contains(key)) {
+                getEditor().remove(key);
+            }
+        }
+    }
+
+    /**
+     * Asynchronously stores all pending changes.
+     */
+    public synchronized void save() {
+        if (mEditor != null) {
+            mEditor.apply();
+            mEditor = null;
+        }
+    }
+
+    @NonNull
+    private SharedPreferences.Editor getEditor() {
+        if (mEditor == null) mEditor = mPrefs.edit();
+        return mEditor;
+    }
+
+}
@@ -24,6 +24,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.achep.base.async.AppExecutors;
 import com.achep.base.async.AsyncTask;
 import com.enrique.stackblur.StackBlurManager;
 
@@ -77,7 +78,7 @@ public class BackgroundFactory {
             }
 
         };
-        task.executeOnExecutor(android.os.AsyncTask.THREAD_POOL_EXECUTOR);
+        task.executeOnExecutor(AppExecutors.image());
         return task;
     }
 
@@ -26,12 +26,14 @@ import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.RemoteInput;
+import android.text.TextUtils;
 import android.util.Log;
+import android.util.LruCache;
 
 import com.achep.base.Device;
 
-import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
+import java.util.Arrays;
 
 /**
  * Structure to encapsulate a named action that can be shown as part of this notification.
@@ -40,6 +42,10 @@ import java.lang.reflect.Field;
  * <p>
  * This is actually a wrapper around {@link android.app.Notification.Action} class that supports both
  * Jelly Bean (via reflections) and KitKat Android versions.
+ * <p>
+ * Actions are compared by their content, and extracted actions are memoised per
+ * notification, so the updates of a notification with the same actions share
+ * the same array.
  *
  * @author Artem Chepurnoy
  */
@@ -47,25 +53,26 @@ public class Action {
 
     private static final String TAG = "Action";
 
+    /**
+     * The number of notifications to remember the actions of.
+     */
+    private static final int CACHE_SIZE = 32;
+
+    @NonNull
+    private static final Factory FACTORY = newFactory();
+
     @NonNull
-    private static SoftReference<Factory> sFactoryRef = new SoftReference<>(null);
+    private static final LruCache<String, Revision> sCache = new LruCache<>(CACHE_SIZE);
 
     @NonNull
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
-    private static Factory getFactory() {
-        Factory factory = sFactoryRef.get();
-        if (factory == null) {
-            if (Device.hasKitKatWatchApi()) {
-                factory = new FactoryKitKatWatch();
-            } else {
-                factory = Device.hasKitKatApi()
-                        ? new FactoryKitKat()
-                        : new FactoryJellyBean();
-            }
-            sFactoryRef = new SoftReference<>(factory);
-            return factory;
+    private static Factory newFactory() {
+        if (Device.hasKitKatWatchApi()) {
+            return new FactoryKitKatWatch();
         }
-        return factory;
+        return Device.hasKitKatApi()
+                ? new FactoryKitKat()
+                : new FactoryJellyBean();
     }
 
     /**
@@ -77,7 +84,51 @@ public class Action {
      */
     @Nullable
     static Action[] makeFor(@NonNull Notification notification) {
-        return getFactory().makeFor(notification);
+        return FACTORY.makeFor(notification);
+    }
+
+    /**
+     * Same as {@link #makeFor(Notification)}, but memoised: the same revision of
+     * the notification returns the cached actions, and a new revision with the same
+     * actions returns the previous array.
+     *
+     * @param key      the key of the notification, which stays the same over its updates
+     * @param postTime the time the notification has been posted at
+     */
+    @Nullable
+    static Action[] makeFor(@NonNull String key, @NonNull Notification notification,
+                            long postTime) {
+        Revision revision = sCache.get(key);
+        if (revision != null
+                && revision.when == notification.when
+                && revision.postTime == postTime) {
+            return revision.actions;
+        }
+
+        Action[] actions = FACTORY.makeFor(notification);
+        if (revision != null && Arrays.equals(revision.actions, actions)) {
+            actions = revision.actions;
+        }
+        sCache.put(key, new Revision(notification.when, postTime, actions));
+        return actions;
+    }
+
+    /**
+     * The actions of the revision of a notification.
+     */
+    private static final class Revision {
+
+        final long when;
+        final long postTime;
+        @Nullable
+        final Action[] actions;
+
+        Revision(long when, long postTime, @Nullable Action[] actions) {
+            this.when = when;
+            this.postTime = postTime;
+            this.actions = actions;
+        }
+
     }
 
     /**
@@ -87,9 +138,10 @@ public class Action {
     public final int icon;
 
     /**
-     * Title of the action.
+     * Title of the action. May be null, as nothing stops apps from posting
+     * an untitled action.
      */
-    @NonNull
+    @Nullable
     public final CharSequence title;
 
     /**
@@ -106,7 +158,7 @@ public class Action {
     @Nullable
     public final RemoteInput[] remoteInputs;
 
-    private Action(@DrawableRes int icon, @NonNull CharSequence title,
+    Action(@DrawableRes int icon, @Nullable CharSequence title,
                    @Nullable PendingIntent intent, @Nullable RemoteInput[] remoteInputs) {
         this.icon = icon;
         this.title = title;
@@ -114,6 +166,45 @@ public class Action {
         this.remoteInputs = remoteInputs;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = icon;
+        result = 31 * result + (title == null ? 0 : title.toString().hashCode());
+        result = 31 * result + (intent != null ? intent.hashCode() : 0);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof Action)) return false;
+
+        Action action = (Action) o;
+        return icon == action.icon
+                && TextUtils.equals(title, action.title)
+                && (intent == null ? action.intent == null : intent.equals(action.intent))
+                && equals(remoteInputs, action.remoteInputs);
+    }
+
+    private static boolean equals(@Nullable RemoteInput[] a, @Nullable RemoteInput[] b) {
+        if (a == b) return true;
+        if (a == null || b == null || a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            RemoteInput ri = a[i], ri2 = b[i];
+            if (!TextUtils.equals(ri.getResultKey(), ri2.getResultKey())
+                    || !TextUtils.equals(ri.getLabel(), ri2.getLabel())
+                    || ri.getAllowFreeFormInput() != ri2.getAllowFreeFormInput()
+                    || !Arrays.equals(ri.getChoices(), ri2.getChoices())) return false;
+        }
+        return true;
+    }
+
     /**
      * Base definition of {@link com.achep.acdisplay.notifications.Action} creator.
      *
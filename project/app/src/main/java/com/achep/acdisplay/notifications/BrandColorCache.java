@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.palette.graphics.Palette;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.achep.base.Build.DEBUG;
+
+/**
+ * The cache of the brand colors of the apps. The brand color is the vibrant
+ * color of the app's icon, so it depends only on the package and its version:
+ * the colors are kept in memory and persisted, keyed by the package name and
+ * validated by the version code and the last update time of the package. A burst
+ * of notifications from one app generates the color at most once.
+ * <p>
+ * All methods must be called from the main thread.
+ *
+ * @author Artem Chepurnoy
+ */
+public class BrandColorCache {
+
+    private static final String TAG = "BrandColorCache";
+
+    private static final String PREF_NAME = "brand_colors";
+
+    private static final String JSON_VERSION_CODE = "version_code";
+    private static final String JSON_LAST_UPDATE_TIME = "last_update_time";
+    private static final String JSON_COLOR = "color";
+
+    public interface OnBrandColorLoadedListener {
+
+        /**
+         * Called on the main thread once the brand color of the package is known.
+         */
+        void onBrandColorLoaded(@NonNull String packageName, int color);
+
+    }
+
+    /**
+     * The brand color of the specific version of a package.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static class Entry {
+
+        final int versionCode;
+        final long lastUpdateTime;
+        final int color;
+
+        Entry(int versionCode, long lastUpdateTime, int color) {
+            this.versionCode = versionCode;
+            this.lastUpdateTime = lastUpdateTime;
+            this.color = color;
+        }
+
+        boolean matches(@NonNull PackageInfo pi) {
+            return versionCode == pi.versionCode && lastUpdateTime == pi.lastUpdateTime;
+        }
+
+    }
+
+    private static BrandColorCache sInstance;
+
+    @NonNull
+    private final Context mContext;
+    @NonNull
+    private final SharedPreferences mPrefs;
+
+    /**
+     * The colors which have been validated during the lifetime of the process, and
+     * are kept valid by the {@link #mPackageReceiver package receiver}.
+     */
+    @NonNull
+    private final HashMap<String, Integer> mColors = new HashMap<>();
+    /**
+     * The colors restored from the previous processes; these need to be validated
+     * against the current version of the package.
+     */
+    @NonNull
+    private final HashMap<String, Entry> mRestored = new HashMap<>();
+    @NonNull
+    private final HashMap<String, ArrayList<OnBrandColorLoadedListener>> mPending =
+            new HashMap<>();
+
+    @NonNull
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data != null) invalidate(data.getSchemeSpecificPart());
+        }
+    };
+
+    public static synchronized BrandColorCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new BrandColorCache(context.getApplicationContext(), PREF_NAME);
+
+            IntentFilter intentFilter = new IntentFilter();
+            intentFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            intentFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            intentFilter.addDataScheme("package");
+            sInstance.mContext.registerReceiver(sInstance.mPackageReceiver, intentFilter);
+        }
+        return sInstance;
+    }
+
+    protected BrandColorCache(@NonNull Context context, @NonNull String prefName) {
+        mContext = context;
+        mPrefs = context.getSharedPreferences(prefName, Context.MODE_PRIVATE);
+
+        // Restore the colors.
+        for (Map.Entry<String, ?> entry : mPrefs.getAll().entrySet()) {
+            final String packageName = entry.getKey();
+            try {
+                JSONObject json = new JSONObject((String) entry.getValue());
+                mRestored.put(packageName, new Entry(
+                        json.getInt(JSON_VERSION_CODE),
+                        json.getLong(JSON_LAST_UPDATE_TIME),
+                        json.getInt(JSON_COLOR)));
+            } catch (JSONException | ClassCastException e) {
+                Log.w(TAG, "Dropping the malformed color: " + packageName);
+                mPrefs.edit().remove(packageName).apply();
+            }
+        }
+    }
+
+    /**
+     * Loads the brand color of the package, generating it only if it's not
+     * in the cache. The listener may be called before this method returns.
+     *
+     * @see #cancel(OnBrandColorLoadedListener)
+     */
+    public void load(@NonNull String packageName, @NonNull OnBrandColorLoadedListener listener) {
+        Integer color = mColors.get(packageName);
+        if (color != null) {
+            listener.onBrandColorLoaded(packageName, color);
+            return;
+        }
+
+        ArrayList<OnBrandColorLoadedListener> pending = mPending.get(packageName);
+        if (pending != null) {
+            // The color is being generated right now.
+            pending.add(listener);
+            return;
+        }
+
+        final PackageInfo pi;
+        try {
+            pi = mContext.getPackageManager().getPackageInfo(packageName, 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            return;
+        }
+
+        Entry entry = mRestored.remove(packageName);
+        if (entry != null && entry.matches(pi)) {
+            mColors.put(packageName, entry.color);
+            listener.onBrandColorLoaded(packageName, entry.color);
+            return;
+        }
+
+        pending = new ArrayList<>(3);
+        pending.add(listener);
+        mPending.put(packageName, pending);
+        if (!generate(pi, pending)) mPending.remove(packageName);
+    }
+
+    /**
+     * Removes the listener from all pending {@link #load(String, OnBrandColorLoadedListener) loads}.
+     * The colors are still generated and cached.
+     */
+    public void cancel(@NonNull OnBrandColorLoadedListener listener) {
+        for (ArrayList<OnBrandColorLoadedListener> pending : mPending.values()) {
+            pending.remove(listener);
+        }
+    }
+
+    /**
+     * Drops the color of the package; the next
+     * {@link #load(String, OnBrandColorLoadedListener) load} generates it again.
+     * The generation in progress, if any, is discarded and its listeners are
+     * loaded again against the current version of the package.
+     */
+    public void invalidate(@NonNull String packageName) {
+        if (DEBUG) Log.d(TAG, "Invalidating the brand color of " + packageName);
+        mColors.remove(packageName);
+        mRestored.remove(packageName);
+        mPrefs.edit().remove(packageName).apply();
+
+        ArrayList<OnBrandColorLoadedListener> pending = mPending.remove(packageName);
+        if (pending == null) return;
+        for (OnBrandColorLoadedListener listener : pending) {
+            load(packageName, listener);
+        }
+    }
+
+    void put(@NonNull PackageInfo pi, int color) {
+        final String packageName = pi.packageName;
+        mColors.put(packageName, color);
+        mRestored.remove(packageName);
+        try {
+            JSONObject json = new JSONObject();
+            json.put(JSON_VERSION_CODE, pi.versionCode);
+            json.put(JSON_LAST_UPDATE_TIME, pi.lastUpdateTime);
+            json.put(JSON_COLOR, color);
+            mPrefs.edit().putString(packageName, json.toString()).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to persist the brand color of " + packageName);
+        }
+    }
+
+    /**
+     * Generates the brand color of the package in background and passes it
+     * to {@link #onGenerated(PackageInfo, ArrayList, int)}.
+     *
+     * @param pending the listeners of this generation; identifies the generation.
+     * @return {@code false} if failed to start, {@code true} otherwise.
+     */
+    boolean generate(@NonNull final PackageInfo pi,
+                     @NonNull final ArrayList<OnBrandColorLoadedListener> pending) {
+        final Bitmap bitmap = drawIcon(mContext.getPackageManager(), pi);
+        if (bitmap == null) return false;
+
+        if (DEBUG) Log.d(TAG, "Generating the brand color of " + pi.packageName);
+        newPaletteBuilder(bitmap).generate(new Palette.PaletteAsyncListener() {
+            @Override
+            public void onGenerated(Palette palette) {
+                bitmap.recycle();
+                BrandColorCache.this.onGenerated(pi, pending,
+                        palette.getVibrantColor(Color.WHITE));
+            }
+        });
+        return true;
+    }
+
+    void onGenerated(@NonNull PackageInfo pi,
+                     @NonNull ArrayList<OnBrandColorLoadedListener> pending, int color) {
+        if (mPending.get(pi.packageName) != pending) {
+            // The package has been invalidated while generating the color,
+            // so the color may belong to the previous version.
+            if (DEBUG) Log.d(TAG, "Discarding the stale brand color of " + pi.packageName);
+            return;
+        }
+
+        mPending.remove(pi.packageName);
+        put(pi, color);
+        for (OnBrandColorLoadedListener listener : pending) {
+            listener.onBrandColorLoaded(pi.packageName, color);
+        }
+    }
+
+    @Nullable
+    static Bitmap drawIcon(@NonNull PackageManager pm, @NonNull PackageInfo pi) {
+        Drawable appIcon;
+        try {
+            appIcon = pm.getApplicationIcon(pi.applicationInfo);
+        } catch (OutOfMemoryError e) {
+            Log.e(TAG, "Failed to get application\'s icon due to OutOfMemoryError!");
+            return null;
+        }
+
+        final int width = appIcon.getMinimumWidth();
+        final int height = appIcon.getMinimumHeight();
+        if (width <= 0 || height <= 0) return null;
+
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_4444);
+        if (bitmap == null) {
+            // This had happened on somewhat strange
+            // chinese phone.
+            return null;
+        }
+        appIcon.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        appIcon.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    @NonNull
+    static Palette.Builder newPaletteBuilder(@NonNull Bitmap bitmap) {
+        return new Palette.Builder(bitmap).maximumColorCount(16);
+    }
+
+}
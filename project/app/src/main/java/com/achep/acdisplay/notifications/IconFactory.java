@@ -27,6 +27,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
+import com.achep.base.async.AppExecutors;
 import com.achep.base.tests.Check;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -35,7 +36,8 @@ import static com.achep.acdisplay.graphics.IconFactory.generate;
 import static com.achep.base.Build.DEBUG;
 
 /**
- * Simple single-thread icon factory.
+ * Simple icon factory: a single worker at a time handles
+ * the queued icons on the {@link AppExecutors#image() image} pool.
  *
  * @author Artem Chepurnoy
  */
@@ -50,7 +52,7 @@ public class IconFactory {
     /**
      * @author Artem Chepurnoy
      */
-    private static final class Worker extends Thread {
+    private static final class Worker implements Runnable {
 
         private static class Task {
             @NonNull
@@ -82,7 +84,6 @@ public class IconFactory {
 
         @Override
         public void run() {
-            super.run();
             final long start = SystemClock.elapsedRealtime();
             int n = 0;
             while (true) {
@@ -171,13 +172,10 @@ public class IconFactory {
                     @NonNull IconAsyncListener listener) {
         synchronized (mMonitor) {
             boolean create = isWorkerInactive();
-            if (create) {
-                mWorker = new Worker(this, mMonitor);
-                mWorker.setPriority(Thread.MAX_PRIORITY);
-            }
+            if (create) mWorker = new Worker(this, mMonitor);
             assert mWorker != null;
             mWorker.add(context, notification, listener);
-            if (create) mWorker.start();
+            if (create) AppExecutors.image().execute(mWorker, AppExecutors.PRIORITY_HIGH);
         }
     }
 
@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.annotation.TargetApi;
+import android.app.Notification;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.achep.base.Device;
+
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static com.achep.base.Build.DEBUG;
+
+/**
+ * The single entry of notifications to the {@link NotificationPresenter presenter}
+ * from both the {@link com.achep.acdisplay.services.AccessibilityService accessibility
+ * service} and the {@link NotificationListener notification listener}.
+ * <p>
+ * Both sources are normalized to an {@link Event event} with the key that does not
+ * depend on the source: the package, the post time and the content of the notification.
+ * Deliveries of the same notification from the other source within the
+ * {@link #setWindow(long) window} are merged into the first delivery. Deliveries
+ * from the same source are never suppressed: a source sends a notification again
+ * only if it has been updated, and the update may change what the key does not
+ * cover (actions, progress, icons and so on).
+ *
+ * @author Artem Chepurnoy
+ */
+public class NotificationIngress {
+
+    private static final String TAG = "NotificationIngress";
+
+    public static final int SOURCE_ACCESSIBILITY = 0;
+    public static final int SOURCE_LISTENER = 1;
+
+    /**
+     * The default de-duplication window, in millis.
+     */
+    public static final long DEFAULT_WINDOW = 1000;
+
+    @NonNull
+    public static String getSourceName(int source) {
+        switch (source) {
+            case SOURCE_ACCESSIBILITY:
+                return "SOURCE_ACCESSIBILITY";
+            case SOURCE_LISTENER:
+                return "SOURCE_LISTENER";
+            default:
+                return "UNKNOWN_VALUE";
+        }
+    }
+
+    private static NotificationIngress sNotificationIngress;
+
+    /**
+     * The notification delivered by one of the sources.
+     *
+     * @author Artem Chepurnoy
+     */
+    public static class Event {
+
+        public final int source;
+
+        /**
+         * The key of the notification that is the same for both sources.
+         */
+        @NonNull
+        public final String key;
+
+        /**
+         * The id of the notification in its source, or {@code null} if
+         * the source has no ids.
+         */
+        @Nullable
+        public final String sourceId;
+
+        public Event(int source, @NonNull String key, @Nullable String sourceId) {
+            this.source = source;
+            this.key = key;
+            this.sourceId = sourceId;
+        }
+
+    }
+
+    /**
+     * The last delivery of a key.
+     */
+    private static class Record {
+
+        final int source;
+        @Nullable
+        final String sourceId;
+        final long time;
+
+        Record(@NonNull Event event, long time) {
+            this.source = event.source;
+            this.sourceId = event.sourceId;
+            this.time = time;
+        }
+
+    }
+
+    /**
+     * Records of the recent deliveries in the order of their time.
+     */
+    private final LinkedHashMap<String, Record> mRecords = new LinkedHashMap<>();
+    private long mWindow = DEFAULT_WINDOW;
+
+    private int mPassedCount;
+    private int mMergedCount;
+
+    @NonNull
+    public synchronized static NotificationIngress getInstance() {
+        if (sNotificationIngress == null) {
+            sNotificationIngress = new NotificationIngress();
+        }
+        return sNotificationIngress;
+    }
+
+    public NotificationIngress() {
+    }
+
+    /**
+     * Sets how long the delivery of a notification suppresses
+     * the same deliveries, in millis.
+     *
+     * @see #DEFAULT_WINDOW
+     */
+    public synchronized void setWindow(long window) {
+        mWindow = window;
+    }
+
+    //-- SOURCES --------------------------------------------------------------
+
+    /**
+     * Posts the notification from the accessibility service.
+     */
+    public void postNotification(@NonNull Context context,
+                                 @Nullable CharSequence packageName,
+                                 @NonNull Notification notification) {
+        String key = createKey(packageName, notification);
+        Event event = new Event(SOURCE_ACCESSIBILITY, key, null);
+        if (accept(event, SystemClock.uptimeMillis())) {
+            OpenNotification n = OpenNotification.newInstance(notification);
+            NotificationPresenter.getInstance().postNotificationFromMain(context, n, 0);
+        }
+    }
+
+    /**
+     * Posts the notification from the notification listener.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void postNotification(@NonNull Context context, @NonNull StatusBarNotification sbn) {
+        String key = createKey(sbn.getPackageName(), sbn.getNotification());
+        Event event = new Event(SOURCE_LISTENER, key, createSourceId(sbn));
+        if (accept(event, SystemClock.uptimeMillis())) {
+            OpenNotification n = OpenNotification.newInstance(sbn);
+            NotificationPresenter.getInstance().postNotificationFromMain(context, n, 0);
+        }
+    }
+
+    /**
+     * Removes the notification from the notification listener; removals
+     * are never suppressed.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void removeNotification(@NonNull StatusBarNotification sbn) {
+        forget(SOURCE_LISTENER, createSourceId(sbn));
+        OpenNotification n = OpenNotification.newInstance(sbn);
+        NotificationPresenter.getInstance().removeNotificationFromMain(n, 0);
+    }
+
+    //-- DE-DUPLICATION -------------------------------------------------------
+
+    /**
+     * @return {@code true} if the event should be passed to the presenter,
+     * {@code false} if it is a duplicate.
+     */
+    public synchronized boolean accept(@NonNull Event event, long now) {
+        // Forget the old deliveries.
+        Iterator<Record> iterator = mRecords.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().time < mWindow) break;
+            iterator.remove();
+        }
+
+        Record record = mRecords.get(event.key);
+        if (record != null && record.source != event.source) {
+            mMergedCount++;
+            if (DEBUG) Log.d(TAG, "Merged the notification from "
+                    + getSourceName(event.source) + ": key=" + event.key);
+            return false;
+        }
+
+        // Re-insert to keep the order of time.
+        mRecords.remove(event.key);
+        mRecords.put(event.key, new Record(event, now));
+        mPassedCount++;
+        return true;
+    }
+
+    /**
+     * Forgets the deliveries of given notification, so
+     * posting it again is not suppressed.
+     */
+    public synchronized void forget(int source, @Nullable String sourceId) {
+        Iterator<Record> iterator = mRecords.values().iterator();
+        while (iterator.hasNext()) {
+            Record record = iterator.next();
+            if (record.source == source && TextUtils.equals(record.sourceId, sourceId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the key of the notification, which is the same
+     * for both sources.
+     */
+    @NonNull
+    static String createKey(@Nullable CharSequence packageName, @NonNull Notification n) {
+        int hash = n.number;
+        hash = 31 * hash + hashCode(n.tickerText);
+        if (Device.hasKitKatApi()) {
+            Bundle extras = n.extras;
+            if (extras != null) {
+                hash = 31 * hash + hashCode(extras.getCharSequence(Notification.EXTRA_TITLE));
+                hash = 31 * hash + hashCode(extras.getCharSequence(Notification.EXTRA_TEXT));
+            }
+        }
+        return packageName + "/" + n.when + "/" + Integer.toHexString(hash);
+    }
+
+    private static int hashCode(@Nullable CharSequence cs) {
+        // Spanned text has no content hash code.
+        return cs == null ? 0 : cs.toString().hashCode();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    @NonNull
+    private static String createSourceId(@NonNull StatusBarNotification sbn) {
+        return sbn.getPackageName() + "/" + sbn.getId() + "/" + sbn.getTag();
+    }
+
+    //-- COUNTERS -------------------------------------------------------------
+
+    /**
+     * @return the number of events passed to the presenter.
+     */
+    public synchronized int getPassedCount() {
+        return mPassedCount;
+    }
+
+    /**
+     * @return the number of deliveries that have been already
+     * delivered by the other source.
+     */
+    public synchronized int getMergedCount() {
+        return mMergedCount;
+    }
+
+    public synchronized void dump(@NonNull PrintWriter pw) {
+        pw.println("Notification ingress:");
+        pw.println("  window=" + mWindow + "ms"
+                + " passed=" + mPassedCount
+                + " merged=" + mMergedCount);
+    }
+
+}
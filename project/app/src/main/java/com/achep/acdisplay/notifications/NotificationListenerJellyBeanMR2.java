@@ -63,8 +63,7 @@ class NotificationListenerJellyBeanMR2 extends NotificationListener {
                                      @NonNull StatusBarNotification sbn) {
         if (mInitialized || !postActiveNotifications(service)) {
             Context context = service.getApplicationContext();
-            NotificationPresenter np = NotificationPresenter.getInstance();
-            np.postNotificationFromMain(context, OpenNotification.newInstance(sbn), 0);
+            NotificationIngress.getInstance().postNotification(context, sbn);
         }
     }
 
@@ -72,8 +71,7 @@ class NotificationListenerJellyBeanMR2 extends NotificationListener {
     public void onNotificationRemoved(@NonNull NotificationListenerService service,
                                       @NonNull StatusBarNotification sbn) {
         if (mInitialized || !postActiveNotifications(service)) {
-            NotificationPresenter np = NotificationPresenter.getInstance();
-            np.removeNotificationFromMain(OpenNotification.newInstance(sbn), 0);
+            NotificationIngress.getInstance().removeNotification(sbn);
         }
     }
 
@@ -53,15 +53,13 @@ class NotificationListenerLollipop extends NotificationListener {
     public void onNotificationPosted(@NonNull NotificationListenerService service,
                                      @NonNull StatusBarNotification sbn) {
         Context context = service.getApplicationContext();
-        NotificationPresenter np = NotificationPresenter.getInstance();
-        np.postNotificationFromMain(context, OpenNotification.newInstance(sbn), 0);
+        NotificationIngress.getInstance().postNotification(context, sbn);
     }
 
     @Override
     public void onNotificationRemoved(@NonNull NotificationListenerService service,
                                       @NonNull StatusBarNotification sbn) {
-        NotificationPresenter np = NotificationPresenter.getInstance();
-        np.removeNotificationFromMain(OpenNotification.newInstance(sbn), 0);
+        NotificationIngress.getInstance().removeNotification(sbn);
     }
 
     @Override
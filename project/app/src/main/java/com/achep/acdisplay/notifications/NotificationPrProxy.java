@@ -19,15 +19,14 @@
 package com.achep.acdisplay.notifications;
 
 import android.content.Context;
-import android.os.Handler;
 import android.os.Looper;
-import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
 import com.achep.base.Build;
 import com.achep.base.Device;
+import com.achep.base.Timeout;
 import com.achep.base.utils.Operator;
 
 import java.util.ArrayList;
@@ -54,7 +53,7 @@ class NotificationPrProxy {
     @NonNull
     private final NotificationPresenter mPresenter;
     @NonNull
-    private final Handler mHandler;
+    private final Timeout.Clock mClock;
     @NonNull
     private final List<NotificationPrTask> mTasks;
     private final Runnable mProcessRunnable = new Runnable() {
@@ -74,11 +73,14 @@ class NotificationPrProxy {
     private volatile long mStartTime;
     private volatile boolean mProcessing;
 
+    /**
+     * @param clock the clock of the {@link Looper#getMainLooper() main thread}
+     */
     public NotificationPrProxy(
             @NonNull NotificationPresenter presenter,
-            @NonNull Looper looper) {
+            @NonNull Timeout.Clock clock) {
         mPresenter = presenter;
-        mHandler = new Handler(looper);
+        mClock = clock;
         mTasks = new ArrayList<>(Device.hasLollipopApi()
                 ? 15 /* multiply notifications levels have
                  introduced a much larger flow of notifications */
@@ -134,7 +136,7 @@ class NotificationPrProxy {
         synchronized (mMonitor) {
             mStartTime = 0;
             mTasks.clear();
-            mHandler.removeCallbacks(mProcessRunnable);
+            mClock.cancel(mProcessRunnable);
         }
     }
 
@@ -142,12 +144,12 @@ class NotificationPrProxy {
                          int flags, boolean posts, boolean immediately) {
         mTasks.add(new NotificationPrTask(context, notification, posts, flags));
         // Do not allow an infinitive loop here.
-        final long now = SystemClock.elapsedRealtime();
+        final long now = mClock.uptimeMillis();
         if (mStartTime == 0) mStartTime = now;
         final long delta = now - mStartTime;
         // Delay the processing.
-        mHandler.removeCallbacks(mProcessRunnable);
-        mHandler.postDelayed(mProcessRunnable, immediately || delta > MAX_DELAY ? 0 : DELAY);
+        mClock.cancel(mProcessRunnable);
+        mClock.schedule(mProcessRunnable, now + (immediately || delta > MAX_DELAY ? 0 : DELAY));
     }
 
     private void onRemoveDuplicates(@NonNull OpenNotification n) {
@@ -24,6 +24,7 @@ import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.SystemClock;
+import android.os.Trace;
 import android.service.notification.StatusBarNotification;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -36,6 +37,7 @@ import com.achep.acdisplay.blacklist.AppConfig;
 import com.achep.acdisplay.blacklist.Blacklist;
 import com.achep.base.AppHeap;
 import com.achep.base.Device;
+import com.achep.base.Timeout;
 import com.achep.base.content.ConfigBase;
 import com.achep.base.interfaces.IOnLowMemory;
 import com.achep.base.interfaces.ISubscriptable;
@@ -70,6 +72,8 @@ public class NotificationPresenter implements
 
     private static final int FRESH_NOTIFICATION_EXPIRY_TIME = 4000; // 4 sec.
 
+    private static final boolean TRACE = DEBUG && Device.hasJellyBeanMR2Api();
+
     public static final int FLAG_SILENCE = 1;
     public static final int FLAG_IMMEDIATELY = 1 << 1;
 
@@ -340,6 +344,14 @@ public class NotificationPresenter implements
     //-- MAIN -----------------------------------------------------------------
 
     private NotificationPresenter() {
+        this(Timeout.newMainClock());
+    }
+
+    /**
+     * @param clock the clock of the {@link Looper#getMainLooper() main thread}
+     *              to delay and batch the incoming notifications with.
+     */
+    NotificationPresenter(@NonNull Timeout.Clock clock) {
         mFrozenEvents = new ArrayList<>();
         mListenersRefs = new ArrayList<>();
         mGList = new NotificationList(new NotificationList.OnNotificationListChangedListener() {
@@ -374,7 +386,7 @@ public class NotificationPresenter implements
         mLList = new NotificationList(this);
         mGroupsWithSummaries = new HashSet<>();
         mHandler = new Handler(Looper.getMainLooper());
-        mProxy = new NotificationPrProxy(this, Looper.getMainLooper());
+        mProxy = new NotificationPrProxy(this, clock);
         mFilter = new NotificationSpamFilter();
 
         if (!Device.hasJellyBeanMR2Api()) { // pre 4.3 version
@@ -430,9 +442,27 @@ public class NotificationPresenter implements
      *
      * @see #FLAG_SILENCE
      */
+    @SuppressLint("NewApi")
     void postNotification(
             @NonNull Context context,
             @NonNull OpenNotification n, int flags) {
+        // Trace the way from posting to launching the activity.
+        final long startTime = DEBUG ? System.nanoTime() : 0;
+        if (TRACE) Trace.beginSection("NotificationPresenter.postNotification");
+        try {
+            postNotificationInternal(context, n, flags);
+        } finally {
+            if (TRACE) Trace.endSection();
+            if (DEBUG) {
+                final long delta = (System.nanoTime() - startTime) / 1000;
+                Log.d(TAG, "Notification posted: took=" + delta + "us");
+            }
+        }
+    }
+
+    private void postNotificationInternal(
+            @NonNull Context context,
+            @NonNull OpenNotification n, int flags) {
         synchronized (monitor) {
             Check.getInstance().isInMainThread();
             mProxy.onPosted(n);
@@ -628,7 +658,7 @@ public class NotificationPresenter implements
      * @see #isValidForGlobal(OpenNotification)
      */
     // Must be synced on monitor
-    private void rebuildLocalList() {
+    void rebuildLocalList() {
         freezeListeners();
 
         // Remove not valid notifications
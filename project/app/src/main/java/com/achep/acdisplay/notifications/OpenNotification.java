@@ -22,24 +22,19 @@ import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Notification;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.SystemClock;
 import android.service.notification.StatusBarNotification;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.palette.graphics.Palette;
 import android.text.TextUtils;
 import android.util.Log;
 
 import com.achep.acdisplay.Config;
 import com.achep.acdisplay.utils.BitmapUtils;
 import com.achep.base.Device;
-import com.achep.base.async.AsyncTask;
 import com.achep.base.interfaces.IOnLowMemory;
 import com.achep.base.interfaces.ISubscriptable;
 import com.achep.base.tests.Check;
@@ -203,7 +198,15 @@ public abstract class OpenNotification implements
     // Brand color.
     private int mBrandColor = Color.WHITE;
     @Nullable
-    private android.os.AsyncTask<Bitmap, Void, Palette> mPaletteWorker;
+    private BrandColorCache mBrandColorCache;
+    @NonNull
+    private final BrandColorCache.OnBrandColorLoadedListener mBrandColorListener =
+            new BrandColorCache.OnBrandColorLoadedListener() {
+                @Override
+                public void onBrandColorLoaded(@NonNull String packageName, int color) {
+                    setBrandColor(color);
+                }
+            };
 
     // Listeners
     @NonNull
@@ -214,10 +217,14 @@ public abstract class OpenNotification implements
         mNotification = n;
     }
 
+    @SuppressLint("NewApi") // The status bar notification is here since 4.3
     public void load(@NonNull Context context) {
         mLoadedTimestamp = SystemClock.elapsedRealtime();
         mMine = TextUtils.equals(getPackageName(), PackageUtils.getName(context));
-        mActions = Action.makeFor(mNotification);
+        StatusBarNotification sbn = getStatusBarNotification();
+        mActions = sbn != null
+                ? Action.makeFor(getKey(), mNotification, sbn.getPostTime())
+                : Action.makeFor(mNotification);
         mNumber = mNotification.number;
 
         // Load the brand color.
@@ -434,37 +441,9 @@ public abstract class OpenNotification implements
     }
 
     protected void loadBrandColor(@NonNull Context context) {
-        try {
-            String packageName = getPackageName();
-            Drawable appIcon;
-            try {
-                appIcon = context.getPackageManager().getApplicationIcon(packageName);
-            } catch (OutOfMemoryError e) {
-                Log.e(TAG, "Failed to get application\'s icon due to OutOfMemoryError!");
-                return;
-            }
-
-            final Bitmap bitmap = Bitmap.createBitmap(
-                    appIcon.getMinimumWidth(),
-                    appIcon.getMinimumHeight(),
-                    Bitmap.Config.ARGB_4444);
-            if (bitmap == null) {
-                // This had happened on somewhat strange
-                // chinese phone.
-                return;
-            }
-            appIcon.draw(new Canvas(bitmap));
-            AsyncTask.stop(mPaletteWorker);
-            mPaletteWorker = new Palette.Builder(bitmap)
-                    .maximumColorCount(16)
-                    .generate(new Palette.PaletteAsyncListener() {
-                        @Override
-                        public void onGenerated(Palette palette) {
-                            setBrandColor(palette.getVibrantColor(Color.WHITE));
-                            bitmap.recycle();
-                        }
-                    });
-        } catch (PackageManager.NameNotFoundException e) { /* do nothing */ }
+        if (mBrandColorCache == null) mBrandColorCache = BrandColorCache.getInstance(context);
+        mBrandColorCache.cancel(mBrandColorListener);
+        mBrandColorCache.load(getPackageName(), mBrandColorListener);
     }
 
     public int getBrandColor(int defaultColor) {
@@ -598,7 +577,7 @@ public abstract class OpenNotification implements
         mRecycled = true;
 
         clearBackground();
-        AsyncTask.stop(mPaletteWorker);
+        if (mBrandColorCache != null) mBrandColorCache.cancel(mBrandColorListener);
         if (mIconFactory != null) {
             mIconFactory.remove(this);
             mIconFactory = null;
@@ -647,6 +626,19 @@ public abstract class OpenNotification implements
     @NonNull
     public abstract String getPackageName();
 
+    /**
+     * @return the key that identifies this notification and all its updates:
+     * the package name, the id and the tag of notification.
+     */
+    @SuppressLint("NewApi") // The status bar notification is here since 4.3
+    @NonNull
+    public String getKey() {
+        StatusBarNotification sbn = getStatusBarNotification();
+        return sbn != null
+                ? getPackageName() + "|" + sbn.getId() + "|" + sbn.getTag()
+                : getPackageName();
+    }
+
     /**
      * Time since notification has been loaded; in {@link android.os.SystemClock#elapsedRealtime()}
      * format.
@@ -35,19 +35,25 @@ public class RemoteInputUtils {
 
     private static final String TAG = "RemoteInputUtils";
 
+    private static Constructor<RemoteInput> sConstructor;
+
     @TargetApi(Build.VERSION_CODES.KITKAT_WATCH)
     @Nullable
     public static RemoteInput[] toCompat(@Nullable android.app.RemoteInput[] srcArray) {
         if (srcArray == null) return null;
         RemoteInput[] result = new RemoteInput[srcArray.length];
         try {
-            Constructor constructor = RemoteInput.class.getDeclaredConstructor(
-                    String.class, CharSequence.class, CharSequence[].class,
-                    boolean.class, Bundle.class);
-            constructor.setAccessible(true);
+            Constructor<RemoteInput> constructor = sConstructor;
+            if (constructor == null) {
+                constructor = RemoteInput.class.getDeclaredConstructor(
+                        String.class, CharSequence.class, CharSequence[].class,
+                        boolean.class, Bundle.class);
+                constructor.setAccessible(true);
+                sConstructor = constructor;
+            }
             for (int i = 0; i < srcArray.length; i++) {
                 android.app.RemoteInput src = srcArray[i];
-                result[i] = (RemoteInput) constructor.newInstance(
+                result[i] = constructor.newInstance(
                         src.getResultKey(), src.getLabel(), src.getChoices(),
                         src.getAllowFreeFormInput(), src.getExtras());
             }
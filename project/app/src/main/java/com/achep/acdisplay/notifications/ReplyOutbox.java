@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.RemoteInput;
+import android.util.Log;
+
+import com.achep.acdisplay.utils.PendingIntentUtils;
+import com.achep.base.interfaces.ISubscriptable;
+import com.achep.base.tests.Check;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.achep.base.Build.DEBUG;
+
+/**
+ * The outbox of the quick replies to the notifications. The reply that could
+ * not be sent stays in the outbox and is retried with the freshest matching
+ * {@link Action action} once the notification gets posted or updated again;
+ * the replies that have failed for good are turned back into the drafts, so
+ * no typed text is ever lost. Both the outbox and the drafts are persistent
+ * and keyed by the {@link OpenNotification#getKey() key of notification}.
+ * <p>
+ * All methods must be called from the main thread.
+ *
+ * @author Artem Chepurnoy
+ */
+public class ReplyOutbox implements ISubscriptable<ReplyOutbox.OnReplyResultListener> {
+
+    private static final String TAG = "ReplyOutbox";
+
+    private static final String PREF_NAME = "reply_outbox";
+
+    private static final String PREFIX_DRAFT = "draft|";
+    private static final String PREFIX_REPLY = "reply|";
+
+    private static final String JSON_RESULT_KEY = "result_key";
+    private static final String JSON_TEXT = "text";
+    private static final String JSON_TIME = "time";
+    private static final String JSON_ATTEMPTS = "attempts";
+
+    /**
+     * The reply has been sent.
+     */
+    public static final int RESULT_SENT = 0;
+
+    /**
+     * The reply could not be sent, and waits for the notification
+     * to be updated to retry.
+     */
+    public static final int RESULT_QUEUED = 1;
+
+    /**
+     * The reply could not be sent, and has been moved back to the drafts.
+     */
+    public static final int RESULT_FAILED = 2;
+
+    /**
+     * The maximum number of attempts to send a reply.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The maximum age of a reply; an older one makes no sense to send.
+     */
+    static final long MAX_AGE = 10 * 60 * 1000; // 10 min.
+
+    public interface OnReplyResultListener {
+
+        /**
+         * Called on every attempt to send the reply.
+         *
+         * @param key    the key of notification
+         * @param text   the text of the reply
+         * @param result one of the {@link #RESULT_SENT}, {@link #RESULT_QUEUED},
+         *               {@link #RESULT_FAILED}
+         */
+        void onReplyResult(@NonNull ReplyOutbox outbox,
+                           @NonNull String key, @NonNull String text, int result);
+
+    }
+
+    /**
+     * The pending reply.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static class Reply {
+
+        @NonNull
+        final String resultKey;
+        @NonNull
+        final String text;
+        final long time;
+        int attempts;
+
+        Reply(@NonNull String resultKey, @NonNull String text, long time, int attempts) {
+            this.resultKey = resultKey;
+            this.text = text;
+            this.time = time;
+            this.attempts = attempts;
+        }
+
+    }
+
+    private static ReplyOutbox sInstance;
+
+    @NonNull
+    private final Context mContext;
+    @NonNull
+    private final SharedPreferences mPrefs;
+    @NonNull
+    private final HashMap<String, Reply> mReplies = new HashMap<>();
+    @NonNull
+    private final ArrayList<OnReplyResultListener> mListeners = new ArrayList<>(3);
+
+    private final NotificationPresenter.OnNotificationListChangedListener mPresenterListener =
+            new NotificationPresenter.OnNotificationListChangedListener() {
+                @Override
+                public void onNotificationListChanged(@NonNull NotificationPresenter np,
+                                                      OpenNotification n, int event,
+                                                      boolean isLastEventInSequence) {
+                    if (mReplies.isEmpty()) return;
+                    switch (event) {
+                        case NotificationPresenter.EVENT_POSTED:
+                        case NotificationPresenter.EVENT_CHANGED:
+                            retry(n.getKey());
+                            break;
+                        case NotificationPresenter.EVENT_REMOVED:
+                            // There's nothing to reply to anymore.
+                            giveUp(n.getKey());
+                            break;
+                        case NotificationPresenter.EVENT_BATH:
+                            for (String key : new ArrayList<>(mReplies.keySet())) retry(key);
+                            break;
+                    }
+                }
+            };
+
+    public static synchronized ReplyOutbox getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new ReplyOutbox(context.getApplicationContext(), PREF_NAME);
+            NotificationPresenter.getInstance().registerListener(sInstance.mPresenterListener);
+        }
+        return sInstance;
+    }
+
+    protected ReplyOutbox(@NonNull Context context, @NonNull String prefName) {
+        mContext = context;
+        mPrefs = context.getSharedPreferences(prefName, Context.MODE_PRIVATE);
+
+        // Restore the pending replies.
+        for (Map.Entry<String, ?> entry : mPrefs.getAll().entrySet()) {
+            final String key = entry.getKey();
+            if (!key.startsWith(PREFIX_REPLY)) continue;
+            try {
+                JSONObject json = new JSONObject((String) entry.getValue());
+                Reply reply = new Reply(
+                        json.getString(JSON_RESULT_KEY),
+                        json.getString(JSON_TEXT),
+                        json.getLong(JSON_TIME),
+                        json.getInt(JSON_ATTEMPTS));
+                mReplies.put(key.substring(PREFIX_REPLY.length()), reply);
+            } catch (JSONException | ClassCastException e) {
+                Log.w(TAG, "Dropping the malformed reply: " + key);
+                mPrefs.edit().remove(key).apply();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerListener(@NonNull OnReplyResultListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregisterListener(@NonNull OnReplyResultListener listener) {
+        mListeners.remove(listener);
+    }
+
+    private void notifyListeners(@NonNull String key, @NonNull String text, int result) {
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onReplyResult(this, key, text, result);
+        }
+    }
+
+    //-- REPLIES --------------------------------------------------------------
+
+    /**
+     * Sends the reply, or puts it to the outbox if it fails. The draft
+     * of the reply is cleared.
+     *
+     * @param key the {@link OpenNotification#getKey() key of notification}
+     * @return one of the {@link #RESULT_SENT}, {@link #RESULT_QUEUED},
+     * {@link #RESULT_FAILED}
+     */
+    public int send(@NonNull String key, @NonNull Action action,
+                    @NonNull RemoteInput remoteInput, @NonNull CharSequence text) {
+        Check.getInstance().isInMainThread();
+        final String resultKey = remoteInput.getResultKey();
+        final Reply reply = new Reply(resultKey, text.toString(), currentTimeMillis(), 0);
+        mReplies.put(key, reply);
+        mPrefs.edit().remove(PREFIX_DRAFT + key + "|" + resultKey).apply();
+        return deliver(key, reply, action);
+    }
+
+    /**
+     * Retries to send the pending reply with the freshest matching action;
+     * does nothing if there's no reply to this notification.
+     *
+     * @param key the {@link OpenNotification#getKey() key of notification}
+     */
+    public void retry(@NonNull String key) {
+        Check.getInstance().isInMainThread();
+        final Reply reply = mReplies.get(key);
+        if (reply == null) return;
+        deliver(key, reply, findAction(key, reply.resultKey));
+    }
+
+    /**
+     * @return {@code true} if there's a reply to the notification waiting
+     * in the outbox, {@code false} otherwise.
+     */
+    public boolean isPending(@NonNull String key) {
+        return mReplies.containsKey(key);
+    }
+
+    private int deliver(@NonNull String key, @NonNull Reply reply, @Nullable Action action) {
+        if (currentTimeMillis() - reply.time > MAX_AGE) {
+            giveUp(key);
+            return RESULT_FAILED;
+        }
+
+        reply.attempts++;
+
+        final int result;
+        if (action != null && sendReply(action, reply.resultKey, reply.text)) {
+            mReplies.remove(key);
+            mPrefs.edit().remove(PREFIX_REPLY + key).apply();
+            result = RESULT_SENT;
+        } else if (reply.attempts >= MAX_ATTEMPTS) {
+            giveUp(key);
+            return RESULT_FAILED;
+        } else {
+            mPrefs.edit().putString(PREFIX_REPLY + key, toJson(reply)).apply();
+            result = RESULT_QUEUED;
+        }
+
+        if (DEBUG) Log.d(TAG, "Delivering a reply: key=" + key
+                + " attempt=" + reply.attempts + " result=" + result);
+        notifyListeners(key, reply.text, result);
+        return result;
+    }
+
+    /**
+     * Moves the pending reply back to the drafts.
+     */
+    private void giveUp(@NonNull String key) {
+        final Reply reply = mReplies.remove(key);
+        if (reply == null) return;
+        mPrefs.edit()
+                .remove(PREFIX_REPLY + key)
+                .putString(PREFIX_DRAFT + key + "|" + reply.resultKey, reply.text)
+                .apply();
+
+        if (DEBUG) Log.d(TAG, "Failed to deliver a reply: key=" + key);
+        notifyListeners(key, reply.text, RESULT_FAILED);
+    }
+
+    @NonNull
+    private static String toJson(@NonNull Reply reply) {
+        try {
+            return new JSONObject()
+                    .put(JSON_RESULT_KEY, reply.resultKey)
+                    .put(JSON_TEXT, reply.text)
+                    .put(JSON_TIME, reply.time)
+                    .put(JSON_ATTEMPTS, reply.attempts)
+                    .toString();
+        } catch (JSONException e) {
+            throw new IllegalStateException(e); // should never happen
+        }
+    }
+
+    //-- DRAFTS ---------------------------------------------------------------
+
+    /**
+     * @return the draft of the reply, or {@code null} if there's none.
+     */
+    @Nullable
+    public String getDraft(@NonNull String key, @NonNull String resultKey) {
+        return mPrefs.getString(PREFIX_DRAFT + key + "|" + resultKey, null);
+    }
+
+    /**
+     * Stores the draft of the reply; the empty text removes the draft.
+     */
+    public void putDraft(@NonNull String key, @NonNull String resultKey,
+                         @Nullable CharSequence text) {
+        final String prefKey = PREFIX_DRAFT + key + "|" + resultKey;
+        if (text == null || text.length() == 0) {
+            mPrefs.edit().remove(prefKey).apply();
+        } else {
+            mPrefs.edit().putString(prefKey, text.toString()).apply();
+        }
+    }
+
+    //-- ENVIRONMENT ----------------------------------------------------------
+
+    /**
+     * Performs the operation of the action with the reply attached.
+     *
+     * @return {@code true} if sent successfully, {@code false} otherwise.
+     */
+    protected boolean sendReply(@NonNull Action action,
+                                @NonNull String resultKey, @NonNull String text) {
+        if (action.intent == null || action.remoteInputs == null) return false;
+        final Intent intent = new Intent();
+        final Bundle bundle = new Bundle();
+        bundle.putCharSequence(resultKey, text);
+        RemoteInput.addResultsToIntent(action.remoteInputs, intent, bundle);
+        return PendingIntentUtils.sendPendingIntent(action.intent, mContext, intent);
+    }
+
+    /**
+     * @return the freshest action of the notification that takes
+     * given remote input, or {@code null} if not found.
+     */
+    @Nullable
+    protected Action findAction(@NonNull String key, @NonNull String resultKey) {
+        for (OpenNotification n : NotificationPresenter.getInstance().getList()) {
+            if (key.equals(n.getKey())) return findAction(n.getActions(), resultKey);
+
+            List<OpenNotification> children = n.getGroupNotifications();
+            if (children != null) for (OpenNotification child : children) {
+                if (key.equals(child.getKey())) return findAction(child.getActions(), resultKey);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the action that takes given remote input, or {@code null} if not found.
+     */
+    @Nullable
+    static Action findAction(@Nullable Action[] actions, @NonNull String resultKey) {
+        if (actions == null) return null;
+        for (Action action : actions) {
+            if (action.remoteInputs == null) continue;
+            for (RemoteInput remoteInput : action.remoteInputs) {
+                if (resultKey.equals(remoteInput.getResultKey())) return action;
+            }
+        }
+        return null;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+}
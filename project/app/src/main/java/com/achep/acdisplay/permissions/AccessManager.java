@@ -18,26 +18,72 @@
  */
 package com.achep.acdisplay.permissions;
 
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.NonNull;
+import android.util.Log;
 
 import com.achep.base.Device;
 import com.achep.base.interfaces.IOnLowMemory;
 import com.achep.base.permissions.Permission;
 import com.achep.base.permissions.PermissionGroup;
+import com.achep.base.utils.PackageUtils;
+
+import static com.achep.base.Build.DEBUG;
 
 /**
+ * Owns the permissions of the app and keeps their states cached, so
+ * checking them is a field read. The states are refreshed on changes of
+ * the {@link Permission#getObservedUris() secure settings} and of the package.
+ *
  * @author Artem Chepurnoy
  */
 public class AccessManager implements IOnLowMemory {
 
+    private static final String TAG = "AccessManager";
+
     @NonNull
     private final PermissionGroup mMasterPermissions;
     @NonNull
     private final PermissionGroup mKeyguardPermissions;
 
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final ContentObserver mObserver = new ContentObserver(mHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            super.onChange(selfChange);
+            refresh();
+        }
+    };
+
+    @NonNull
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data != null && mPackageName.equals(data.getSchemeSpecificPart())) refresh();
+        }
+    };
+
+    @NonNull
+    private final String mPackageName;
+
+    /**
+     * Must be created on the main thread.
+     */
     public AccessManager(@NonNull Context context) {
         context = context.getApplicationContext();
+        mPackageName = PackageUtils.getName(context);
         PermissionGroup.Builder builder;
 
         builder = new PermissionGroup.Builder(context);
@@ -50,6 +96,32 @@ public class AccessManager implements IOnLowMemory {
         builder = new PermissionGroup.Builder(context);
         if (Device.hasLollipopApi()) builder.add(Permission.PERMISSION_USAGE_STATS);
         mKeyguardPermissions = builder.build();
+
+        final ContentResolver cr = context.getContentResolver();
+        for (PermissionGroup pg : new PermissionGroup[]{mMasterPermissions, mKeyguardPermissions}) {
+            for (Permission permission : pg.permissions) {
+                for (Uri uri : permission.getObservedUris()) {
+                    cr.registerContentObserver(uri, false, mObserver);
+                }
+                permission.startObserving(mHandler);
+            }
+        }
+
+        // Enabling or disabling the components of the app may change the
+        // state of the services' permissions.
+        IntentFilter intentFilter = new IntentFilter(Intent.ACTION_PACKAGE_CHANGED);
+        intentFilter.addDataScheme("package");
+        context.registerReceiver(mPackageReceiver, intentFilter, null, mHandler);
+    }
+
+    /**
+     * Re-queries the states of all permissions, notifying the
+     * listeners of the ones that have changed.
+     */
+    public void refresh() {
+        if (DEBUG) Log.d(TAG, "Refreshing the states of the permissions.");
+        for (Permission permission : mMasterPermissions.permissions) permission.refresh();
+        for (Permission permission : mKeyguardPermissions.permissions) permission.refresh();
     }
 
     /**
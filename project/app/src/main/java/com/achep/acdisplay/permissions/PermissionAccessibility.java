@@ -22,6 +22,7 @@ import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.provider.Settings;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
@@ -53,7 +54,8 @@ public final class PermissionAccessibility extends Permission {
     /**
      * {@inheritDoc}
      */
-    public boolean isGranted() {
+    @Override
+    protected boolean queryGranted() {
         final ContentResolver cr = mContext.getContentResolver();
 
         try {
@@ -68,6 +70,18 @@ public final class PermissionAccessibility extends Permission {
         return flat != null && flat.contains(mComponentString);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public Uri[] getObservedUris() {
+        return new Uri[]{
+                Settings.Secure.getUriFor(Settings.Secure.ACCESSIBILITY_ENABLED),
+                Settings.Secure.getUriFor(Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES),
+        };
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,12 +19,16 @@
 package com.achep.acdisplay.permissions;
 
 import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.StringRes;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.achep.acdisplay.R;
 import com.achep.acdisplay.receiver.AdminReceiver;
@@ -41,6 +45,16 @@ public final class PermissionDeviceAdmin extends Permission {
     @NonNull
     private final ComponentName mComponent;
 
+    @NonNull
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            // The admin is being removed right after the receiver gets
+            // disabled, so querying the manager here would be too early.
+            setGranted(AdminReceiver.ACTION_ENABLED.equals(intent.getAction()));
+        }
+    };
+
     public PermissionDeviceAdmin(@NonNull Context context) {
         super(context);
         mComponent = new ComponentName(mContext, AdminReceiver.class);
@@ -49,10 +63,32 @@ public final class PermissionDeviceAdmin extends Permission {
     /**
      * {@inheritDoc}
      */
-    public boolean isGranted() {
+    @Override
+    protected boolean queryGranted() {
         return getDpmService().isAdminActive(mComponent);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startObserving(@NonNull Handler handler) {
+        super.startObserving(handler);
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(AdminReceiver.ACTION_ENABLED);
+        intentFilter.addAction(AdminReceiver.ACTION_DISABLED);
+        LocalBroadcastManager.getInstance(mContext).registerReceiver(mReceiver, intentFilter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stopObserving() {
+        LocalBroadcastManager.getInstance(mContext).unregisterReceiver(mReceiver);
+        super.stopObserving();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -23,6 +23,7 @@ import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Build;
 import android.provider.Settings;
 import androidx.annotation.DrawableRes;
@@ -60,12 +61,22 @@ public final class PermissionNotificationListener extends Permission {
     /**
      * {@inheritDoc}
      */
-    public boolean isGranted() {
+    @Override
+    protected boolean queryGranted() {
         final ContentResolver cr = mContext.getContentResolver();
         final String flat = Settings.Secure.getString(cr, KEY);
         return flat != null && flat.contains(mComponentString);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public Uri[] getObservedUris() {
+        return new Uri[]{Settings.Secure.getUriFor(KEY)};
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -24,6 +24,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.Handler;
 import android.provider.Settings;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
@@ -47,6 +48,8 @@ public final class PermissionUsageStats extends Permission {
     @NonNull
     private final PackageManager mPackageManager;
 
+    private AppOpsManager.OnOpChangedListener mOpListener;
+
     public PermissionUsageStats(@NonNull Context context) {
         super(context);
         Check.getInstance().isTrue(Device.hasLollipopApi());
@@ -56,7 +59,8 @@ public final class PermissionUsageStats extends Permission {
     /**
      * {@inheritDoc}
      */
-    public boolean isGranted() {
+    @Override
+    protected boolean queryGranted() {
         final String packageName = PackageUtils.getName(mContext);
         final int uid;
         try {
@@ -69,6 +73,40 @@ public final class PermissionUsageStats extends Permission {
         return result == AppOpsManager.MODE_ALLOWED;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startObserving(@NonNull final Handler handler) {
+        super.startObserving(handler);
+        mOpListener = new AppOpsManager.OnOpChangedListener() {
+            @Override
+            public void onOpChanged(String op, String packageName) {
+                // Called on a binder thread.
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                });
+            }
+        };
+        getAppOpsManager().startWatchingMode(AppOpsManager.OPSTR_GET_USAGE_STATS,
+                PackageUtils.getName(mContext), mOpListener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stopObserving() {
+        if (mOpListener != null) {
+            getAppOpsManager().stopWatchingMode(mOpListener);
+            mOpListener = null;
+        }
+        super.stopObserving();
+    }
+
     @NonNull
     private AppOpsManager getAppOpsManager() {
         return (AppOpsManager) mContext.getSystemService(Context.APP_OPS_SERVICE);
@@ -20,11 +20,12 @@ package com.achep.acdisplay.services;
 
 import android.accessibilityservice.AccessibilityServiceInfo;
 import android.app.Notification;
+import android.content.Intent;
 import android.os.Parcelable;
 import android.view.accessibility.AccessibilityEvent;
 
-import com.achep.acdisplay.notifications.NotificationPresenter;
-import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.acdisplay.notifications.NotificationIngress;
+import com.achep.acdisplay.utils.tasks.TopActivityTracker;
 import com.achep.base.Device;
 
 /**
@@ -37,10 +38,18 @@ public class AccessibilityService extends android.accessibilityservice.Accessibi
     @Override
     public void onServiceConnected() {
         AccessibilityServiceInfo info = new AccessibilityServiceInfo();
-        info.eventTypes = AccessibilityEvent.TYPE_NOTIFICATION_STATE_CHANGED;
+        info.eventTypes = AccessibilityEvent.TYPE_NOTIFICATION_STATE_CHANGED
+                | AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED;
         info.feedbackType = AccessibilityServiceInfo.FEEDBACK_GENERIC;
         info.notificationTimeout = 100;
         setServiceInfo(info);
+        TopActivityTracker.getInstance().setEventDriven(true);
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        TopActivityTracker.getInstance().setEventDriven(false);
+        return super.onUnbind(intent);
     }
 
     @Override
@@ -56,10 +65,13 @@ public class AccessibilityService extends android.accessibilityservice.Accessibi
                     }
 
                     Notification notification = (Notification) parcelable;
-                    OpenNotification openNotification = OpenNotification.newInstance(notification);
-                    NotificationPresenter.getInstance().postNotificationFromMain(this, openNotification, 0);
+                    NotificationIngress ni = NotificationIngress.getInstance();
+                    ni.postNotification(this, event.getPackageName(), notification);
                 }
                 break;
+            case AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED:
+                TopActivityTracker.getInstance().onForegroundChanged(event.getPackageName());
+                break;
         }
     }
 
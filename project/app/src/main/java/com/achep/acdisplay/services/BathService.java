@@ -34,11 +34,15 @@ import android.util.Log;
 import com.achep.acdisplay.App;
 import com.achep.acdisplay.R;
 import com.achep.acdisplay.notifications.NotificationHelper;
+import com.achep.acdisplay.notifications.NotificationIngress;
 import com.achep.acdisplay.ui.activities.MainActivity;
 import com.achep.base.AppHeap;
+import com.achep.base.async.AppExecutors;
 import com.achep.base.interfaces.IOnLowMemory;
 import com.achep.base.services.BaseService;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -288,6 +292,17 @@ public class BathService extends BaseService {
         return null;
     }
 
+    /**
+     * Prints the counters of the shared executors:
+     * {@code adb shell dumpsys activity service BathService}
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(fd, writer, args);
+        AppExecutors.dump(writer);
+        NotificationIngress.getInstance().dump(writer);
+    }
+
     //-- CHILD SERVICE --------------------------------------------------------
 
     /**
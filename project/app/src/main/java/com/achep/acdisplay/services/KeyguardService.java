@@ -23,11 +23,11 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.AsyncTask;
+import android.os.Handler;
 import android.os.PowerManager;
 import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.achep.acdisplay.Config;
@@ -37,8 +37,9 @@ import com.achep.acdisplay.services.switches.AlarmSwitch;
 import com.achep.acdisplay.services.switches.InactiveTimeSwitch;
 import com.achep.acdisplay.services.switches.NoNotifiesSwitch;
 import com.achep.acdisplay.services.switches.PhoneCallSwitch;
-import com.achep.acdisplay.utils.tasks.RunningTasks;
+import com.achep.acdisplay.utils.tasks.TopActivityTracker;
 import com.achep.base.AppHeap;
+import com.achep.base.async.AppExecutors;
 import com.achep.base.content.ConfigBase;
 import com.achep.base.tests.Check;
 import com.achep.base.utils.PackageUtils;
@@ -82,10 +83,17 @@ public class KeyguardService extends SwitchService {
     private static final int ACTIVITY_LAUNCH_MAX_TIME = 1000;
 
     private PhoneCallSwitch mPhoneCallSwitch;
-    private ActivityMonitorThread mActivityMonitorThread;
     private String mPackageName;
 
     private final Presenter mPresenter = Presenter.getInstance();
+    private final TopActivityTracker mTopActivityTracker = TopActivityTracker.getInstance();
+    private final Handler mHandler = new Handler();
+    private final Runnable mScreenOnRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!mScreenOff) onScreenOn();
+        }
+    };
     private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
 
         @Override
@@ -93,38 +101,10 @@ public class KeyguardService extends SwitchService {
             mScreenReceiver.onReceive(context, intent);
             switch (intent.getAction()) {
                 case Intent.ACTION_SCREEN_ON:
-                    String activityName = null;
-                    long activityChangeTime = 0;
-                    if (mActivityMonitorThread != null) {
-                        //noinspection SynchronizeOnNonFinalField
-                        synchronized (mActivityMonitorThread) {
-                            mActivityMonitorThread.monitor();
-                            activityName = mActivityMonitorThread.topActivityName;
-                            activityChangeTime = mActivityMonitorThread.topActivityTime;
-                        }
-                    }
-
-                    stopMonitorThread();
-
-                    if (mPhoneCallSwitch.isCalling()) {
-                        mPresenter.kill();
-                        return;
-                    }
-
-                    long now = SystemClock.elapsedRealtime();
-                    boolean becauseOfActivityLaunch =
-                            now - activityChangeTime < ACTIVITY_LAUNCH_MAX_TIME
-                                    && activityName != null
-                                    && !activityName.startsWith(mPackageName);
-
-                    if (DEBUG) Log.d(TAG, "Screen is on: activity_flag=" + becauseOfActivityLaunch);
-
-                    if (becauseOfActivityLaunch) {
-
-                        // Finish AcDisplay activity so it won't shown
-                        // after exiting from newly launched one.
-                        mPresenter.kill();
-                    } else if (mLocked) startGui(); // Normal launch
+                    if (mTopActivityTracker.isEventDriven()) {
+                        // The cached state is already up-to-date.
+                        onScreenOn();
+                    } else syncTopActivity(mScreenOnRunnable);
                     break;
                 case Intent.ACTION_SCREEN_OFF:
                     mLocked = mPresenter.isLocked();
@@ -137,6 +117,48 @@ public class KeyguardService extends SwitchService {
 
     private boolean mLocked;
 
+    private void onScreenOn() {
+        String activityName = mTopActivityTracker.getPackageName();
+        long activityChangeTime = mTopActivityTracker.getTimestamp();
+
+        if (mPhoneCallSwitch.isCalling()) {
+            mPresenter.kill();
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        boolean becauseOfActivityLaunch =
+                now - activityChangeTime < ACTIVITY_LAUNCH_MAX_TIME
+                        && activityName != null
+                        && !activityName.startsWith(mPackageName);
+
+        if (DEBUG) Log.d(TAG, "Screen is on: activity_flag=" + becauseOfActivityLaunch);
+
+        if (becauseOfActivityLaunch) {
+
+            // Finish AcDisplay activity so it won't shown
+            // after exiting from newly launched one.
+            mPresenter.kill();
+        } else if (mLocked) startGui(); // Normal launch
+    }
+
+    /**
+     * Syncs the {@link TopActivityTracker top activity tracker} on a worker thread,
+     * so we never block the main thread with the binder calls.
+     *
+     * @param callback the runnable to post to the main thread after syncing.
+     */
+    private void syncTopActivity(@Nullable final Runnable callback) {
+        final Context context = getContext();
+        AppExecutors.io().execute(new Runnable() {
+            @Override
+            public void run() {
+                mTopActivityTracker.sync(context);
+                if (callback != null) mHandler.post(callback);
+            }
+        }, AppExecutors.PRIORITY_HIGH);
+    }
+
     /**
      * {@code true} if the screen if actually off,
      * {@code false} otherwise.
@@ -230,7 +252,10 @@ public class KeyguardService extends SwitchService {
             mLocked = true;
 
             startGuiGhost();
-            startMonitorThread();
+
+            // Remember the current top activity, so we can
+            // detect a new one when the screen turns on.
+            if (!mTopActivityTracker.isEventDriven()) syncTopActivity(null);
         }
     }
 
@@ -298,7 +323,7 @@ public class KeyguardService extends SwitchService {
     public void onStop(@Nullable Object... objects) {
         final Context context = getContext();
         context.unregisterReceiver(mReceiver);
-        stopMonitorThread();
+        mHandler.removeCallbacks(mScreenOnRunnable);
         cancelLockWithDelay();
 
         if (mScreenOff) {
@@ -321,91 +346,4 @@ public class KeyguardService extends SwitchService {
         AppHeap.getRefWatcher().watch(this);
     }
 
-    private void startMonitorThread() {
-        stopMonitorThread();
-        mActivityMonitorThread = new ActivityMonitorThread(getContext());
-        mActivityMonitorThread.start();
-    }
-
-    private void stopMonitorThread() {
-        if (mActivityMonitorThread == null) {
-            return; // Nothing to stop
-        }
-
-        mActivityMonitorThread.running = false;
-        mActivityMonitorThread.interrupt();
-        mActivityMonitorThread = null;
-    }
-
-    /**
-     * Thread that monitors the current top activity.
-     *
-     * @author Artem Chepurnoy
-     */
-    private static class ActivityMonitorThread extends Thread {
-
-        /**
-         * How frequently should we check top running activity. The
-         * values is in millis.
-         */
-        private static final long PERIOD = 15 * 60 * 1000; // 15 min.
-
-        public volatile long topActivityTime;
-        public volatile String topActivityName;
-        public volatile boolean running = true;
-
-        @NonNull
-        private final Context mContext;
-
-        public ActivityMonitorThread(@NonNull Context context) {
-            if (DEBUG) Log.d(TAG, "Activity monitor thread has been initiated.");
-            mContext = context;
-        }
-
-        @Override
-        public void run() {
-            super.run();
-            while (running) {
-                monitor();
-
-                try {
-                    Thread.sleep(PERIOD);
-                } catch (InterruptedException e) { /* unused */ }
-            }
-        }
-
-        /**
-         * Checks what activity is the latest.
-         */
-        public synchronized void monitor() {
-            String topActivity = RunningTasks.getInstance().getRunningTasksTop(mContext);
-            if (TextUtils.equals(topActivity, topActivityName)) {
-                return;
-            }
-
-            topActivityName = topActivity;
-            topActivityTime = SystemClock.elapsedRealtime();
-            Log.i(TAG, "New top activity is " + topActivityName);
-        }
-
-        //-- DEBUG ----------------------------------------------------------------
-
-        /* Only for debug purposes! */
-        private final Object dFinalizeWatcher = DEBUG ? new Object() {
-
-            /**
-             * Logs the notifications' removal.
-             */
-            @Override
-            protected void finalize() throws Throwable {
-                try {
-                    Log.d(TAG, "Activity monitor thread has died.");
-                } finally {
-                    super.finalize();
-                }
-            }
-
-        } : null;
-    }
-
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.services;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed-size ring buffer of sensor events, stored in primitive arrays.
+ * Recording an event takes no allocations; when the buffer is full the
+ * oldest event is overwritten.
+ * <p>
+ * The dump is written as a compact binary file: a header of
+ * {@code magic, version, size} followed by {@code size} records of
+ * {@code timestamp (long), sensor type (int), x, y, z (floats)}.
+ * It has no Android dependencies, so the dumps may be {@link #writeCsv(Writer) converted}
+ * to CSV on a desktop with the {@code SensorsDumpCsv} tool of the unit tests.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class SensorsDump {
+
+    private static final int MAGIC = 0x41435344; // ACSD
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 3 * 4;
+    private static final int RECORD_SIZE = 8 + 4 + 3 * 4;
+
+    /**
+     * The first line of the {@link #writeCsv(Writer) CSV}.
+     */
+    static final String CSV_HEADER = "timestamp;type;x;y;z";
+
+    private final int mCapacity;
+    private final long[] mTimestamps;
+    private final int[] mTypes;
+    private final float[] mValues;
+
+    /**
+     * The index of the oldest event.
+     */
+    private int mHead;
+    private int mSize;
+
+    public SensorsDump(int capacity) {
+        mCapacity = capacity;
+        mTimestamps = new long[capacity];
+        mTypes = new int[capacity];
+        mValues = new float[capacity * 3];
+    }
+
+    /**
+     * Adds the event to the end of the buffer,
+     * overwriting the oldest one if needed.
+     *
+     * @param timestamp the timestamp of the event, in nanoseconds
+     * @param type      the type of the sensor
+     * @param values    the values of the event; only first three of them are stored
+     */
+    public void add(long timestamp, int type, @NonNull float[] values) {
+        final int i;
+        if (mSize < mCapacity) {
+            i = (mHead + mSize++) % mCapacity;
+        } else {
+            i = mHead;
+            mHead = (mHead + 1) % mCapacity;
+        }
+
+        mTimestamps[i] = timestamp;
+        mTypes[i] = type;
+        final int length = Math.min(values.length, 3);
+        for (int j = 0; j < 3; j++) mValues[i * 3 + j] = j < length ? values[j] : 0f;
+    }
+
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return the timestamp of the {@code i}th event, starting from the oldest one.
+     */
+    public long getTimestamp(int i) {
+        return mTimestamps[index(i)];
+    }
+
+    /**
+     * @return the sensor type of the {@code i}th event, starting from the oldest one.
+     */
+    public int getType(int i) {
+        return mTypes[index(i)];
+    }
+
+    /**
+     * @return the {@code axis}th value of the {@code i}th event, starting from the oldest one.
+     */
+    public float getValue(int i, int axis) {
+        return mValues[index(i) * 3 + axis];
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= mSize) throw new IndexOutOfBoundsException();
+        return (mHead + i) % mCapacity;
+    }
+
+    //-- READING & WRITING ----------------------------------------------------
+
+    /**
+     * Writes all events from the buffer to given file.
+     *
+     * @throws IOException
+     */
+    public void writeToFile(@NonNull File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * mSize);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(mSize);
+        for (int i = 0; i < mSize; i++) {
+            final int j = (mHead + i) % mCapacity;
+            buffer.putLong(mTimestamps[j]).putInt(mTypes[j])
+                    .putFloat(mValues[j * 3])
+                    .putFloat(mValues[j * 3 + 1])
+                    .putFloat(mValues[j * 3 + 2]);
+        }
+        buffer.flip();
+
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the dump previously written by {@link #writeToFile(File)}.
+     *
+     * @throws IOException if the file is not a dump, or reading failed.
+     */
+    @NonNull
+    public static SensorsDump readFromFile(@NonNull File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) { /* reading */ }
+            buffer.flip();
+
+            if (buffer.remaining() < HEADER_SIZE
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION) {
+                throw new IOException("Not a sensors dump: " + file);
+            }
+
+            final int size = buffer.getInt();
+            if (size < 0 || buffer.remaining() < size * RECORD_SIZE) {
+                throw new IOException("The sensors dump is truncated: " + file);
+            }
+
+            SensorsDump dump = new SensorsDump(Math.max(size, 1));
+            float[] values = new float[3];
+            for (int i = 0; i < size; i++) {
+                final long timestamp = buffer.getLong();
+                final int type = buffer.getInt();
+                values[0] = buffer.getFloat();
+                values[1] = buffer.getFloat();
+                values[2] = buffer.getFloat();
+                dump.add(timestamp, type, values);
+            }
+            return dump;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the events as CSV: the {@link #CSV_HEADER header} followed by
+     * a {@code timestamp;type;x;y;z} row per event.
+     *
+     * @throws IOException
+     */
+    public void writeCsv(@NonNull Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (int i = 0; i < mSize; i++) {
+            final int j = (mHead + i) % mCapacity;
+            writer.write(Long.toString(mTimestamps[j]));
+            writer.write(';');
+            writer.write(Integer.toString(mTypes[j]));
+            for (int k = 0; k < 3; k++) {
+                writer.write(';');
+                writer.write(Float.toString(mValues[j * 3 + k]));
+            }
+            writer.write('\n');
+        }
+    }
+
+}
@@ -34,11 +34,10 @@ import android.util.Log;
 import com.achep.acdisplay.Config;
 import com.achep.acdisplay.R;
 import com.achep.base.AppHeap;
-import com.achep.base.utils.FileUtils;
 import com.achep.base.utils.power.PowerUtils;
 
 import java.io.File;
-import java.util.LinkedList;
+import java.io.IOException;
 
 import static com.achep.base.Build.DEBUG;
 
@@ -50,9 +49,6 @@ public class SensorsDumpService extends BathService.ChildService implements
 
     private static final String TAG = "SensorsDumpService";
 
-    private static final char DIVIDER = ';';
-    private static final char NEW_LINE = '\n';
-
     private static final int MAX_SIZE = 2500;
 
     private SensorManager mSensorManager;
@@ -60,13 +56,7 @@ public class SensorsDumpService extends BathService.ChildService implements
             Sensor.TYPE_GYROSCOPE, Sensor.TYPE_ACCELEROMETER,
     };
 
-    private final LinkedList<Event> mEventList = new LinkedList<>();
-
-    private static class Event {
-        long timestamp;
-        float[] values;
-        int sensor;
-    }
+    private final SensorsDump mDump = new SensorsDump(MAX_SIZE);
 
     private Handler mHandler = new Handler();
     private Receiver mReceiver = new Receiver();
@@ -83,9 +73,9 @@ public class SensorsDumpService extends BathService.ChildService implements
                     mHandler.postDelayed(new Runnable() {
                         @Override
                         public void run() {
-                            synchronized (mEventList) {
+                            synchronized (mDump) {
                                 stopListening();
-                                mEventList.clear();
+                                mDump.clear();
                             }
                         }
                     }, 120 * 1000);
@@ -159,41 +149,30 @@ public class SensorsDumpService extends BathService.ChildService implements
     }
 
     private void dropToStorage() {
-        synchronized (mEventList) {
+        synchronized (mDump) {
             if (DEBUG) Log.d(TAG, "Dumping sensors data to file...");
-            if (mEventList.size() == 0) {
+            if (mDump.size() == 0) {
                 return;
             }
 
-            StringBuilder sb = new StringBuilder();
-            for (Event event : mEventList) {
-                sb.append(event.timestamp).append(DIVIDER);
-                sb.append(event.sensor).append(DIVIDER);
-                for (float f : event.values) sb.append(f).append(DIVIDER);
-                sb.append(NEW_LINE);
-            }
-
-            String filename = "dump_sensors_" + SystemClock.elapsedRealtime() + ".txt";
+            String filename = "dump_sensors_" + SystemClock.elapsedRealtime() + ".bin";
             File file = new File(getContext().getFilesDir(), filename);
-            FileUtils.writeToFile(file, sb);
+            try {
+                mDump.writeToFile(file);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write the sensors dump to file=" + file);
+            }
 
-            mEventList.clear();
+            mDump.clear();
         }
     }
 
     @Override
     public void onSensorChanged(SensorEvent sensorEvent) {
-        synchronized (mEventList) {
-            Event event = new Event();
-            event.timestamp = SystemClock.elapsedRealtime();
-            event.values = sensorEvent.values.clone();
-            event.sensor = sensorEvent.sensor.getType();
-            mEventList.add(event);
-
-            int size = mEventList.size();
-            if (size > MAX_SIZE) {
-                mEventList.remove(0);
-            }
+        synchronized (mDump) {
+            // Use the timestamp of the event itself, not the
+            // time of when it has been delivered.
+            mDump.add(sensorEvent.timestamp, sensorEvent.sensor.getType(), sensorEvent.values);
         }
     }
 
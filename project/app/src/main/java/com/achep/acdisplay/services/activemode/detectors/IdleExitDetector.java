@@ -94,14 +94,21 @@ public class IdleExitDetector implements SensorEventListener {
     @Override
     public void onSensorChanged(@NonNull SensorEvent event) {
         Check.getInstance().isTrue(event.sensor.getType() == Sensor.TYPE_ACCELEROMETER);
-        final long now = SystemClock.elapsedRealtime();
+        final float[] values = event.values;
+        onSensorChanged(values[0], values[1], values[2], SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Handles the accelerometer values, that were received at given time. Allows
+     * to replay the recorded sensor traces with a virtual clock.
+     *
+     * @param now the time of the event, in millis
+     */
+    public void onSensorChanged(float x, float y, float z, long now) {
         final long deltaTime = now - KEEP_DATA_POINTS_FOR;
         // If a shake in last X seconds ignore.
         if (lastShake != 0 && (now - lastShake) < IGNORE_EVENTS_AFTER_SHAKE) return;
 
-        float x = event.values[0];
-        float y = event.values[1];
-        float z = event.values[2];
         if (last_x != 0 && last_y != 0 && last_z != 0 && (last_x != x || last_y != y || last_z != z)) {
             DataPoint dp = new DataPoint(last_x - x, last_y - y, last_z - z, now);
             mDataPoints.add(dp);
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.services.activemode.detectors;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Detects proximity gestures, such as pulling the device out of a pocket or
+ * waving a hand over it. Each gesture is described by a {@link Program program}:
+ * a sequence of near/far states with the allowed durations.
+ * <p>
+ * All programs are matched at once as a non-deterministic automaton: for every
+ * program we keep a bit mask of the stages that have been matched so far, and
+ * advance it by each new event. This takes no allocations per event and doesn't
+ * depend on Android, so it may be driven by synthetic event streams.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class ProximityGestureDetector {
+
+    /**
+     * The first segment of the program ignores its minimum duration if it
+     * began right at the {@link #reset(boolean, long) reset}. So we can act
+     * just after the detector has been started.
+     */
+    public static final int FLAG_IMMEDIATE_START = 1;
+
+    /**
+     * Is near at least for given time, and after: is far.
+     */
+    @NonNull
+    public static Program newPocketProgram(int delay) {
+        return new Program.Builder()
+                .begin(true, delay) /* is near at least for some seconds */
+                .end(0) /* and after: is far  at least for 0 seconds */
+                .setFlags(FLAG_IMMEDIATE_START)
+                .build();
+    }
+
+    /**
+     * Is near for a moment, and after: is far, near and far again.
+     */
+    @NonNull
+    public static Program newWaveToWakeProgram() {
+        return new Program.Builder()
+                .begin(true, 200) /*        is near at least for 200 millis */
+                .add(0, 1500) /* and after: is far  not more than 1 second  */
+                .add(0, 1500) /* and after: is near not more than 1 second  */
+                .end(0)       /* and after: is far  at least for  0 second  */
+                .build();
+    }
+
+    /**
+     * Two quick waves in a row.
+     */
+    @NonNull
+    public static Program newDoubleWaveProgram() {
+        return new Program.Builder()
+                .begin(false, 0) /*         is far                          */
+                .add(0, 1000) /* and after: is near not more than 1 second  */
+                .add(0, 1000) /* and after: is far  not more than 1 second  */
+                .add(0, 1000) /* and after: is near not more than 1 second  */
+                .end(0)       /* and after: is far  at least for  0 second  */
+                .build();
+    }
+
+    /**
+     * Is far, and after: is near at least for given time.
+     */
+    @NonNull
+    public static Program newHoldProgram(int duration) {
+        return new Program.Builder()
+                .begin(false, 0) /*         is far                          */
+                .end(duration) /* and after: is near at least for some time */
+                .build();
+    }
+
+    @NonNull
+    private final Program[] mPrograms;
+    @NonNull
+    private final boolean[] mEnabled;
+
+    /**
+     * The bit masks of matched stages: if the {@code j}th bit is set, then
+     * the {@code j} first stages of the program have been matched by the
+     * latest segments.
+     */
+    @NonNull
+    private final long[] mMasks;
+
+    private boolean mHasPrevious;
+    private boolean mPreviousNear;
+    private long mPreviousTime;
+
+    /**
+     * {@code true} if no events have been handled since
+     * the {@link #reset(boolean, long) reset}.
+     */
+    private boolean mFirstEvent;
+
+    public ProximityGestureDetector(@NonNull Program... programs) {
+        mPrograms = programs;
+        mEnabled = new boolean[programs.length];
+        mMasks = new long[programs.length];
+        for (int i = 0; i < programs.length; i++) mEnabled[i] = true;
+    }
+
+    /**
+     * Enables or disables given program; disabled programs are never
+     * reported by {@link #onEvent(boolean, long)}.
+     */
+    public void setProgramEnabled(@NonNull Program program, boolean enabled) {
+        for (int i = 0; i < mPrograms.length; i++) {
+            if (mPrograms[i] == program) {
+                mEnabled[i] = enabled;
+                mMasks[i] = 0;
+                return;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown program!");
+    }
+
+    /**
+     * Forgets all previous events. The next event will only
+     * be used as the beginning of a segment.
+     *
+     * @see #reset(boolean, long)
+     */
+    public void reset() {
+        for (int i = 0; i < mMasks.length; i++) mMasks[i] = 0;
+        mHasPrevious = false;
+        mFirstEvent = false;
+    }
+
+    /**
+     * Forgets all previous events, and starts a new segment with
+     * given state at given time.
+     *
+     * @see #reset()
+     */
+    public void reset(boolean isNear, long time) {
+        reset();
+        mHasPrevious = true;
+        mPreviousNear = isNear;
+        mPreviousTime = time;
+        mFirstEvent = true;
+    }
+
+    /**
+     * Advances the automaton by one proximity change.
+     *
+     * @param isNear the new state of the sensor
+     * @param time   the time of the change, in millis
+     * @return the delay after which the gesture is complete if the state
+     * doesn't change, or {@code -1} if none of the programs fits.
+     */
+    public long onEvent(boolean isNear, long time) {
+        if (mHasPrevious) {
+            final long duration = time - mPreviousTime;
+            for (int i = 0; i < mPrograms.length; i++) {
+                if (!mEnabled[i]) continue;
+                final Program program = mPrograms[i];
+                final boolean relaxed = mFirstEvent && (program.flags & FLAG_IMMEDIATE_START) != 0;
+                // The first stage may begin at any event.
+                final long mask = mMasks[i] | 1;
+                long maskNew = 0;
+
+                for (int j = program.length - 2; j >= 0; j--) {
+                    if ((mask & 1L << j) == 0
+                            || program.isNear[j] != mPreviousNear
+                            || duration >= program.timeMax[j]
+                            || duration <= (relaxed && j == 0 ? 0 : program.timeMin[j])) {
+                        continue;
+                    }
+
+                    maskNew |= 1L << j + 1;
+                }
+
+                mMasks[i] = maskNew;
+            }
+        }
+
+        mHasPrevious = true;
+        mPreviousNear = isNear;
+        mPreviousTime = time;
+        mFirstEvent = false;
+
+        long delay = -1;
+        for (int i = 0; i < mPrograms.length; i++) {
+            if (!mEnabled[i]) continue;
+            final Program program = mPrograms[i];
+            final int last = program.length - 1;
+            if ((mMasks[i] & 1L << last) != 0 && program.isNear[last] == isNear) {
+                final long d = program.timeMin[last];
+                if (delay < 0 || d < delay) delay = d;
+            }
+        }
+
+        return delay;
+    }
+
+    /**
+     * The compiled gesture: a sequence of near/far stages and the durations
+     * each of them may last. The duration of the last stage is the delay after
+     * which the gesture is considered complete.
+     *
+     * @author Artem Chepurnoy
+     */
+    public static final class Program {
+
+        /**
+         * The maximum number of stages, limited by the bit mask size.
+         */
+        public static final int MAX_LENGTH = 64;
+
+        final int length;
+        final int flags;
+        @NonNull
+        final boolean[] isNear;
+        @NonNull
+        final long[] timeMin;
+        @NonNull
+        final long[] timeMax;
+
+        private Program(@NonNull boolean[] isNear,
+                        @NonNull long[] timeMin,
+                        @NonNull long[] timeMax, int flags) {
+            this.length = isNear.length;
+            this.isNear = isNear;
+            this.timeMin = timeMin;
+            this.timeMax = timeMax;
+            this.flags = flags;
+        }
+
+        /**
+         * @author Artem Chepurnoy
+         */
+        public static class Builder {
+
+            private final ArrayList<long[]> mProgram = new ArrayList<>(10);
+            private boolean mLastNear;
+            private int mFlags;
+
+            @NonNull
+            public Builder begin(boolean isNear, int timeMin) {
+                return add(isNear, timeMin, Long.MAX_VALUE);
+            }
+
+            @NonNull
+            public Builder add(int timeMin, long timeMax) {
+                return add(!mLastNear, timeMin, timeMax);
+            }
+
+            @NonNull
+            public Builder end(int timeMin) {
+                return add(timeMin, 0);
+            }
+
+            @NonNull
+            public Builder setFlags(int flags) {
+                mFlags = flags;
+                return this;
+            }
+
+            @NonNull
+            private Builder add(boolean isNear, int timeMin, long timeMax) {
+                mProgram.add(new long[]{isNear ? 1 : 0, timeMin, timeMax});
+                mLastNear = isNear;
+                return this;
+            }
+
+            @NonNull
+            public Program build() {
+                final int length = mProgram.size();
+                if (length < 2 || length > MAX_LENGTH) {
+                    throw new IllegalStateException("The program must have from 2 to "
+                            + MAX_LENGTH + " stages!");
+                }
+
+                boolean[] isNear = new boolean[length];
+                long[] timeMin = new long[length];
+                long[] timeMax = new long[length];
+                for (int i = 0; i < length; i++) {
+                    long[] data = mProgram.get(i);
+                    isNear[i] = data[0] != 0;
+                    timeMin[i] = data[1];
+                    timeMax[i] = data[2];
+                }
+                return new Program(isNear, timeMin, timeMax, mFlags);
+            }
+
+        }
+
+    }
+
+}
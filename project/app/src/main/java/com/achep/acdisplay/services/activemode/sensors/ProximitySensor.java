@@ -28,13 +28,10 @@ import android.util.Log;
 
 import com.achep.acdisplay.Config;
 import com.achep.acdisplay.services.activemode.ActiveModeSensor;
+import com.achep.acdisplay.services.activemode.detectors.ProximityGestureDetector;
 import com.achep.base.content.ConfigBase;
 
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
-
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 
 import static com.achep.base.Build.DEBUG;
 
@@ -62,207 +59,34 @@ public final class ProximitySensor extends ActiveModeSensor implements
 
     private float mMaximumRange;
     private boolean mFirstChange;
+    private long mLastChangeTime;
 
     @NonNull
     private final Object monitor = new Object();
 
-    private final ArrayList<Program> mPrograms;
-    private final ArrayList<Event> mHistory;
+    private final ProximityGestureDetector mDetector;
     private final Handler mHandler;
-    private int mHistoryMaximumSize;
-
-    private final Program mPocketProgram;
-    private final Program mWave2WakeProgram;
-
-    private static class Program {
 
-        @NonNull
-        public final Data[] dataArray;
+    private final ProximityGestureDetector.Program mWave2WakeProgram;
 
-        private static class Data {
-            public final boolean isNear;
-            public int timeMin;
-            public final long timeMax;
-
-            public Data(boolean isNear, int timeMin, long timeMax) {
-                this.isNear = isNear;
-                this.timeMin = timeMin;
-                this.timeMax = timeMax;
-            }
-
-            /**
-             * {@inheritDoc}
-             */
-            @Override
-            public int hashCode() {
-                return new HashCodeBuilder(31, 3615)
-                        .append(isNear)
-                        .append(timeMin)
-                        .append(timeMax)
-                        .toHashCode();
-            }
-
-            /**
-             * {@inheritDoc}
-             */
-            @Override
-            public boolean equals(Object o) {
-                if (o == this)
-                    return true;
-                if (!(o instanceof Data))
-                    return false;
-
-                Data data = (Data) o;
-                return new EqualsBuilder()
-                        .append(isNear, data.isNear)
-                        .append(timeMin, data.timeMin)
-                        .append(timeMax, data.timeMax)
-                        .isEquals();
-            }
-        }
-
-        public Program(@NonNull Data[] dataArray) {
-            this.dataArray = dataArray;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public int hashCode() {
-            return new HashCodeBuilder(2369, 31)
-                    .append(dataArray)
-                    .toHashCode();
-        }
-
-        /**
-         * {@inheritDoc}
-         */
+    @NonNull
+    private final Runnable mWakeUpRunnable = new Runnable() {
         @Override
-        public boolean equals(Object o) {
-            if (o == this)
-                return true;
-            if (!(o instanceof Program))
-                return false;
-
-            Program program = (Program) o;
-            return new EqualsBuilder()
-                    .append(dataArray, program.dataArray)
-                    .isEquals();
-        }
-
-        public static int fits(@NonNull Program program, @NonNull ArrayList<Event> history) {
-            Data[] dataArray = program.dataArray;
-
-            int historySize = history.size();
-            int programSize = dataArray.length;
-            if (historySize < programSize) {
-                // Program needs slightly longer history.
-                return -1;
-            }
-
-            int historyOffset = historySize - programSize;
-            Event eventPrevious = history.get(historyOffset);
-
-            for (int i = 1; i < programSize; i++) {
-                Data data = dataArray[i - 1];
-                Event eventFuture = history.get(historyOffset + i);
-
-                final long delta = eventFuture.time - eventPrevious.time;
-
-                if (eventPrevious.isNear != data.isNear
-                        || delta <= data.timeMin
-                        || delta >= data.timeMax) {
-                    return -1;
-                }
-
-                eventPrevious = eventFuture;
+        public void run() {
+            synchronized (monitor) {
+                mHandler.removeCallbacksAndMessages(null);
+                mDetector.reset();
+                requestWakeUp();
             }
-
-            Data data = dataArray[programSize - 1];
-            if (eventPrevious.isNear == data.isNear) {
-                return data.timeMin;
-            }
-
-            return -1;
         }
-
-        public static class Builder {
-
-            private final ArrayList<Data> mProgram = new ArrayList<>(10);
-            private boolean mLastNear;
-
-            @NonNull
-            public Builder begin(boolean isNear, int timeMin) {
-                return add(isNear, timeMin, Long.MAX_VALUE);
-            }
-
-            @NonNull
-            public Builder add(int timeMin, long timeMax) {
-                return add(!mLastNear, timeMin, timeMax);
-            }
-
-            @NonNull
-            public Builder end(int timeMin) {
-                return add(timeMin, 0);
-            }
-
-            @NonNull
-            private Builder add(boolean isNear, int timeMin, long timeMax) {
-                Data data = new Data(isNear, timeMin, timeMax);
-                mProgram.add(data);
-                mLastNear = isNear;
-                return this;
-            }
-
-            @NonNull
-            public Program build() {
-                return new Program(mProgram.toArray(new Data[mProgram.size()]));
-            }
-
-        }
-
-    }
-
-    /**
-     * Proximity event.
-     */
-    private static class Event {
-        final boolean isNear;
-        final long time;
-
-        public Event(boolean isNear, long time) {
-            this.isNear = isNear;
-            this.time = time;
-        }
-
-    }
+    };
 
     private ProximitySensor() {
         super();
-        mPocketProgram = new Program.Builder()
-                .begin(true, POCKET_START_DELAY) /* is near at least for some seconds */
-                .end(0) /* and after: is far  at least for 0 seconds */
-                .build();
-        mWave2WakeProgram = new Program.Builder()
-                .begin(true, 200) /*        is near at least for 200 millis */
-                .add(0, 1500) /* and after: is far  not more than 1 second  */
-                .add(0, 1500) /* and after: is near not more than 1 second  */
-                .end(0)       /* and after: is far  at least for  0 second  */
-                .build();
-
-        mPrograms = new ArrayList<>();
-        mPrograms.add(mPocketProgram);
-        mPrograms.add(mWave2WakeProgram); // needed to include in history size calculation
-
-        for (Program program : mPrograms) {
-            int size = program.dataArray.length;
-            if (size > mHistoryMaximumSize) {
-                mHistoryMaximumSize = size;
-            }
-        }
-
-        mHistory = new ArrayList<>(mHistoryMaximumSize);
+        mWave2WakeProgram = ProximityGestureDetector.newWaveToWakeProgram();
+        mDetector = new ProximityGestureDetector(
+                ProximityGestureDetector.newPocketProgram(POCKET_START_DELAY),
+                mWave2WakeProgram);
         mHandler = new Handler();
     }
 
@@ -293,16 +117,14 @@ public final class ProximitySensor extends ActiveModeSensor implements
     public void onStart(@NonNull SensorManager sensorManager) {
         if (DEBUG) Log.d(TAG, "Starting proximity sensor...");
 
-        mHistory.clear();
-        mHistory.add(new Event(false, getTimeNow()));
-
-        Config.getInstance().registerListener(this);
-        updateWave2WakeProgram();
-
         // Ignore pocket program's start delay,
         // so app can act just after it has started.
         mFirstChange = true;
-        mPocketProgram.dataArray[0].timeMin = 0;
+        mLastChangeTime = getTimeNow();
+        mDetector.reset(false, mLastChangeTime);
+
+        Config.getInstance().registerListener(this);
+        updateWave2WakeProgram();
 
         Sensor proximitySensor = sensorManager.getDefaultSensor(getType());
         sensorManager.registerListener(this, proximitySensor, SensorManager.SENSOR_DELAY_NORMAL);
@@ -318,7 +140,7 @@ public final class ProximitySensor extends ActiveModeSensor implements
         SensorManager sensorManager = getSensorManager();
         sensorManager.unregisterListener(this);
         mHandler.removeCallbacksAndMessages(null);
-        mHistory.clear();
+        mDetector.reset();
 
         Config.getInstance().unregisterListener(this);
     }
@@ -332,14 +154,10 @@ public final class ProximitySensor extends ActiveModeSensor implements
         synchronized (monitor) {
             long now = getTimeNow();
             if (DEBUG) {
-                int historySize = mHistory.size();
-                String delta = (historySize > 0
-                        ? " delta=" + (now - mHistory.get(historySize - 1).time)
-                        : " first_event");
                 Log.d(TAG + ":Event", "distance=" + distance
                         + " is_near=" + isNear
                         + " changed=" + changed
-                        + delta);
+                        + " delta=" + (now - mLastChangeTime));
             }
 
             if (!changed) {
@@ -349,33 +167,11 @@ public final class ProximitySensor extends ActiveModeSensor implements
                 return;
             }
 
-            while (mHistory.size() >= mHistoryMaximumSize)
-                mHistory.remove(0);
-
             mHandler.removeCallbacksAndMessages(null);
-            mHistory.add(new Event(isNear, now));
-            for (Program program : mPrograms) {
-                int delay = Program.fits(program, mHistory);
-                if (delay >= 0) {
-                    mHandler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            synchronized (monitor) {
-                                mHandler.removeCallbacksAndMessages(null);
-                                mHistory.clear();
-                                requestWakeUp();
-                            }
-                        }
-                    }, delay);
-                }
-            }
-
-            if (mFirstChange) {
-                // Change pocket program back to defaults.
-                mPocketProgram.dataArray[0].timeMin = POCKET_START_DELAY;
-            }
+            final long delay = mDetector.onEvent(isNear, now);
+            if (delay >= 0) mHandler.postDelayed(mWakeUpRunnable, delay);
 
-            sLastEventTime = now;
+            sLastEventTime = mLastChangeTime = now;
             mFirstChange = false;
         }
     }
@@ -397,15 +193,8 @@ public final class ProximitySensor extends ActiveModeSensor implements
     private void updateWave2WakeProgram() {
         synchronized (monitor) {
             boolean enabled = Config.getInstance().isActiveModeWaveToWakeEnabled();
-            if (enabled) {
-                if (!mPrograms.contains(mWave2WakeProgram)) {
-                    if (DEBUG) Log.d(TAG, "Added the \"Wave to wake\" program");
-                    mPrograms.add(mWave2WakeProgram);
-                }
-            } else {
-                if (DEBUG) Log.d(TAG, "Removed the \"Wave to wake\" program");
-                mPrograms.remove(mWave2WakeProgram);
-            }
+            if (DEBUG) Log.d(TAG, "The \"Wave to wake\" program is enabled=" + enabled);
+            mDetector.setProgramEnabled(mWave2WakeProgram, enabled);
         }
     }
 
@@ -18,15 +18,12 @@
  */
 package com.achep.acdisplay.services.switches;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import androidx.annotation.NonNull;
 
+import com.achep.acdisplay.DeviceState;
 import com.achep.acdisplay.services.Switch;
 import com.achep.base.content.ConfigBase;
-import com.achep.base.utils.power.PowerUtils;
 
 /**
  * Prevents {@link com.achep.acdisplay.services.SwitchService} from working
@@ -34,33 +31,13 @@ import com.achep.base.utils.power.PowerUtils;
  *
  * @author Artem Chepurnoy
  */
-public final class BatteryOutSwitch extends Switch.Optional {
+public final class BatteryOutSwitch extends Switch.Optional implements
+        DeviceState.OnDeviceStateChangedListener {
 
     private static final int BATTERY_LOW_LEVEL = 15; // 15 %
 
-    private boolean mBatteryPlugged;
-    private int mBatteryLevel;
-
-    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
-
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            switch (intent.getAction()) {
-                case Intent.ACTION_BATTERY_CHANGED:
-                    mBatteryLevel = PowerUtils.getBatteryLevel(intent);
-                    mBatteryPlugged = PowerUtils.isPlugged(intent);
-
-                    // Update the state
-                    if (isActiveInternal()) {
-                        requestActiveInternal();
-                    } else {
-                        requestInactiveInternal();
-                    }
-                    break;
-            }
-        }
-
-    };
+    @NonNull
+    private final DeviceState mDeviceState = DeviceState.getInstance();
 
     public BatteryOutSwitch(
             @NonNull Context context,
@@ -71,21 +48,29 @@ public final class BatteryOutSwitch extends Switch.Optional {
 
     @Override
     public void onCreate() {
-        IntentFilter intentFilter = new IntentFilter();
-        intentFilter.addAction(Intent.ACTION_BATTERY_CHANGED);
-        Intent intent = getContext().registerReceiver(mReceiver, intentFilter);
-        mBatteryLevel = PowerUtils.getBatteryLevel(intent);
-        mBatteryPlugged = PowerUtils.isPlugged(intent);
+        mDeviceState.registerListener(this);
     }
 
     @Override
     public void onDestroy() {
-        getContext().unregisterReceiver(mReceiver);
+        mDeviceState.unregisterListener(this);
     }
 
     @Override
     public boolean isActiveInternal() {
-        return mBatteryPlugged || mBatteryLevel > BATTERY_LOW_LEVEL;
+        return mDeviceState.isPlugged() || mDeviceState.getBatteryLevel() > BATTERY_LOW_LEVEL;
+    }
+
+    @Override
+    public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+        if (what == DeviceState.STATE_BATTERY) {
+            // Update the state
+            if (isActiveInternal()) {
+                requestActiveInternal();
+            } else {
+                requestInactiveInternal();
+            }
+        }
     }
 
 }
@@ -18,37 +18,59 @@
  */
 package com.achep.acdisplay.services.switches;
 
+import android.annotation.SuppressLint;
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.os.SystemClock;
+import android.content.Intent;
+import android.content.IntentFilter;
 import androidx.annotation.NonNull;
 import android.util.Log;
 
 import com.achep.acdisplay.Config;
 import com.achep.acdisplay.InactiveTimeHelper;
 import com.achep.acdisplay.services.Switch;
+import com.achep.base.Device;
 import com.achep.base.content.ConfigBase;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import static com.achep.base.Build.DEBUG;
 
 /**
  * Prevents {@link com.achep.acdisplay.services.activemode.ActiveModeService} from listening to
  * sensors on inactive time (if corresponding option is enabled.)
+ * <p>
+ * The switch schedules a single alarm at the next start or end of the inactive
+ * time, and re-schedules it when the time or the time zone are changed.
  *
  * @author Artem Chepurnoy
  * @see com.achep.acdisplay.ui.fragments.settings.MoreSettings
  */
-// TODO: Implement event based inactive time handling.
 public final class InactiveTimeSwitch extends Switch implements
         ConfigBase.OnConfigChangedListener {
 
-    private static final int INACTIVE_HOURS_CHECK_PERIOD = 1000 * 60 * 5; // 5 min.
+    private static final String TAG = "InactiveTimeSwitch";
+
+    private static final String ACTION_TRANSITION = "com.achep.acdisplay.INACTIVE_TIME_TRANSITION";
 
     private final Config mConfig;
     private final ConfigBase.Option mOption;
-    private Timer mTimer;
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (DEBUG) Log.d(TAG, "On time event: action=" + intent.getAction());
+            updateState();
+        }
+    };
+
+    private PendingIntent mPendingIntent;
+    private boolean mRegistered;
+
+    /**
+     * The state that has been requested latest, or {@code null}
+     * if nothing has been requested.
+     */
+    private Boolean mInactive;
 
     public InactiveTimeSwitch(@NonNull Context context, @NonNull Callback callback,
                               @NonNull ConfigBase.Option option) {
@@ -66,11 +88,8 @@ public final class InactiveTimeSwitch extends Switch implements
     @Override
     public void onDestroy() {
         mConfig.unregisterListener(this);
-
-        if (mTimer != null) {
-            mTimer.cancel();
-            mTimer = null;
-        }
+        stopTracking();
+        mInactive = null;
     }
 
     @Override
@@ -79,49 +98,76 @@ public final class InactiveTimeSwitch extends Switch implements
     }
 
     private void updateState() {
-        if (mTimer != null) {
-            mTimer.cancel();
-            mTimer = null;
-        }
         if (isEnabled()) {
+            final long now = System.currentTimeMillis();
+            final int from = mConfig.getInactiveTimeFrom();
+            final int to = mConfig.getInactiveTimeTo();
+            startTracking(InactiveTimeHelper.getNextTransitionTime(from, to, now));
+            setInactive(InactiveTimeHelper.isInactiveTime(from, to, now));
+        } else {
+            stopTracking();
+            setInactive(false);
+        }
+    }
 
-            // Start a timer to monitor when inactive time
-            // will end or start. This is awful.
-            mTimer = new Timer();
-            mTimer.schedule(new TimerTask() {
-
-                private static final String TAG = "InactiveTimeTicker";
-
-                private boolean firstTick = true;
-                private boolean inactivePrev = false;
-
-                @Override
-                public void run() {
-                    boolean inactive = InactiveTimeHelper.isInactiveTime(mConfig);
-                    boolean changed = inactive != inactivePrev || firstTick;
-
-                    firstTick = false;
+    private void setInactive(boolean inactive) {
+        if (mInactive != null && mInactive == inactive) return;
+        mInactive = inactive;
 
-                    if (DEBUG)
-                        Log.d(TAG, "On timer tick: elapsed_real_time="
-                                + SystemClock.elapsedRealtime());
+        if (DEBUG) Log.d(TAG, "is_inactive_time=" + inactive);
+        if (inactive) {
+            requestInactive();
+        } else {
+            requestActive();
+        }
+    }
 
-                    if (changed) {
-                        inactivePrev = inactive;
+    /**
+     * Listens to the time changes and schedules the alarm
+     * at given time.
+     *
+     * @param time the wall clock time of the next transition, or {@code -1}
+     *             if there's none.
+     */
+    @SuppressLint("NewApi")
+    private void startTracking(long time) {
+        final Context context = getContext();
+        if (!mRegistered) {
+            mRegistered = true;
+            IntentFilter intentFilter = new IntentFilter();
+            intentFilter.addAction(ACTION_TRANSITION);
+            intentFilter.addAction(Intent.ACTION_TIME_CHANGED);
+            intentFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+            context.registerReceiver(mReceiver, intentFilter);
+        }
 
-                        if (DEBUG)
-                            Log.d(TAG, "is_inactive_time=" + inactive);
+        AlarmManager am = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (mPendingIntent == null) {
+            Intent intent = new Intent(ACTION_TRANSITION).setPackage(context.getPackageName());
+            mPendingIntent = PendingIntent.getBroadcast(context, 0, intent,
+                    PendingIntent.FLAG_UPDATE_CURRENT);
+        } else am.cancel(mPendingIntent);
+        if (time < 0) return;
+
+        if (DEBUG) Log.d(TAG, "Scheduling the transition: in="
+                + (time - System.currentTimeMillis()) / 1000 + "s");
+        if (Device.hasMarshmallowApi()) {
+            am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, time, mPendingIntent);
+        } else if (Device.hasKitKatApi()) {
+            am.setExact(AlarmManager.RTC_WAKEUP, time, mPendingIntent);
+        } else am.set(AlarmManager.RTC_WAKEUP, time, mPendingIntent);
+    }
 
-                        if (inactive) {
-                            requestInactive();
-                        } else {
-                            requestActive();
-                        }
-                    }
-                }
-            }, 0, INACTIVE_HOURS_CHECK_PERIOD);
-        } else {
-            requestActive();
+    private void stopTracking() {
+        final Context context = getContext();
+        if (mRegistered) {
+            mRegistered = false;
+            context.unregisterReceiver(mReceiver);
+        }
+        if (mPendingIntent != null) {
+            AlarmManager am = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            am.cancel(mPendingIntent);
+            mPendingIntent = null;
         }
     }
 
@@ -21,8 +21,7 @@ package com.achep.acdisplay.services.switches;
 import android.content.Context;
 import androidx.annotation.NonNull;
 
-import com.achep.acdisplay.notifications.NotificationPresenter;
-import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.acdisplay.DeviceState;
 import com.achep.acdisplay.services.Switch;
 import com.achep.base.content.ConfigBase;
 
@@ -35,10 +34,10 @@ import com.achep.base.content.ConfigBase;
  * @see com.achep.acdisplay.ui.fragments.settings.KeyguardSettings
  */
 public final class NoNotifiesSwitch extends Switch.Optional implements
-        NotificationPresenter.OnNotificationListChangedListener {
+        DeviceState.OnDeviceStateChangedListener {
 
-    private NotificationPresenter mNotificationPresenter;
-    private boolean mTriggerCallPending;
+    @NonNull
+    private final DeviceState mDeviceState = DeviceState.getInstance();
 
     public NoNotifiesSwitch(
             @NonNull Context context,
@@ -50,43 +49,29 @@ public final class NoNotifiesSwitch extends Switch.Optional implements
     @Override
     public void onCreate() {
         super.onCreate();
-        mNotificationPresenter = NotificationPresenter.getInstance();
-        mNotificationPresenter.registerListener(this);
+        mDeviceState.registerListener(this);
     }
 
     @Override
     public void onDestroy() {
-        mNotificationPresenter.unregisterListener(this);
+        mDeviceState.unregisterListener(this);
         super.onDestroy();
     }
 
     @Override
     public boolean isActiveInternal() {
-        return !mNotificationPresenter.isEmpty();
+        return mDeviceState.getNotificationCount() > 0;
     }
 
     @Override
-    public void onNotificationListChanged(@NonNull NotificationPresenter np,
-                                          OpenNotification osbn,
-                                          int event, boolean isLastEventInSequence) {
-        if (event == NotificationPresenter.EVENT_BATH
-                || event == NotificationPresenter.EVENT_POSTED
-                || event == NotificationPresenter.EVENT_REMOVED) {
-            if (isLastEventInSequence) {
-                triggerNotification();
-            } else mTriggerCallPending = true;
-        } else if (isLastEventInSequence && mTriggerCallPending) {
-            triggerNotification();
-        }
-    }
-
-    private void triggerNotification() {
-        mTriggerCallPending = false;
-        // Update the state
-        if (isActiveInternal()) {
-            requestActiveInternal();
-        } else {
-            requestInactiveInternal();
+    public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+        if (what == DeviceState.STATE_NOTIFICATIONS) {
+            // Update the state
+            if (isActiveInternal()) {
+                requestActiveInternal();
+            } else {
+                requestInactiveInternal();
+            }
         }
     }
 
@@ -19,39 +19,27 @@
 package com.achep.acdisplay.services.switches;
 
 import android.content.Context;
-import android.os.Handler;
 import androidx.annotation.NonNull;
-import android.telephony.PhoneStateListener;
-import android.telephony.TelephonyManager;
 
+import com.achep.acdisplay.DeviceState;
 import com.achep.acdisplay.services.Switch;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
-
 /**
  * Prevents {@link com.achep.acdisplay.services.SwitchService} from working
  * while an phone app is calling.
  *
  * @author Artem Chepurnoy
  */
-public final class PhoneCallSwitch extends Switch {
+public final class PhoneCallSwitch extends Switch implements
+        DeviceState.OnDeviceStateChangedListener {
 
     private static final String TAG = "PhoneCallSwitch";
 
     @NonNull
-    private final CallMonitor mCallMonitor;
+    private final DeviceState mDeviceState = DeviceState.getInstance();
 
     public PhoneCallSwitch(@NonNull Context context, @NonNull Callback callback) {
         super(context, callback);
-        mCallMonitor = new CallMonitor(context, new CallMonitor.OnCallStateChangedListener() {
-            @Override
-            public void onCallStateChanged(int state) {
-                if (isActive()) {
-                    requestActive();
-                } else requestInactive();
-            }
-        });
     }
 
     /**
@@ -59,7 +47,7 @@ public final class PhoneCallSwitch extends Switch {
      */
     @Override
     public void onCreate() {
-        mCallMonitor.start();
+        mDeviceState.registerListener(this);
     }
 
     /**
@@ -67,7 +55,7 @@ public final class PhoneCallSwitch extends Switch {
      */
     @Override
     public void onDestroy() {
-        mCallMonitor.stop();
+        mDeviceState.unregisterListener(this);
     }
 
     /**
@@ -75,130 +63,23 @@ public final class PhoneCallSwitch extends Switch {
      */
     @Override
     public boolean isActive() {
-        return !mCallMonitor.isCalling();
+        return !isCalling();
     }
 
     /**
      * @return whether if the phone is calling now
      */
     public boolean isCalling() {
-        return mCallMonitor.isCalling();
+        return mDeviceState.isCalling();
     }
 
-    /**
-     * @author Artem Chepurnoy
-     */
-    private static class CallMonitor {
-
-        private boolean mStarted;
-
-        /**
-         * @author Artem Chepurnoy
-         */
-        public interface OnCallStateChangedListener {
-
-            /**
-             * Callback invoked when device call state changes.
-             */
-            void onCallStateChanged(int state);
-
-        }
-
-        @NonNull
-        private final Context mContext;
-        @NonNull
-        private final Handler mHandler;
-        @NonNull
-        private final OnCallStateChangedListener mCallback;
-
-        private Listener mListener;
-        private TelephonyManager mTelephonyManager;
-
-        public CallMonitor(
-                @NonNull Context context,
-                @NonNull OnCallStateChangedListener listener) {
-            mContext = context;
-            mCallback = listener;
-            mHandler = new Handler();
-            mListener = new Listener(this);
-        }
-
-        public void start() {
-            mStarted = true;
-            mTelephonyManager = (TelephonyManager) mContext.getSystemService(Context.TELEPHONY_SERVICE);
-            mTelephonyManager.listen(mListener, PhoneStateListener.LISTEN_CALL_STATE);
-        }
-
-        public void stop() {
-            mTelephonyManager.listen(mListener, PhoneStateListener.LISTEN_NONE);
-            mTelephonyManager = null;
-            mStarted = false;
-        }
-
-        /**
-         * @return the current call state.
-         * @see #isCalling()
-         */
-        public int getCallState() {
-            return mListener.getCallState();
-        }
-
-        /**
-         * @return whether if the phone is calling now
-         * @see #getCallState()
-         */
-        public boolean isCalling() {
-            final int state = getCallState();
-            return state == TelephonyManager.CALL_STATE_RINGING
-                    || state == TelephonyManager.CALL_STATE_OFFHOOK;
-        }
-
-        private void notifyCallStateChanged(final int state) {
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    if (mStarted) mCallback.onCallStateChanged(state);
-                }
-            });
-        }
-
-        /**
-         * @author Artem Chepurnoy
-         */
-        private static class Listener extends PhoneStateListener {
-
-            @NonNull
-            private final Reference<CallMonitor> mCallHandlerRef;
-
-            /**
-             * The current call state.
-             */
-            private int mState;
-
-            public Listener(@NonNull CallMonitor callStateListener) {
-                mCallHandlerRef = new WeakReference<>(callStateListener);
-                mState = TelephonyManager.CALL_STATE_IDLE;
-            }
-
-            @Override
-            public void onCallStateChanged(int state, String incomingNumber) {
-                super.onCallStateChanged(state, incomingNumber);
-                if (mState == state) return;
-                mState = state;
-                // Notify the call handler
-                CallMonitor callStateListener = mCallHandlerRef.get();
-                if (callStateListener != null) callStateListener.notifyCallStateChanged(state);
-            }
-
-            /**
-             * @return the current call state.
-             */
-            public int getCallState() {
-                return mState;
-            }
-
+    @Override
+    public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+        if (what == DeviceState.STATE_CALL) {
+            if (isActive()) {
+                requestActive();
+            } else requestInactive();
         }
-
     }
 
 }
@@ -18,14 +18,11 @@
  */
 package com.achep.acdisplay.services.switches;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import androidx.annotation.NonNull;
 
+import com.achep.acdisplay.DeviceState;
 import com.achep.acdisplay.services.Switch;
-import com.achep.base.utils.power.PowerUtils;
 
 /**
  * Prevents {@link com.achep.acdisplay.services.SwitchService} from working
@@ -33,23 +30,11 @@ import com.achep.base.utils.power.PowerUtils;
  *
  * @author Artem Chepurnoy
  */
-public final class ScreenOffSwitch extends Switch {
+public final class ScreenOffSwitch extends Switch implements
+        DeviceState.OnDeviceStateChangedListener {
 
-    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
-
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            switch (intent.getAction()) {
-                case Intent.ACTION_SCREEN_ON:
-                    requestInactive();
-                    break;
-                case Intent.ACTION_SCREEN_OFF:
-                    requestActive();
-                    break;
-            }
-        }
-
-    };
+    @NonNull
+    private final DeviceState mDeviceState = DeviceState.getInstance();
 
     public ScreenOffSwitch(@NonNull Context context, @NonNull Callback callback) {
         super(context, callback);
@@ -57,21 +42,26 @@ public final class ScreenOffSwitch extends Switch {
 
     @Override
     public void onCreate() {
-        IntentFilter intentFilter = new IntentFilter();
-        intentFilter.addAction(Intent.ACTION_SCREEN_ON);
-        intentFilter.addAction(Intent.ACTION_SCREEN_OFF);
-        intentFilter.setPriority(IntentFilter.SYSTEM_HIGH_PRIORITY - 1);
-        getContext().registerReceiver(mReceiver, intentFilter);
+        mDeviceState.registerListener(this);
     }
 
     @Override
     public void onDestroy() {
-        getContext().unregisterReceiver(mReceiver);
+        mDeviceState.unregisterListener(this);
     }
 
     @Override
     public boolean isActive() {
-        return !PowerUtils.isScreenOn(getContext());
+        return !mDeviceState.isScreenOn();
+    }
+
+    @Override
+    public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+        if (what == DeviceState.STATE_SCREEN) {
+            if (state.isScreenOn()) {
+                requestInactive();
+            } else requestActive();
+        }
     }
 
 }
@@ -23,8 +23,7 @@ import android.os.Handler;
 import android.os.SystemClock;
 import androidx.annotation.NonNull;
 
-import com.achep.acdisplay.notifications.NotificationPresenter;
-import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.acdisplay.DeviceState;
 import com.achep.acdisplay.services.Switch;
 import com.achep.base.content.ConfigBase;
 
@@ -34,12 +33,12 @@ import com.achep.base.content.ConfigBase;
  * @see com.achep.acdisplay.ui.fragments.settings.KeyguardSettings
  */
 public final class WeakNotifiesSwitch extends Switch.Optional implements
-        NotificationPresenter.OnNotificationListChangedListener {
+        DeviceState.OnDeviceStateChangedListener {
 
     private static final int DURATION = 20 * 1000; // 20 sec.
 
-    private NotificationPresenter mNotificationPresenter;
-    private boolean mTriggerCallPending;
+    @NonNull
+    private final DeviceState mDeviceState = DeviceState.getInstance();
     private long mTriggerTimestamp;
 
     @NonNull
@@ -62,13 +61,13 @@ public final class WeakNotifiesSwitch extends Switch.Optional implements
     @Override
     public void onCreate() {
         super.onCreate();
-        mNotificationPresenter = NotificationPresenter.getInstance();
-        mNotificationPresenter.registerListener(this);
+        mDeviceState.registerListener(this);
     }
 
     @Override
     public void onDestroy() {
-        mNotificationPresenter.unregisterListener(this);
+        mDeviceState.unregisterListener(this);
+        mHandler.removeCallbacks(mRunnable);
         super.onDestroy();
     }
 
@@ -78,21 +77,15 @@ public final class WeakNotifiesSwitch extends Switch.Optional implements
     }
 
     @Override
-    public void onNotificationListChanged(@NonNull NotificationPresenter np,
-                                          OpenNotification osbn,
-                                          int event, boolean isLastEventInSequence) {
-        if (event != NotificationPresenter.EVENT_REMOVED) {
-            if (isLastEventInSequence) {
-                triggerNotification();
-            } else mTriggerCallPending = true;
-        } else if (isLastEventInSequence && mTriggerCallPending) {
-            triggerNotification();
+    public void onDeviceStateChanged(@NonNull DeviceState state, int what) {
+        if (what == DeviceState.STATE_NOTIFICATIONS
+                && state.getNotificationTime() != mTriggerTimestamp) {
+            triggerNotification(state.getNotificationTime());
         }
     }
 
-    private void triggerNotification() {
-        mTriggerCallPending = false;
-        mTriggerTimestamp = SystemClock.elapsedRealtime();
+    private void triggerNotification(long time) {
+        mTriggerTimestamp = time;
         mHandler.removeCallbacks(mRunnable);
         mHandler.postDelayed(mRunnable, DURATION);
     }
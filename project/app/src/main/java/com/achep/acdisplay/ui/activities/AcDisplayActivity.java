@@ -25,8 +25,8 @@ import androidx.fragment.app.FragmentTransaction;
 
 import com.achep.acdisplay.Presenter;
 import com.achep.acdisplay.R;
-import com.achep.acdisplay.Timeout;
 import com.achep.acdisplay.ui.fragments.PocketFragment;
+import com.achep.base.Timeout;
 
 /**
  * Created by Artem on 25.01.14.
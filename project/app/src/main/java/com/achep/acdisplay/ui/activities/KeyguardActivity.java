@@ -36,10 +36,10 @@ import android.view.WindowManager;
 
 import com.achep.acdisplay.App;
 import com.achep.acdisplay.R;
-import com.achep.acdisplay.Timeout;
 import com.achep.acdisplay.services.KeyguardService;
 import com.achep.acdisplay.ui.activities.base.BaseActivity;
 import com.achep.base.Device;
+import com.achep.base.Timeout;
 import com.achep.base.tests.Check;
 import com.achep.base.utils.KeyguardUtils;
 import com.achep.base.utils.ToastUtils;
@@ -132,12 +132,12 @@ public abstract class KeyguardActivity extends BaseActivity implements
             mTimeoutPaused = false;
 
             mTimeout.resume();
-            mTimeout.setTimeoutDelayed(timeoutDelay, true);
+            mTimeout.set(timeoutDelay, true);
         } else {
             getWindow().clearFlags(windowFlags);
 
             mTimeoutPaused = true;
-            mTimeout.setTimeoutDelayed(timeoutDelay, true);
+            mTimeout.set(timeoutDelay, true);
             mTimeout.pause();
         }
     }
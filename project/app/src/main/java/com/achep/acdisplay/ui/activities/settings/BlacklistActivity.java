@@ -19,17 +19,20 @@
 package com.achep.acdisplay.ui.activities.settings;
 
 import android.app.Activity;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
-import android.os.AsyncTask;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.SystemClock;
 import android.preference.Preference;
@@ -38,6 +41,7 @@ import android.preference.PreferenceFragment;
 import androidx.annotation.NonNull;
 import android.text.TextUtils;
 import android.util.Log;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -51,18 +55,25 @@ import android.widget.TextView;
 
 import com.achep.acdisplay.R;
 import com.achep.acdisplay.blacklist.AppConfig;
+import com.achep.acdisplay.blacklist.AppLabelCache;
 import com.achep.acdisplay.blacklist.Blacklist;
 import com.achep.acdisplay.ui.fragments.BlacklistAppFragment;
+import com.achep.base.async.AppExecutors;
+import com.achep.base.async.AsyncTask;
 import com.achep.base.utils.MathUtils;
 import com.achep.base.utils.ResUtils;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Top-level settings activity to handle single pane and double pane UI layout.
@@ -90,6 +101,19 @@ public class BlacklistActivity extends PreferenceActivity {
     // preferences
     private static final String PREF_KEY_SHOW_SYSTEM_APPS = "show_system_apps";
 
+    /**
+     * How often the loaded apps are published to the list.
+     */
+    private static final int BATCH_PERIOD = 200; // ms.
+
+    private static final Comparator<AppEntry> APP_COMPARATOR = new Comparator<AppEntry>() {
+        @Override
+        public int compare(AppEntry app1, AppEntry app2) {
+            final int result = app1.label.compareToIgnoreCase(app2.label);
+            return result != 0 ? result : app1.packageName.compareTo(app2.packageName);
+        }
+    };
+
     private String mFragmentClass;
     private int mTopLevelHeaderId;
     private Header mFirstHeader;
@@ -101,9 +125,43 @@ public class BlacklistActivity extends PreferenceActivity {
 
     private SharedPreferences mPreferences;
 
+    /**
+     * Installed apps, sorted by their labels.
+     */
+    private final ArrayList<AppEntry> mApps = new ArrayList<>();
+    private final ArrayList<LoadAppsTask> mLoadAppsTasks = new ArrayList<>();
+    private AppLabelCache mLabelCache;
+    private int mNextAppId = 1;
+    private boolean mPackageReceiverRegistered;
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data == null) return;
+
+            String packageName = data.getSchemeSpecificPart();
+            switch (intent.getAction()) {
+                case Intent.ACTION_PACKAGE_ADDED:
+                    // Also sent after updating the app, so the old entry
+                    // will be replaced.
+                    loadApps(packageName);
+                    break;
+                case Intent.ACTION_PACKAGE_REMOVED:
+                    if (!intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+                        removeApp(packageName);
+                    }
+                    break;
+            }
+        }
+
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         mPreferences = getSharedPreferences(Blacklist.PREF_NAME, Activity.MODE_PRIVATE);
+        mLabelCache = new AppLabelCache(this);
 
         getMetaData();
         mInLocalHeaderSwitch = true;
@@ -143,6 +201,34 @@ public class BlacklistActivity extends PreferenceActivity {
             getActionBar().setDisplayHomeAsUpEnabled(false);
             getActionBar().setHomeButtonEnabled(false);
         }
+
+        if (!onIsHidingHeaders()) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addDataScheme("package");
+            registerReceiver(mPackageReceiver, filter);
+            mPackageReceiverRegistered = true;
+
+            loadApps();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mPackageReceiverRegistered) {
+            unregisterReceiver(mPackageReceiver);
+            mPackageReceiverRegistered = false;
+        }
+
+        for (LoadAppsTask task : mLoadAppsTasks) task.cancel();
+        mLoadAppsTasks.clear();
+
+        ListAdapter listAdapter = getListAdapter();
+        if (listAdapter instanceof HeaderAdapter) {
+            ((HeaderAdapter) listAdapter).stop();
+        }
+        super.onDestroy();
     }
 
     @Override
@@ -192,53 +278,175 @@ public class BlacklistActivity extends PreferenceActivity {
         return mPreferences.getBoolean(PREF_KEY_SHOW_SYSTEM_APPS, false);
     }
 
-    private void updateIcons() {
+    /**
+     * Loads given apps in background, or all installed apps if
+     * none are specified.
+     */
+    private void loadApps(@NonNull String... packageNames) {
+        LoadAppsTask task = new LoadAppsTask(packageNames.length == 0 ? null : packageNames);
+        mLoadAppsTasks.add(task);
+        task.executeOnExecutor(AppExecutors.io());
+    }
+
+    /**
+     * Puts the app to the sorted list of apps, replacing the
+     * previous entry of this package.
+     */
+    private void putApp(@NonNull AppEntry app) {
+        removeAppEntry(app.packageName);
+
+        Header header = new Header();
+        header.fragment = BlacklistAppFragment.class.getCanonicalName();
+        header.title = app.label;
+        header.summary = app.packageName;
+        header.id = MathUtils.bool(app.system) | mNextAppId++ << 1; // Store if system app to id
+
+        // Add package name for the fragment
+        Bundle args = new Bundle();
+        args.putString(BlacklistAppFragment.ARGS_PACKAGE_NAME, app.packageName);
+        header.fragmentArguments = args;
+        app.header = header;
+
+        int i = Collections.binarySearch(mApps, app, APP_COMPARATOR);
+        mApps.add(i < 0 ? -i - 1 : i, app);
+    }
+
+    private void removeApp(@NonNull String packageName) {
+        removeAppEntry(packageName);
+        mLabelCache.remove(packageName);
+        mLabelCache.save();
+        invalidateHeaders();
+    }
+
+    private void removeAppEntry(@NonNull String packageName) {
+        for (int i = mApps.size() - 1; i >= 0; i--) {
+            if (mApps.get(i).packageName.equals(packageName)) {
+                mApps.remove(i);
+                break;
+            }
+        }
+
         ListAdapter listAdapter = getListAdapter();
         if (listAdapter instanceof HeaderAdapter) {
-            ((HeaderAdapter) listAdapter).loadIcons();
+            ((HeaderAdapter) listAdapter).removeIcon(packageName);
         }
     }
 
     /**
-     * Fills header list with a list of installed apps.
+     * An installed application.
      */
-    private void buildHeaderList(List<Header> headers, boolean showSystemApps) {
-        String fragmentName = BlacklistAppFragment.class.getCanonicalName();
-        int id = 1;
-
-        PackageManager pm = getPackageManager();
-        List<ApplicationInfo> packages = pm.getInstalledApplications(PackageManager.GET_META_DATA);
-        for (ApplicationInfo app : packages) {
-            int systemFlag = ApplicationInfo.FLAG_SYSTEM | ApplicationInfo.FLAG_UPDATED_SYSTEM_APP;
-            int system = MathUtils.bool((app.flags & systemFlag) != 0);
-
-            if (system == 1 && !showSystemApps) {
-                continue;
-            }
+    private static class AppEntry {
 
-            Header header = new Header();
-            header.fragment = fragmentName;
-            header.title = app.loadLabel(pm); // TODO: This is a huge operation
-            header.summary = app.packageName;
-            header.id = system | id++ << 1; // Store if system app to id
+        @NonNull
+        final String packageName;
+        @NonNull
+        final String label;
+        final boolean system;
 
-            // Add package name for the fragment
-            Bundle args = new Bundle();
-            args.putString(BlacklistAppFragment.ARGS_PACKAGE_NAME, app.packageName);
-            header.fragmentArguments = args;
+        /**
+         * The header of the app; created when the app is
+         * {@link #putApp(AppEntry) put} to the list.
+         */
+        Header header;
 
-            headers.add(header);
+        AppEntry(@NonNull String packageName, @NonNull String label, boolean system) {
+            this.packageName = packageName;
+            this.label = label;
+            this.system = system;
         }
 
-        // Sort by app name
-        Collections.sort(headers, new Comparator<Header>() {
-            @Override
-            public int compare(Header header1, Header header2) {
-                String title1 = header1.title.toString();
-                String title2 = header2.title.toString();
-                return title1.compareToIgnoreCase(title2);
+    }
+
+    /**
+     * An asynchronous task to load the labels of the installed applications.
+     * Labels are taken from the {@link AppLabelCache cache} if the app has not
+     * been updated since, and the apps are published in sorted batches, so the
+     * list fills up gradually.
+     */
+    private class LoadAppsTask extends AsyncTask<Void, AppEntry, Void> {
+
+        /**
+         * Packages to load, or {@code null} to load all installed apps.
+         */
+        private final String[] mPackageNames;
+        private final PackageManager mPackageManager;
+
+        public LoadAppsTask(String[] packageNames) {
+            mPackageNames = packageNames;
+            mPackageManager = getPackageManager();
+        }
+
+        @Override
+        protected Void doInBackground(Void... params) {
+            List<PackageInfo> packages;
+            if (mPackageNames == null) {
+                packages = mPackageManager.getInstalledPackages(0);
+            } else {
+                packages = new ArrayList<>(mPackageNames.length);
+                for (String packageName : mPackageNames) {
+                    try {
+                        packages.add(mPackageManager.getPackageInfo(packageName, 0));
+                    } catch (NameNotFoundException e) {
+                        // ignored; the app has been removed
+                    }
+                }
+            }
+
+            ArrayList<AppEntry> batch = new ArrayList<>();
+            HashSet<String> packageNames = new HashSet<>();
+            long time = SystemClock.uptimeMillis();
+            for (PackageInfo pi : packages) {
+                if (isCancelled()) break;
+                ApplicationInfo app = pi.applicationInfo;
+                if (app == null) continue;
+
+                String label = mLabelCache.get(pi.packageName, pi.lastUpdateTime);
+                if (label == null) {
+                    label = app.loadLabel(mPackageManager).toString(); // This is a huge operation
+                    mLabelCache.put(pi.packageName, pi.lastUpdateTime, label);
+                }
+
+                int systemFlag = ApplicationInfo.FLAG_SYSTEM | ApplicationInfo.FLAG_UPDATED_SYSTEM_APP;
+                boolean system = (app.flags & systemFlag) != 0;
+                batch.add(new AppEntry(pi.packageName, label, system));
+                packageNames.add(pi.packageName);
+
+                long now = SystemClock.uptimeMillis();
+                if (now - time > BATCH_PERIOD) {
+                    publishBatch(batch);
+                    time = now;
+                }
             }
-        });
+            publishBatch(batch);
+
+            if (mPackageNames == null && !isCancelled()) {
+                // Forget the labels of uninstalled apps.
+                mLabelCache.retainAll(packageNames);
+            }
+            mLabelCache.save();
+            return null;
+        }
+
+        private void publishBatch(@NonNull ArrayList<AppEntry> batch) {
+            if (batch.isEmpty()) return;
+            AppEntry[] apps = batch.toArray(new AppEntry[batch.size()]);
+            Arrays.sort(apps, APP_COMPARATOR);
+            batch.clear();
+            publishProgress(apps);
+        }
+
+        @Override
+        protected void onProgressUpdate(AppEntry... apps) {
+            for (AppEntry app : apps) putApp(app);
+            invalidateHeaders();
+        }
+
+        @Override
+        protected void onPostExecute(Void aVoid) {
+            super.onPostExecute(aVoid);
+            mLoadAppsTasks.remove(this);
+        }
+
     }
 
     @Override
@@ -385,9 +593,11 @@ public class BlacklistActivity extends PreferenceActivity {
     @Override
     public void onBuildHeaders(List<Header> headers) {
         if (!onIsHidingHeaders()) {
-            buildHeaderList(headers, shouldShowSystemApps());
+            final boolean showSystemApps = shouldShowSystemApps();
+            for (AppEntry app : mApps) {
+                if (showSystemApps || !app.system) headers.add(app.header);
+            }
             updateHeaderList(headers);
-            updateIcons();
         }
     }
 
@@ -443,15 +653,25 @@ public class BlacklistActivity extends PreferenceActivity {
 
         private static final int HEADER_TYPE_COUNT = 2;
 
+        private static final int ICON_CACHE_SIZE = 64;
+
         private final Context mContext;
         private final LayoutInflater mInflater;
 
         private final PackageManager mPackageManager;
         private final Drawable mDefaultImg;
-        private final List<Header> mHeaders;
-        private LoadIconsTask mLoadIconsTask;
 
-        private final ConcurrentHashMap<String, Drawable> mIcons;
+        /**
+         * Icons of the recently shown apps.
+         */
+        private final LruCache<String, Drawable> mIcons;
+
+        /**
+         * Packages of the visible rows that are waiting for their icons.
+         * Guarded by itself.
+         */
+        private final LinkedHashSet<String> mIconQueue;
+        private LoadIconsTask mLoadIconsTask;
 
         static int getHeaderType(Header header) {
             if (header.fragment == null && header.intent == null) {
@@ -493,21 +713,20 @@ public class BlacklistActivity extends PreferenceActivity {
             mContext = context;
             mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
             mPackageManager = context.getPackageManager();
-            mHeaders = headers;
 
             // Set the default icon till the actual app icon is loaded in async task
             //noinspection ResourceType
             mDefaultImg = ResUtils.getDrawable(context, android.R.mipmap.sym_def_app_icon);
 
-            mIcons = new ConcurrentHashMap<>();
-
-            loadIcons();
+            mIcons = new LruCache<>(ICON_CACHE_SIZE);
+            mIconQueue = new LinkedHashSet<>();
         }
 
         private static class Holder {
             ImageView icon;
             TextView title;
             TextView summary;
+            String packageName;
         }
 
         @Override
@@ -600,7 +819,17 @@ public class BlacklistActivity extends PreferenceActivity {
                         holder.summary.setVisibility(View.GONE);
                     }
 
+                    if (holder.packageName != null && !holder.packageName.equals(packageName)) {
+                        // The row has been recycled, so its previous
+                        // icon is not needed anymore.
+                        synchronized (mIconQueue) {
+                            mIconQueue.remove(holder.packageName);
+                        }
+                    }
+                    holder.packageName = packageName;
+
                     Drawable icon = mIcons.get(packageName);
+                    if (icon == null) requestIcon(packageName);
                     holder.icon.setImageDrawable(icon != null ? icon : mDefaultImg);
                     holder.title.setText(header.title != null ? header.title : packageName);
                     break;
@@ -610,64 +839,75 @@ public class BlacklistActivity extends PreferenceActivity {
         }
 
         /**
-         * Update the list of apps' icons
+         * Queues loading the icon of given app.
          */
-        public void loadIcons() {
-            if (mLoadIconsTask != null && !mLoadIconsTask.getStatus()
-                    .equals(AsyncTask.Status.FINISHED)) {
-                mLoadIconsTask.cancel = true;
-                mLoadIconsTask.cancel(false);
+        private void requestIcon(@NonNull String packageName) {
+            synchronized (mIconQueue) {
+                mIconQueue.add(packageName);
+                if (mLoadIconsTask == null) {
+                    mLoadIconsTask = new LoadIconsTask();
+                    mLoadIconsTask.executeOnExecutor(AppExecutors.image());
+                }
             }
-            mLoadIconsTask = new LoadIconsTask();
-            mLoadIconsTask.execute(mHeaders.toArray(new Header[mHeaders.size()]));
         }
 
         /**
-         * An asynchronous task to load the icons & titles of the installed applications.
+         * Drops the cached icon of given app, for example
+         * after it has been updated.
+         */
+        public void removeIcon(@NonNull String packageName) {
+            mIcons.remove(packageName);
+        }
+
+        /**
+         * Stops loading the icons.
          */
-        // TODO: Maybe use SoftReference<> to save some memory.
-        private class LoadIconsTask extends AsyncTask<Header, Void, Void> {
+        public void stop() {
+            synchronized (mIconQueue) {
+                mIconQueue.clear();
+                AsyncTask.stop(mLoadIconsTask);
+                mLoadIconsTask = null;
+            }
+        }
 
-            private volatile long time;
-            private volatile boolean cancel;
+        /**
+         * An asynchronous task to load the icons of the visible rows.
+         */
+        private class LoadIconsTask extends AsyncTask<Void, Object, Void> {
 
             @Override
-            protected Void doInBackground(Header... headers) {
-                for (Header header : headers) {
-                    try {
-                        if (cancel) return null;
-
-                        String packageName = "" + header.summary;
-                        if (mIcons.containsKey(packageName)) {
-                            continue;
+            protected Void doInBackground(Void... params) {
+                while (!isCancelled()) {
+                    final String packageName;
+                    synchronized (mIconQueue) {
+                        Iterator<String> iterator = mIconQueue.iterator();
+                        if (!iterator.hasNext()) {
+                            mLoadIconsTask = null;
+                            return null;
                         }
 
-                        ApplicationInfo app = mPackageManager.getApplicationInfo(packageName, 0);
-                        Drawable icon = mPackageManager.getApplicationIcon(app.packageName);
-                        mIcons.put(app.packageName, icon);
+                        packageName = iterator.next();
+                        iterator.remove();
+                    }
 
-                        long now = SystemClock.uptimeMillis();
-                        if (now - time > 500) {
-                            publishProgress();
-                            time = now;
-                        }
+                    Drawable icon;
+                    try {
+                        icon = mPackageManager.getApplicationIcon(packageName);
                     } catch (NameNotFoundException e) {
-                        // ignored; app will show up with default image & title
+                        // ignored; app will show up with default image
+                        icon = mDefaultImg;
                     }
+                    publishProgress(packageName, icon);
                 }
                 return null;
             }
 
             @Override
-            protected void onProgressUpdate(Void... progress) {
+            protected void onProgressUpdate(Object... progress) {
+                mIcons.put((String) progress[0], (Drawable) progress[1]);
                 notifyDataSetChanged();
             }
 
-            @Override
-            protected void onPostExecute(Void aVoid) {
-                super.onPostExecute(aVoid);
-                notifyDataSetChanged();
-            }
         }
     }
 
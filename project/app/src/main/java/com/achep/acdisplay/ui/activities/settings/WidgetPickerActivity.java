@@ -38,7 +38,6 @@ import com.achep.acdisplay.Config;
 import com.achep.acdisplay.R;
 import com.achep.acdisplay.appwidget.MyAppWidgetHost;
 import com.achep.acdisplay.appwidget.MyAppWidgetHostView;
-import com.achep.acdisplay.ui.components.HostWidget;
 import com.achep.base.Device;
 import com.achep.base.content.ConfigBase;
 import com.achep.base.tests.Check;
@@ -129,7 +128,7 @@ public class WidgetPickerActivity extends ActivityBase implements
 
         mAppWidgetManager = AppWidgetManager.getInstance(this);
         mHostContainer = (ViewGroup) findViewById(R.id.appwidget_container);
-        mAppWidgetHost = new MyAppWidgetHost(this, HostWidget.HOST_ID);
+        mAppWidgetHost = MyAppWidgetHost.getInstance(this);
 
         initSwitchBar();
         initSeekBars();
@@ -168,7 +167,7 @@ public class WidgetPickerActivity extends ActivityBase implements
     @Override
     public void onStart() {
         super.onStart();
-        mAppWidgetHost.startListening();
+        mAppWidgetHost.acquire();
         updateAppWidgetViewIfNeeded();
     }
 
@@ -194,10 +193,10 @@ public class WidgetPickerActivity extends ActivityBase implements
 
     @Override
     public void onStop() {
-        mAppWidgetHost.stopListening();
+        mAppWidgetHost.release();
         mHostViewNeedsReInflate = true;
-        // Stopping listening removes all active views from it,
-        // so we will have to re-inflate them.
+        // The lock screen shares the host with us and may take the
+        // app widget over, so we will have to re-bind the view.
         super.onStop();
     }
 
@@ -21,7 +21,6 @@ package com.achep.acdisplay.ui.components;
 import android.app.Activity;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProviderInfo;
-import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import androidx.annotation.NonNull;
@@ -56,22 +55,21 @@ public class HostWidget extends Widget implements ConfigBase.OnConfigChangedList
     private final AppWidgetManager mAppWidgetManager;
     private final MyAppWidgetHost mAppWidgetHost;
     private MyAppWidgetHostView mHostView;
+    private int mHostViewId;
     private ViewGroup mHostContainer;
     private View mEmptyView;
 
-    private boolean mHostViewNeedsReInflate;
-
     public HostWidget(@NonNull Callback callback, @NonNull AcDisplayFragment fragment) {
         super(callback, fragment);
         Activity activity = fragment.getActivity();
         mAppWidgetManager = AppWidgetManager.getInstance(activity);
-        mAppWidgetHost = new MyAppWidgetHost(activity, HOST_ID);
+        mAppWidgetHost = MyAppWidgetHost.getInstance(activity);
     }
 
     @Override
     public void onStart() {
         super.onStart();
-        mAppWidgetHost.startListening();
+        mAppWidgetHost.acquire();
         getConfig().registerListener(this);
         updateAppWidgetViewIfNeeded();
     }
@@ -85,10 +83,9 @@ public class HostWidget extends Widget implements ConfigBase.OnConfigChangedList
     @Override
     public void onStop() {
         getConfig().unregisterListener(this);
-        mAppWidgetHost.stopListening();
-        mHostViewNeedsReInflate = true;
-        // Stopping listening removes all active views from it,
-        // so we will have to re-inflate them.
+        // The host keeps listening for a while, so the next
+        // start may reuse the view as it is.
+        mAppWidgetHost.release();
         super.onStop();
     }
 
@@ -145,16 +142,20 @@ public class HostWidget extends Widget implements ConfigBase.OnConfigChangedList
             if (mHostView != null) {
                 ViewUtils.removeViewParent(mHostView);
                 mEmptyView.setVisibility(View.VISIBLE);
-
-                mHostViewNeedsReInflate = false;
+                mAppWidgetHost.dropView();
                 mHostView = null;
             }
             return;
         }
 
-        Context context = getFragment().getActivity();
-        if (mHostView == null) {
-            mHostView = new MyAppWidgetHostView(context);
+        AppWidgetProviderInfo appWidget = mAppWidgetManager.getAppWidgetInfo(id);
+        MyAppWidgetHostView view = mAppWidgetHost.obtainView(id, appWidget);
+        if (mHostView != view || view.getParent() != mHostContainer) {
+            // Move the cached view here; it may still be attached to
+            // the previous activity.
+            if (mHostView != null && mHostView != view) ViewUtils.removeViewParent(mHostView);
+            if (view.getParent() != null) ViewUtils.removeViewParent(view);
+            mHostView = view;
             updateAppWidgetTouchable();
 
             LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
@@ -163,10 +164,8 @@ public class HostWidget extends Widget implements ConfigBase.OnConfigChangedList
                     Gravity.CENTER_HORIZONTAL);
             mHostContainer.addView(mHostView, lp);
             mEmptyView.setVisibility(View.GONE);
-        } else if (!mHostViewNeedsReInflate && mHostView.getAppWidgetId() == id) return;
-        AppWidgetProviderInfo appWidget = mAppWidgetManager.getAppWidgetInfo(id);
-        mAppWidgetHost.updateView(context, id, appWidget, mHostView);
-        mHostViewNeedsReInflate = false;
+        } else if (mHostViewId == id) return;
+        mHostViewId = id;
         updateAppWidgetFrameSize();
     }
 
@@ -199,7 +198,6 @@ public class HostWidget extends Widget implements ConfigBase.OnConfigChangedList
                                 @NonNull Object value) {
         switch (key) {
             case Config.KEY_UI_CUSTOM_WIDGET_ID:
-                mHostViewNeedsReInflate = true;
                 updateAppWidgetViewIfNeeded();
                 break;
             case Config.KEY_UI_CUSTOM_WIDGET_WIDTH_DP:
@@ -49,6 +49,7 @@ import com.achep.acdisplay.services.media.MediaController2;
 import com.achep.acdisplay.services.media.Metadata;
 import com.achep.acdisplay.ui.fragments.AcDisplayFragment;
 import com.achep.base.Device;
+import com.achep.base.async.AppExecutors;
 import com.achep.base.tests.Check;
 import com.achep.base.ui.drawables.PlayPauseDrawable;
 import com.achep.base.ui.drawables.RippleDrawable2;
@@ -238,9 +239,21 @@ public class MediaWidget extends Widget implements
         if (bitmap != null) {
             // TODO: Load the vibrant color only.
             mArtworkColor = Color.WHITE;
-            mPaletteWorker = new Palette.Builder(bitmap)
-                    .maximumColorCount(16)
-                    .generate(mPaletteCallback);
+            final Palette.Builder builder = new Palette.Builder(bitmap).maximumColorCount(16);
+            mPaletteWorker = new AsyncTask<Bitmap, Void, Palette>() {
+
+                @Override
+                protected Palette doInBackground(Bitmap... params) {
+                    return builder.generate();
+                }
+
+                @Override
+                protected void onPostExecute(Palette palette) {
+                    super.onPostExecute(palette);
+                    mPaletteCallback.onGenerated(palette);
+                }
+
+            }.executeOnExecutor(AppExecutors.image());
 
             int dynamicBgMode = getConfig().getDynamicBackgroundMode();
             if (Operator.bitAnd(dynamicBgMode, getBackgroundMask())) {
@@ -18,12 +18,9 @@
  */
 package com.achep.acdisplay.ui.components;
 
-import android.app.Activity;
 import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.graphics.Bitmap;
-import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.RemoteInput;
@@ -37,12 +34,14 @@ import com.achep.acdisplay.interfaces.INotificatiable;
 import com.achep.acdisplay.notifications.Action;
 import com.achep.acdisplay.notifications.NotificationUtils;
 import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.acdisplay.notifications.ReplyOutbox;
 import com.achep.acdisplay.ui.fragments.AcDisplayFragment;
 import com.achep.acdisplay.ui.widgets.notification.NotificationActions;
 import com.achep.acdisplay.ui.widgets.notification.NotificationIconWidget;
 import com.achep.acdisplay.ui.widgets.notification.NotificationWidget;
 import com.achep.acdisplay.utils.PendingIntentUtils;
 import com.achep.base.tests.Check;
+import com.achep.base.utils.ToastUtils;
 
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -88,21 +87,28 @@ public class NotifyWidget extends Widget implements
         @Override
         public void onActionClick(@NonNull NotificationActions na,
                                   @NonNull View view, final @NonNull Action action,
-                                  @NonNull RemoteInput remoteInput,
-                                  @NonNull CharSequence text) {
-            final Intent intent = new Intent();
-            final Bundle bundle = new Bundle();
-            bundle.putCharSequence(remoteInput.getResultKey(), text);
-            RemoteInput.addResultsToIntent(action.remoteInputs, intent, bundle);
+                                  final @NonNull RemoteInput remoteInput,
+                                  final @NonNull CharSequence text) {
+            final OpenNotification n = mNotifyWidget.getNotification();
+            Check.getInstance().isNonNull(n);
+            final String key = n.getKey();
+            final Context context = mFragment.getActivity().getApplicationContext();
             mFragment.unlock(
                     new Runnable() {
                         @Override
                         public void run() {
-                            // TODO: Cancel pending finish if sending pending intent
-                            // has failed.
-                            PendingIntent pi = action.intent;
-                            Activity activity = mFragment.getActivity();
-                            PendingIntentUtils.sendPendingIntent(pi, activity, intent);
+                            // The reply that could not be sent stays in the outbox and
+                            // is retried on the next update of the notification.
+                            int result = ReplyOutbox.getInstance(context)
+                                    .send(key, action, remoteInput, text);
+                            switch (result) {
+                                case ReplyOutbox.RESULT_QUEUED:
+                                    ToastUtils.showShort(context, R.string.reply_queued);
+                                    break;
+                                case ReplyOutbox.RESULT_FAILED:
+                                    ToastUtils.showLong(context, R.string.reply_failed);
+                                    break;
+                            }
                         }
                     }, false);
         }
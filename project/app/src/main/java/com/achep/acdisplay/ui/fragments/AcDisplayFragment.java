@@ -55,7 +55,6 @@ import android.widget.ProgressBar;
 
 import com.achep.acdisplay.Config;
 import com.achep.acdisplay.R;
-import com.achep.acdisplay.Timeout;
 import com.achep.acdisplay.compat.SceneCompat;
 import com.achep.acdisplay.notifications.NotificationPresenter;
 import com.achep.acdisplay.notifications.NotificationUtils;
@@ -74,6 +73,7 @@ import com.achep.acdisplay.ui.view.ForwardingLayout;
 import com.achep.acdisplay.ui.view.ForwardingListener;
 import com.achep.acdisplay.ui.widgets.CircleView;
 import com.achep.base.Device;
+import com.achep.base.Timeout;
 import com.achep.base.async.WeakHandler;
 import com.achep.base.content.ConfigBase;
 import com.achep.base.tests.Check;
@@ -454,6 +454,7 @@ public class AcDisplayFragment extends LeakWatchFragment implements
         if (DEBUG) Log.d(TAG, "Destroying view...");
         if (isNotDemo()) {
             mTimeout.unregisterListener(mTimeoutGui);
+            mTimeoutGui.stop();
         }
 
         super.onDestroyView();
@@ -509,7 +510,7 @@ public class AcDisplayFragment extends LeakWatchFragment implements
     @Override
     public void requestTimeoutRestart(@NonNull Widget widget) {
         Check.getInstance().isTrue(isCurrentWidget(widget));
-        mTimeout.setTimeoutDelayed(mTimeoutNormal, true);
+        mTimeout.set(mTimeoutNormal, true);
     }
 
     //-- TOUCH HANDLING -------------------------------------------------------
@@ -522,7 +523,7 @@ public class AcDisplayFragment extends LeakWatchFragment implements
                     showHomeWidget();
                 }
 
-                mTimeout.setTimeoutDelayed(mTimeoutShort);
+                mTimeout.set(mTimeoutShort);
                 mTimeout.pause();
                 break;
             case CircleView.ACTION_UNLOCK_START:
@@ -885,7 +886,7 @@ public class AcDisplayFragment extends LeakWatchFragment implements
         if (widget.isHomeWidget()) {
             mTimeout.resume();
         } else {
-            mTimeout.setTimeoutDelayed(mTimeoutNormal, true);
+            mTimeout.set(mTimeoutNormal, true);
             mTimeout.pause();
         }
     }
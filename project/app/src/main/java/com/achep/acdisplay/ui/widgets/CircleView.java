@@ -20,6 +20,7 @@ package com.achep.acdisplay.ui.widgets;
 
 import android.animation.ObjectAnimator;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -35,6 +36,7 @@ import androidx.interpolator.view.animation.FastOutLinearInInterpolator;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.Property;
+import android.util.SparseArray;
 import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
 import android.view.View;
@@ -47,12 +49,8 @@ import com.achep.base.async.WeakHandler;
 import com.achep.base.tests.Check;
 import com.achep.base.utils.FloatProperty;
 import com.achep.base.utils.MathUtils;
-import com.achep.base.utils.RefCacheBase;
 import com.achep.base.utils.ResUtils;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
-
 import static com.achep.acdisplay.ui.preferences.ColorPickerPreference.getColor;
 import static com.achep.base.Build.DEBUG;
 
@@ -71,6 +69,37 @@ public class CircleView extends View {
 
     private static final int MSG_CANCEL = -1;
 
+    /**
+     * The number of steps of the ratio in the lookup tables of the curves.
+     *
+     * @see #CURVE_ICON_ALPHA
+     */
+    private static final int CURVE_STEPS = 256;
+
+    /**
+     * The alpha of the unlock icon, {@code 255 * ratio^3}.
+     */
+    private static final int[] CURVE_ICON_ALPHA = new int[CURVE_STEPS];
+
+    /**
+     * The alpha of the circle, {@code 255 * ratio^(1/3)}.
+     */
+    private static final int[] CURVE_CIRCLE_ALPHA = new int[CURVE_STEPS];
+
+    /**
+     * The alpha of the corners' icons, {@code 50 * (1 - ratio)^0.3}.
+     */
+    private static final int[] CURVE_CORNER_ALPHA = new int[CURVE_STEPS];
+
+    static {
+        for (int i = 0; i < CURVE_STEPS; i++) {
+            final double ratio = (double) i / (CURVE_STEPS - 1);
+            CURVE_ICON_ALPHA[i] = (int) (255 * Math.pow(ratio, 3));
+            CURVE_CIRCLE_ALPHA[i] = (int) (255 * Math.pow(ratio, 1f / 3f));
+            CURVE_CORNER_ALPHA[i] = (int) (50f * Math.pow(1f - ratio, 0.3f));
+        }
+    }
+
     @NonNull
     private static final Property<CircleView, Float> RADIUS_PROPERTY =
             new FloatProperty<CircleView>("setRadius") {
@@ -121,14 +150,13 @@ public class CircleView extends View {
     private CornerIconDrawable mDrawableRightBottomCorner;
     private Drawable mDrawable;
     private Paint mPaint;
+
+    /**
+     * The icons of the circle by their resource ids; cleared
+     * on configuration change.
+     */
     @NonNull
-    private RefCacheBase<Drawable> mDrawableCache = new RefCacheBase<Drawable>() {
-        @NonNull
-        @Override
-        protected Reference<Drawable> onCreateReference(@NonNull Drawable object) {
-            return new WeakReference<>(object);
-        }
-    };
+    private final SparseArray<Drawable> mDrawableCache = new SparseArray<>();
 
     // animation
     private ObjectAnimator mAnimator;
@@ -144,6 +172,10 @@ public class CircleView extends View {
     private int mOuterColor;
     private int mCornerActionId;
 
+    // Debug: the time spent drawing during the current gesture.
+    private long mDrawTimeSum;
+    private int mDrawCount;
+
     public interface Callback {
 
         void onCircleEvent(float radius, float ratio, int event, int actionId);
@@ -221,8 +253,17 @@ public class CircleView extends View {
         mDrawableRightBottomCorner.start(context);
     }
 
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // Icons may depend on the density, theme etc.
+        mDrawableCache.clear();
+        mDrawableResourceId = -1;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
+        final long start = DEBUG ? System.nanoTime() : 0;
         final float ratio = calculateRatio();
 
         // Draw all corners
@@ -241,7 +282,7 @@ public class CircleView extends View {
 
         // Draw unlock circle
         mPaint.setColor(mInnerColor);
-        mPaint.setAlpha((int) (255 * Math.pow(ratio, 1f / 3f)));
+        mPaint.setAlpha(CURVE_CIRCLE_ALPHA[getCurveIndex(ratio)]);
         canvas.drawCircle(mPoint[0], mPoint[1], mRadiusDrawn, mPaint);
 
         if (ratio >= 0.5f) {
@@ -255,6 +296,11 @@ public class CircleView extends View {
             mDrawable.draw(canvas);
             canvas.restore();
         }
+
+        if (DEBUG) {
+            mDrawTimeSum += System.nanoTime() - start;
+            mDrawCount++;
+        }
     }
 
     private void drawCornerIcon(@NonNull Canvas canvas, @NonNull Drawable drawable, int xm, int ym) {
@@ -272,7 +318,6 @@ public class CircleView extends View {
     protected void onDetachedFromWindow() {
         cancelAndClearAnimator();
         mHandler.removeCallbacksAndMessages(null);
-        mDrawableCache.clear();
 
         mDrawableLeftTopCorner.stop();
         mDrawableRightTopCorner.stop();
@@ -307,10 +352,9 @@ public class CircleView extends View {
         label:
         {
             // Try to get from the cache.
-            final CharSequence key = Integer.toString(res);
-            mDrawable = mDrawableCache.get(key);
+            mDrawable = mDrawableCache.get(res);
             if (mDrawable != null) {
-                if (DEBUG) Log.d(TAG, "Got an icon<" + key + "> from the cache.");
+                if (DEBUG) Log.d(TAG, "Got an icon<" + res + "> from the cache.");
                 break label;
             }
 
@@ -321,11 +365,11 @@ public class CircleView extends View {
                     mDrawable.getIntrinsicWidth(),
                     mDrawable.getIntrinsicHeight());
             mDrawable = mDrawable.mutate(); // don't affect the original drawable
-            mDrawableCache.put(key, mDrawable);
+            mDrawableCache.put(res, mDrawable);
         }
         // Update alpha
         float ratio = calculateRatio();
-        mDrawable.setAlpha((int) (255 * Math.pow(ratio, 3)));
+        mDrawable.setAlpha(CURVE_ICON_ALPHA[getCurveIndex(ratio)]);
         return true;
     }
 
@@ -374,6 +418,7 @@ public class CircleView extends View {
                 // Initialize circle
                 mRadiusTargetAimed = false;
                 mRadiusMaxPeak = 0;
+                if (DEBUG) mDrawTimeSum = mDrawCount = 0;
                 mPoint[0] = x;
                 mPoint[1] = y;
                 mCanceled = false;
@@ -411,6 +456,7 @@ public class CircleView extends View {
         Check.getInstance().isFalse(mCanceled);
 
         mCanceled = true;
+        logDrawTime();
         mHandler.removeCallbacksAndMessages(null);
         mHandler.sendEmptyMessage(ACTION_CANCELED);
 
@@ -426,6 +472,7 @@ public class CircleView extends View {
     }
 
     private void startUnlock(boolean animate) {
+        logDrawTime();
         if (animate) {
             // Calculate longest distance between center of
             // the circle and view's corners.
@@ -473,6 +520,20 @@ public class CircleView extends View {
         return Math.min(mRadius / mRadiusTarget, 1f);
     }
 
+    /**
+     * @return the index of given ratio in the lookup tables of the curves.
+     */
+    private static int getCurveIndex(float ratio) {
+        return (int) (MathUtils.range(ratio, 0f, 1f) * (CURVE_STEPS - 1) + 0.5f);
+    }
+
+    private void logDrawTime() {
+        if (DEBUG && mDrawCount > 0) {
+            Log.d(TAG, "Drawn " + mDrawCount + " frames, average draw time is "
+                    + mDrawTimeSum / mDrawCount / 1000 + "us.");
+        }
+    }
+
     private void setRadius(float x, float y) {
         double radius = Math.hypot(x - mPoint[0], y - mPoint[1]);
         setRadius((float) radius);
@@ -507,13 +568,14 @@ public class CircleView extends View {
         int alpha;
 
         // Update unlock icon's transparency.
+        final int i = getCurveIndex(ratio);
         if (mDrawable != null) {
-            alpha = (int) (255 * Math.pow(ratio, 3));
+            alpha = CURVE_ICON_ALPHA[i];
             mDrawable.setAlpha(alpha);
         }
 
         // Update corners' icons transparency.
-        alpha = (int) (50f * Math.pow(1f - ratio, 0.3f));
+        alpha = CURVE_CORNER_ALPHA[i];
         mDrawableLeftTopCorner.setAlpha(alpha);
         mDrawableRightTopCorner.setAlpha(alpha);
         mDrawableLeftBottomCorner.setAlpha(alpha);
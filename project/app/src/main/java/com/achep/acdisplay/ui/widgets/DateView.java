@@ -31,31 +31,60 @@ import com.achep.acdisplay.R;
 import com.achep.base.Device;
 
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
-
+import java.util.TimeZone;
+
+/**
+ * The date of the status bar.
+ * <p>
+ * The date is formatted only once a day: the view posts the next update exactly
+ * at midnight and the time tick broadcast only compares the day of the
+ * reused calendar, which takes no allocations.
+ */
 public class DateView extends TextView {
     private static final String TAG = "DateView";
 
+    private static final long DAY = 24 * 60 * 60 * 1000;
+
+    private final Calendar mCalendar = Calendar.getInstance();
     private final Date mCurrentTime = new Date();
 
     private SimpleDateFormat mDateFormat;
-    private String mLastText;
+    private boolean mAttached;
+
+    /**
+     * The last shown day as {@code year * 1000 + dayOfYear}, or {@code -1}.
+     */
+    private int mLastDay = -1;
+
+    private final Runnable mTicker = new Runnable() {
+        @Override
+        public void run() {
+            updateClock();
+            scheduleTick();
+        }
+    };
 
     private BroadcastReceiver mIntentReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
             final String action = intent.getAction();
-            if (Intent.ACTION_TIME_TICK.equals(action)
-                    || Intent.ACTION_TIME_CHANGED.equals(action)
+            if (Intent.ACTION_TIME_TICK.equals(action)) {
+                updateClock();
+            } else if (Intent.ACTION_TIME_CHANGED.equals(action)
                     || Intent.ACTION_TIMEZONE_CHANGED.equals(action)
                     || Intent.ACTION_LOCALE_CHANGED.equals(action)) {
                 if (Intent.ACTION_LOCALE_CHANGED.equals(action)
                         || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
                     // need to get a fresh date format
                     mDateFormat = null;
+                    mCalendar.setTimeZone(TimeZone.getDefault());
                 }
+                mLastDay = -1;
                 updateClock();
+                scheduleTick();
             }
         }
     };
@@ -67,6 +96,7 @@ public class DateView extends TextView {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        mAttached = true;
 
         IntentFilter filter = new IntentFilter();
         filter.addAction(Intent.ACTION_TIME_TICK);
@@ -75,30 +105,48 @@ public class DateView extends TextView {
         filter.addAction(Intent.ACTION_LOCALE_CHANGED);
         getContext().registerReceiver(mIntentReceiver, filter, null, null);
 
+        mCalendar.setTimeZone(TimeZone.getDefault());
         updateClock();
+        scheduleTick();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        mAttached = false;
+        removeCallbacks(mTicker);
 
         mDateFormat = null; // reload the locale next time
+        mLastDay = -1;
         getContext().unregisterReceiver(mIntentReceiver);
     }
 
+    /**
+     * Posts the next update to the next midnight.
+     */
+    private void scheduleTick() {
+        removeCallbacks(mTicker);
+        if (!mAttached) return;
+
+        final long now = System.currentTimeMillis();
+        final long offset = mCalendar.getTimeZone().getOffset(now);
+        postDelayed(mTicker, DAY - (now + offset) % DAY);
+    }
+
     protected void updateClock() {
+        final long now = System.currentTimeMillis();
+        mCalendar.setTimeInMillis(now);
+        final int day = mCalendar.get(Calendar.YEAR) * 1000 + mCalendar.get(Calendar.DAY_OF_YEAR);
+        if (day == mLastDay) return;
+        mLastDay = day;
+
         if (mDateFormat == null) {
             final String dateFormat = getContext().getString(R.string.status_date_format);
             mDateFormat = getBestDateTimePattern(dateFormat);
         }
 
-        mCurrentTime.setTime(System.currentTimeMillis());
-
-        final String text = mDateFormat.format(mCurrentTime);
-        if (!text.equals(mLastText)) {
-            setText(text);
-            mLastText = text;
-        }
+        mCurrentTime.setTime(now);
+        setText(mDateFormat.format(mCurrentTime));
     }
 
     @SuppressLint("NewApi")
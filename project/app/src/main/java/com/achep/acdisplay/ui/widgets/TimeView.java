@@ -22,31 +22,64 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.os.Build;
-import android.text.format.Time;
+import android.text.format.DateFormat;
 import android.util.AttributeSet;
 
 import com.achep.base.ui.widgets.TextView;
-import com.achep.base.utils.DateUtils;
 
-import java.util.GregorianCalendar;
+import java.util.Calendar;
+import java.util.TimeZone;
 
 /**
+ * The clock of the lock screen.
+ * <p>
+ * The view keeps one calendar and one char buffer, so ticking takes no allocations. The
+ * next update is posted exactly at the next minute (or second, if {@link #setSecondsShown(boolean)
+ * shown}) boundary; the time tick broadcast is kept only as a fallback for the device sleeping.
+ *
  * Created by Artem on 29.01.14.
  */
 public class TimeView extends TextView {
 
     private static final String TAG = "TimeView";
 
+    private static final int LENGTH_MINUTES = 5; // "hh:mm"
+    private static final int LENGTH_SECONDS = 8; // "hh:mm:ss"
+
+    private final Calendar mCalendar = Calendar.getInstance();
+    private final char[] mBuffer = new char[LENGTH_SECONDS];
+
+    private boolean mAttached;
+    private boolean mSecondsShown;
+    private boolean m24HourFormat;
+
+    /**
+     * The last shown time in seconds of the day, or {@code -1}.
+     */
     private int mLastTime = -1;
 
+    private final Runnable mTicker = new Runnable() {
+        @Override
+        public void run() {
+            updateClock();
+            scheduleTick();
+        }
+    };
+
     private BroadcastReceiver mIntentReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
             switch (intent.getAction()) {
-                case Intent.ACTION_TIME_TICK:
-                case Intent.ACTION_TIME_CHANGED:
                 case Intent.ACTION_TIMEZONE_CHANGED:
+                    mCalendar.setTimeZone(TimeZone.getDefault());
+                    // Fall down.
+                case Intent.ACTION_TIME_CHANGED:
+                    // This is also sent on switching 12 / 24 hours format.
+                    m24HourFormat = DateFormat.is24HourFormat(context);
+                    mLastTime = -1;
+                    scheduleTick();
+                    // Fall down.
+                case Intent.ACTION_TIME_TICK:
                     updateClock();
                     break;
             }
@@ -60,6 +93,7 @@ public class TimeView extends TextView {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        mAttached = true;
 
         IntentFilter filter = new IntentFilter();
         filter.addAction(Intent.ACTION_TIME_TICK);
@@ -67,34 +101,84 @@ public class TimeView extends TextView {
         filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
         getContext().registerReceiver(mIntentReceiver, filter, null, null);
 
+        mCalendar.setTimeZone(TimeZone.getDefault());
+        m24HourFormat = DateFormat.is24HourFormat(getContext());
+        mLastTime = -1;
         updateClock();
+        scheduleTick();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        mAttached = false;
+        removeCallbacks(mTicker);
         getContext().unregisterReceiver(mIntentReceiver);
     }
 
-    protected void updateClock() {
+    /**
+     * Sets whether to show the seconds or not. The view updates once
+     * a minute if they are hidden, which is the default.
+     */
+    public void setSecondsShown(boolean shown) {
+        if (mSecondsShown == shown) return;
+        mSecondsShown = shown;
+        mLastTime = -1;
 
-        if(Build.VERSION.SDK_INT< Build.VERSION_CODES.LOLLIPOP_MR1)
-        {
-            Time time = new Time();
-            time.setToNow();
-            int now = time.hour * 60 + time.minute;
-            if (now != mLastTime) {
-                setText(DateUtils.formatTime(getContext(), time.hour, time.minute));
-                mLastTime = now;
-            }
+        if (mAttached) {
+            updateClock();
+            scheduleTick();
         }
-        else {
-            GregorianCalendar gregorianCalendar = new GregorianCalendar();
-            int now = gregorianCalendar.get(GregorianCalendar.HOUR) * 60 + gregorianCalendar.get(GregorianCalendar.MINUTE);
-            if (now != mLastTime) {
-                setText(DateUtils.formatTime(getContext(), gregorianCalendar.get(GregorianCalendar.HOUR), gregorianCalendar.get(GregorianCalendar.MINUTE)));
-                mLastTime = now;
-            }
+    }
+
+    public boolean isSecondsShown() {
+        return mSecondsShown;
+    }
+
+    /**
+     * Posts the next update to the beginning of the next minute, or
+     * second if the {@link #setSecondsShown(boolean) seconds are shown}.
+     */
+    private void scheduleTick() {
+        removeCallbacks(mTicker);
+        if (!mAttached) return;
+
+        final long period = mSecondsShown ? 1000 : 60000;
+        final long now = System.currentTimeMillis();
+        final long offset = mCalendar.getTimeZone().getOffset(now);
+        postDelayed(mTicker, period - (now + offset) % period);
+    }
+
+    protected void updateClock() {
+        mCalendar.setTimeInMillis(System.currentTimeMillis());
+        final int h = mCalendar.get(Calendar.HOUR_OF_DAY);
+        final int m = mCalendar.get(Calendar.MINUTE);
+        final int s = mSecondsShown ? mCalendar.get(Calendar.SECOND) : 0;
+
+        final int now = (h * 60 + m) * 60 + s;
+        if (now == mLastTime) return;
+        mLastTime = now;
+
+        int hours = h;
+        if (!m24HourFormat) {
+            if (hours == 0) hours = 12;
+            else if (hours >= 13) hours -= 12;
         }
+
+        final char[] buffer = mBuffer;
+        putTwoDigits(buffer, 0, hours);
+        buffer[2] = ':';
+        putTwoDigits(buffer, 3, m);
+        if (mSecondsShown) {
+            buffer[5] = ':';
+            putTwoDigits(buffer, 6, s);
+            setText(buffer, 0, LENGTH_SECONDS);
+        } else setText(buffer, 0, LENGTH_MINUTES);
     }
+
+    private static void putTwoDigits(char[] buffer, int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
 }
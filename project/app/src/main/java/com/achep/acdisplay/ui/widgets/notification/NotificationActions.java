@@ -45,10 +45,13 @@ import com.achep.acdisplay.R;
 import com.achep.acdisplay.notifications.Action;
 import com.achep.acdisplay.notifications.NotificationUtils;
 import com.achep.acdisplay.notifications.OpenNotification;
+import com.achep.acdisplay.notifications.ReplyOutbox;
 import com.achep.base.Device;
 import com.achep.base.tests.Check;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Artem Chepurnoy
@@ -56,6 +59,24 @@ import java.util.HashMap;
  */
 public class NotificationActions extends LinearLayout {
 
+    /**
+     * Forces the white color of the action icons.
+     * <p>
+     * The matrix is stored in a single array, and its treated as follows:
+     * [ a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t ]
+     * When applied to a color [r, g, b, a], the resulting color is computed as (after clamping)
+     * R' = a*R + b*G + c*B + d*A + e;
+     * G' = f*R + g*G + h*B + i*A + j;
+     * B' = k*R + l*G + m*B + n*A + o;
+     * A' = p*R + q*G + r*B + s*A + t;
+     */
+    private static final ColorFilter WHITE_COLOR_FILTER = new ColorMatrixColorFilter(new float[]{
+            0, 0, 0, 0, 255, // Red
+            0, 0, 0, 0, 255, // Green
+            0, 0, 0, 0, 255, // Blue
+            0, 0, 0, 1, 0 //    Alpha
+    });
+
     public interface Callback {
 
         void onRiiStateChanged(@NonNull NotificationActions na, boolean shown);
@@ -127,6 +148,17 @@ public class NotificationActions extends LinearLayout {
     private LinearLayout.LayoutParams mLayoutParams;
     private Typeface mTypeface;
 
+    /**
+     * The currently shown actions, the package their icons are
+     * from and the key of their notification.
+     */
+    @Nullable
+    private Action[] mActions;
+    @Nullable
+    private String mPackageName;
+    @Nullable
+    private String mKey;
+
     public NotificationActions(Context context, AttributeSet attrs) {
         super(context, attrs);
     }
@@ -151,13 +183,18 @@ public class NotificationActions extends LinearLayout {
 
             assert text != null;
             sendActionWithRemoteInput(view, action, mRemoteInput, text);
-            hideRii();
+            hideRii(false /* the reply is in the outbox now */);
         } else if ((mRemoteInput = mRemoteInputsMap.get(action)) != null) {
             // Initialize and show the remote input graphic
             // user interface.
 
             mView = view;
             mTextable = onCreateTextable(mRemoteInput);
+            if (mKey != null) {
+                String draft = ReplyOutbox.getInstance(getContext())
+                        .getDraft(mKey, mRemoteInput.getResultKey());
+                if (draft != null) mTextable.setText(draft);
+            }
             mOnTextChangedListener.onTextChanged(mTextable.getText());
 
             if (Device.hasKitKatApi() && isLaidOut()) {
@@ -207,12 +244,25 @@ public class NotificationActions extends LinearLayout {
                 : new TextableRestrictedForm(this, remoteInput, mOnTextChangedListener);
     }
 
+    /**
+     * Hides the remote input, keeping the typed text as the draft.
+     */
     public void hideRii() {
+        hideRii(true);
+    }
+
+    private void hideRii(boolean saveDraft) {
         Check.getInstance().isInMainThread();
         if (!isRiiShowing()) return;
+        assert mRemoteInput != null;
         assert mTextable != null;
         assert mView != null;
 
+        if (saveDraft && mKey != null && mRemoteInput.getAllowFreeFormInput()) {
+            ReplyOutbox.getInstance(getContext())
+                    .putDraft(mKey, mRemoteInput.getResultKey(), mTextable.getText());
+        }
+
         removeView(mTextable.getView());
         mView.setLayoutParams(mLayoutParams);
         // Pop-up all other actions back.
@@ -242,9 +292,23 @@ public class NotificationActions extends LinearLayout {
     public void setActions(@Nullable OpenNotification notification, @Nullable Action[] actions) {
         Check.getInstance().isInMainThread();
 
+        if (actions != null && Arrays.equals(mActions, actions)
+                && notification != null
+                && TextUtils.equals(mPackageName, notification.getPackageName())
+                && TextUtils.equals(mKey, notification.getKey())
+                && getChildCount() - (isRiiShowing() ? 1 : 0) == actions.length) {
+            // The same actions: no need to re-inflate
+            // anything, or to hide the remote input.
+            rebindActions(actions);
+            return;
+        }
+
         mRemoteInputsMap.clear();
         mActionsMap.clear();
         hideRii();
+        mActions = actions;
+        mPackageName = notification != null ? notification.getPackageName() : null;
+        mKey = notification != null ? notification.getKey() : null;
 
         if (actions == null) {
             // Free actions' container.
@@ -332,6 +396,29 @@ public class NotificationActions extends LinearLayout {
         }
     }
 
+    /**
+     * Replaces the actions of the existing views with the
+     * {@link Action#equals(Object) equal} ones.
+     */
+    private void rebindActions(@NonNull Action[] actions) {
+        if (mActions == actions) return;
+        assert mActions != null;
+
+        for (int i = 0; i < actions.length; i++) {
+            final Action old = mActions[i];
+            for (Map.Entry<View, Action> entry : mActionsMap.entrySet()) {
+                if (entry.getValue() == old) {
+                    entry.setValue(actions[i]);
+                    break;
+                }
+            }
+
+            RemoteInput remoteInput = mRemoteInputsMap.remove(old);
+            if (remoteInput != null) mRemoteInputsMap.put(actions[i], remoteInput);
+        }
+        mActions = actions;
+    }
+
     @NonNull
     protected View onCreateActionView(@NonNull View view) {
         return view;
@@ -342,29 +429,16 @@ public class NotificationActions extends LinearLayout {
         int size = getResources().getDimensionPixelSize(R.dimen.notification_action_icon_size);
         icon = icon.mutate();
         icon.setBounds(0, 0, size, size);
-
-        // The matrix is stored in a single array, and its treated as follows:
-        // [ a, b, c, d, e, f, g, h, i, j, k, l, m, n, o, p, q, r, s, t ]
-        // When applied to a color [r, g, b, a], the resulting color is computed as (after clamping)
-        //   R' = a*R + b*G + c*B + d*A + e;
-        //   G' = f*R + g*G + h*B + i*A + j;
-        //   B' = k*R + l*G + m*B + n*A + o;
-        //   A' = p*R + q*G + r*B + s*A + t;
-        ColorFilter colorFilter = new ColorMatrixColorFilter(new float[]{
-                0, 0, 0, 0, 255, // Red
-                0, 0, 0, 0, 255, // Green
-                0, 0, 0, 0, 255, // Blue
-                0, 0, 0, 1, 0 //    Alpha
-        });
-        icon.setColorFilter(colorFilter); // force white color
+        icon.setColorFilter(WHITE_COLOR_FILTER); // force white color
         return icon;
     }
 
+    /**
+     * @return the first {@link RemoteInput#getAllowFreeFormInput() free-form}
+     * remote input of the action, or {@code null} if there's none.
+     */
     @Nullable
-    // FIXME: Which RemoteInput should I use?
     protected RemoteInput getRemoteInput(@NonNull Action action) {
-        return null;
-        /*
         if (action.remoteInputs == null || action.remoteInputs.length == 0) return null;
         for (RemoteInput ri : action.remoteInputs) {
             if (ri.getAllowFreeFormInput()) {
@@ -372,7 +446,6 @@ public class NotificationActions extends LinearLayout {
             }
         }
         return null;
-        */
     }
 
     @LayoutRes
@@ -433,6 +506,11 @@ public class NotificationActions extends LinearLayout {
         @Nullable
         public abstract CharSequence getText();
 
+        /**
+         * Restores the text of the {@code Textable}, for example from the draft.
+         */
+        public abstract void setText(@NonNull CharSequence text);
+
         /**
          * Inflates a new view hierarchy from the specified xml resource. The view's root
          * is the {@link #mContainer}.
@@ -496,6 +574,15 @@ public class NotificationActions extends LinearLayout {
             return mEditText.getText();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setText(@NonNull CharSequence text) {
+            mEditText.setText(text);
+            mEditText.setSelection(mEditText.length());
+        }
+
         @NonNull
         protected EditText onCreateEditText() {
             return (EditText) inflate(R.layout.notification_reply_free_form);
@@ -541,6 +628,20 @@ public class NotificationActions extends LinearLayout {
             return mRemoteInput.getChoices()[pos];
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setText(@NonNull CharSequence text) {
+            CharSequence[] choices = mRemoteInput.getChoices();
+            for (int i = 0; i < choices.length; i++) {
+                if (TextUtils.equals(choices[i], text)) {
+                    mSpinner.setSelection(i);
+                    break;
+                }
+            }
+        }
+
         @NonNull
         protected Spinner onCreateSpinner() {
             return (Spinner) inflate(R.layout.notification_reply_restricted_form);
@@ -66,6 +66,7 @@ public class BatteryMeterView extends TextView {
                 case Intent.ACTION_BATTERY_CHANGED:
                     final boolean chargingOld = indicateCharging();
                     final int levelOld = level;
+                    final int stateOld = getState();
 
                     // Get battery level
                     level = 100
@@ -78,9 +79,12 @@ public class BatteryMeterView extends TextView {
                     status = intent.getIntExtra(BatteryManager.EXTRA_STATUS,
                             BatteryManager.BATTERY_STATUS_UNKNOWN);
 
+                    // Most of the broadcasts only report new voltage
+                    // or temperature, which are not shown.
+                    if (stateOld == getState()) break;
+
                     // Update view
-                    setText(String.format(mBatteryFormat, this.level));
-                    setContentDescription(ResUtils.getString(context, R.string.accessibility_battery_level, level));
+                    onBatteryStateChanged();
 
                     // Notify listener
                     if (mOnBatteryChangedListener != null) {
@@ -96,6 +100,17 @@ public class BatteryMeterView extends TextView {
             }
         }
 
+        /**
+         * @return the bit-set of everything the view shows: the level, the
+         * plugged, charging and present states.
+         */
+        int getState() {
+            return (level & 0xFF)
+                    | (plugged ? 1 << 8 : 0)
+                    | (indicateCharging() ? 1 << 9 : 0)
+                    | (present ? 1 << 10 : 0);
+        }
+
         /**
          * @return {@code true} if device is charging, {@code false} otherwise.
          */
@@ -143,6 +158,7 @@ public class BatteryMeterView extends TextView {
     private final Object mLock = new Object();
 
     private int mPaddingLeft;
+    private int mTextLevel = BatteryTracker.UNKNOWN_LEVEL;
 
     @Override
     public void onAttachedToWindow() {
@@ -243,6 +259,21 @@ public class BatteryMeterView extends TextView {
         setMeasuredDimension(getMeasuredWidth(), height);
     }
 
+    /**
+     * Called when the shown state of the battery has changed, and only
+     * then: updates the text and redraws the meter.
+     */
+    protected void onBatteryStateChanged() {
+        final int level = mTracker.level;
+        if (mTextLevel != level) {
+            mTextLevel = level;
+            setText(String.format(mBatteryFormat, level));
+            setContentDescription(ResUtils.getString(mContext, R.string.accessibility_battery_level, level));
+        }
+
+        invalidate();
+    }
+
     public void setOnBatteryChangedListener(OnBatteryChangedListener listener) {
         mOnBatteryChangedListener = listener;
     }
@@ -337,6 +368,11 @@ public class BatteryMeterView extends TextView {
         private final RectF mClipFrame = new RectF();
         private final RectF mBoltFrame = new RectF();
 
+        // The key of the cached geometry.
+        private float mGeometryFrac = -1f;
+        private int mGeometryTop;
+        private int mGeometryLeft;
+
         public NormalBatteryMeterDrawable(Resources res) {
             super();
             mDisposed = false;
@@ -373,11 +409,47 @@ public class BatteryMeterView extends TextView {
 
             if (level == BatteryTracker.UNKNOWN_LEVEL) return;
 
-            float drawFrac = (float) level / 100f;
             final int pt = getTotalPaddingTop() + (getHeight() - getTotalPaddingTop() - getTotalPaddingBottom() - mBatteryHeight) / 2;
             final int pl = getPaddingLeft();
-            int height = mBatteryHeight;
-            int width = mBatteryWidth;
+            final float drawFrac = level >= FULL ? 1f : level <= EMPTY ? 0f : (float) level / 100f;
+            if (mGeometryFrac != drawFrac || mGeometryTop != pt || mGeometryLeft != pl) {
+                mGeometryFrac = drawFrac;
+                mGeometryTop = pt;
+                mGeometryLeft = pl;
+                updateGeometry(pl, pt, drawFrac);
+            }
+
+            // first, draw the battery shape
+            c.drawRect(mFrame, mFramePaint);
+
+            // fill 'er up
+            final int color = tracker.plugged ? mChargeColor : getColorForLevel(level);
+            mBatteryPaint.setColor(color);
+
+            c.drawRect(mButtonFrame, drawFrac == 1f ? mBatteryPaint : mFramePaint);
+
+            c.save();
+            c.clipRect(mClipFrame);
+            c.drawRect(mFrame, mBatteryPaint);
+            c.restore();
+
+            if (tracker.indicateCharging()) {
+                // draw the bolt
+                c.drawPath(mBoltPath, mBoltPaint);
+            } else if (level <= EMPTY) {
+                final float x = pl + mBatteryWidth * 0.5f;
+                final float y = pt + (mBatteryHeight + mWarningTextHeight) * 0.48f;
+                c.drawText(mWarningString, x, y, mWarningTextPaint);
+            }
+        }
+
+        /**
+         * Computes the frames and the bolt path, which depend
+         * only on the position and the filled fraction.
+         */
+        private void updateGeometry(int pl, int pt, float drawFrac) {
+            final int height = mBatteryHeight;
+            final int width = mBatteryWidth;
 
             mButtonHeight = (int) (height * 0.12f);
 
@@ -400,57 +472,26 @@ public class BatteryMeterView extends TextView {
             mFrame.right -= SUBPIXEL;
             mFrame.bottom -= SUBPIXEL;
 
-            // first, draw the battery shape
-            c.drawRect(mFrame, mFramePaint);
-
-            // fill 'er up
-            final int color = tracker.plugged ? mChargeColor : getColorForLevel(level);
-            mBatteryPaint.setColor(color);
-
-            if (level >= FULL) {
-                drawFrac = 1f;
-            } else if (level <= EMPTY) {
-                drawFrac = 0f;
-            }
-
-            c.drawRect(mButtonFrame, drawFrac == 1f ? mBatteryPaint : mFramePaint);
-
             mClipFrame.set(mFrame);
             mClipFrame.top += (mFrame.height() * (1f - drawFrac));
 
-            c.save();
-            c.clipRect(mClipFrame);
-            c.drawRect(mFrame, mBatteryPaint);
-            c.restore();
-
-            if (tracker.indicateCharging()) {
-                // draw the bolt
-                final float bl = (int) (mFrame.left + mFrame.width() / 4.5f);
-                final float bt = (int) (mFrame.top + mFrame.height() / 6f);
-                final float br = (int) (mFrame.right - mFrame.width() / 7f);
-                final float bb = (int) (mFrame.bottom - mFrame.height() / 10f);
-                if (mBoltFrame.left != bl || mBoltFrame.top != bt
-                        || mBoltFrame.right != br || mBoltFrame.bottom != bb) {
-                    mBoltFrame.set(bl, bt, br, bb);
-                    mBoltPath.reset();
-                    mBoltPath.moveTo(
-                            mBoltFrame.left + mBoltPoints[0] * mBoltFrame.width(),
-                            mBoltFrame.top + mBoltPoints[1] * mBoltFrame.height());
-                    for (int i = 2; i < mBoltPoints.length; i += 2) {
-                        mBoltPath.lineTo(
-                                mBoltFrame.left + mBoltPoints[i] * mBoltFrame.width(),
-                                mBoltFrame.top + mBoltPoints[i + 1] * mBoltFrame.height());
-                    }
-                    mBoltPath.lineTo(
-                            mBoltFrame.left + mBoltPoints[0] * mBoltFrame.width(),
-                            mBoltFrame.top + mBoltPoints[1] * mBoltFrame.height());
-                }
-                c.drawPath(mBoltPath, mBoltPaint);
-            } else if (level <= EMPTY) {
-                final float x = pl + mBatteryWidth * 0.5f;
-                final float y = pt + (mBatteryHeight + mWarningTextHeight) * 0.48f;
-                c.drawText(mWarningString, x, y, mWarningTextPaint);
+            mBoltFrame.set(
+                    (int) (mFrame.left + mFrame.width() / 4.5f),
+                    (int) (mFrame.top + mFrame.height() / 6f),
+                    (int) (mFrame.right - mFrame.width() / 7f),
+                    (int) (mFrame.bottom - mFrame.height() / 10f));
+            mBoltPath.reset();
+            mBoltPath.moveTo(
+                    mBoltFrame.left + mBoltPoints[0] * mBoltFrame.width(),
+                    mBoltFrame.top + mBoltPoints[1] * mBoltFrame.height());
+            for (int i = 2; i < mBoltPoints.length; i += 2) {
+                mBoltPath.lineTo(
+                        mBoltFrame.left + mBoltPoints[i] * mBoltFrame.width(),
+                        mBoltFrame.top + mBoltPoints[i + 1] * mBoltFrame.height());
             }
+            mBoltPath.lineTo(
+                    mBoltFrame.left + mBoltPoints[0] * mBoltFrame.width(),
+                    mBoltFrame.top + mBoltPoints[1] * mBoltFrame.height());
         }
 
         @Override
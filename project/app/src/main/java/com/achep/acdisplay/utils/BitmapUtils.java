@@ -19,7 +19,6 @@
 package com.achep.acdisplay.utils;
 
 import android.graphics.Bitmap;
-import android.graphics.Color;
 import androidx.annotation.NonNull;
 
 /**
@@ -27,20 +26,135 @@ import androidx.annotation.NonNull;
  */
 public class BitmapUtils {
 
+    /**
+     * The maximum number of samples per side of the bitmap to analyse.
+     */
+    static final int SAMPLE_GRID_SIZE = 24;
+
+    /**
+     * The buffer for the pixels of the samples, followed by a row of
+     * the bitmap. Guarded by the class.
+     */
+    private static int[] sBuffer;
+
+    /**
+     * @return The average color of the bitmap, the same as {@code getAverageColor(bitmap, false)}.
+     * @see #getAverageColor(Bitmap, boolean)
+     */
     public static int getAverageColor(@NonNull Bitmap bitmap) {
-        Bitmap onePixelBitmap = Bitmap.createScaledBitmap(bitmap, 1, 1, true);
-        int color = onePixelBitmap.getPixel(0, 0);
-        onePixelBitmap.recycle();
-        return color;
+        return getAverageColor(bitmap, false);
+    }
+
+    /**
+     * Calculates the average color of the bitmap over a grid of at most
+     * {@link #SAMPLE_GRID_SIZE} x {@link #SAMPLE_GRID_SIZE} samples. The result
+     * depends only on the pixels of the bitmap, not on the device.
+     *
+     * @param ignoreTransparent {@code true} to calculate the alpha over the visible
+     *                          pixels only, {@code false} to include the transparent ones.
+     * @see #getAverageColor(int[], int, int, boolean)
+     */
+    public static int getAverageColor(@NonNull Bitmap bitmap, boolean ignoreTransparent) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int columns = Math.min(width, SAMPLE_GRID_SIZE);
+        final int rows = Math.min(height, SAMPLE_GRID_SIZE);
+        final int length = columns * rows;
+        synchronized (BitmapUtils.class) {
+            final int[] buffer = obtainBuffer(length + width);
+            for (int j = 0; j < rows; j++) {
+                final int y = getSamplePosition(j, rows, height);
+                bitmap.getPixels(buffer, length, width, 0, y, width, 1);
+                for (int i = 0; i < columns; i++) {
+                    buffer[j * columns + i] = buffer[length + getSamplePosition(i, columns, width)];
+                }
+            }
+            return getAverageColor(buffer, 0, length, ignoreTransparent);
+        }
     }
 
+    /**
+     * @return {@code true} if any of the corners of the bitmap
+     * is fully transparent, {@code false} otherwise.
+     */
     public static boolean hasTransparentCorners(@NonNull Bitmap bitmap) {
-        int right = bitmap.getWidth() - 1;
-        int bottom = bitmap.getHeight() - 1;
-        return bitmap.getPixel(0, 0) == Color.TRANSPARENT
-                || bitmap.getPixel(right, 0) == Color.TRANSPARENT
-                || bitmap.getPixel(0, bottom) == Color.TRANSPARENT
-                || bitmap.getPixel(right, bottom) == Color.TRANSPARENT;
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        synchronized (BitmapUtils.class) {
+            final int[] buffer = obtainBuffer(4 + width);
+            for (int j = 0; j < 2; j++) {
+                bitmap.getPixels(buffer, 4, width, 0, j * (height - 1), width, 1);
+                buffer[j * 2] = buffer[4];
+                buffer[j * 2 + 1] = buffer[4 + width - 1];
+            }
+            return hasTransparentCorners(buffer, 0, 2, 2, 2);
+        }
+    }
+
+    @NonNull
+    private static int[] obtainBuffer(int length) {
+        if (sBuffer == null || sBuffer.length < length) sBuffer = new int[length];
+        return sBuffer;
+    }
+
+    //-- PURE FUNCTIONS -------------------------------------------------------
+
+    /**
+     * @return The position of the center of the {@code i}-th of {@code count}
+     * equal cells of the {@code size}.
+     */
+    static int getSamplePosition(int i, int count, int size) {
+        return (int) ((2L * i + 1) * size / (2L * count));
+    }
+
+    /**
+     * Calculates the average color of the non-premultiplied ARGB pixels. The color
+     * channels are weighted by the alpha, so the fully transparent pixels never
+     * affect the color. The channels are rounded to the nearest.
+     *
+     * @param ignoreTransparent {@code true} to average the alpha over the visible
+     *                          pixels only, {@code false} to average it over all pixels.
+     * @return The average color, or {@code 0} if all pixels are transparent.
+     */
+    static int getAverageColor(@NonNull int[] pixels, int offset, int length,
+                               boolean ignoreTransparent) {
+        long a = 0, r = 0, g = 0, b = 0;
+        int visible = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            final int pixel = pixels[i];
+            final int alpha = pixel >>> 24;
+            if (alpha == 0) continue;
+            visible++;
+            a += alpha;
+            r += (pixel >> 16 & 0xFF) * alpha;
+            g += (pixel >> 8 & 0xFF) * alpha;
+            b += (pixel & 0xFF) * alpha;
+        }
+        if (a == 0) return 0;
+
+        final long count = ignoreTransparent ? visible : length;
+        return (int) ((a + count / 2) / count) << 24
+                | (int) ((r + a / 2) / a) << 16
+                | (int) ((g + a / 2) / a) << 8
+                | (int) ((b + a / 2) / a);
+    }
+
+    /**
+     * @param stride the number of entries in {@code pixels} between the rows
+     * @return {@code true} if any of the corners of the image
+     * is fully transparent, {@code false} otherwise.
+     */
+    static boolean hasTransparentCorners(@NonNull int[] pixels, int offset, int stride,
+                                         int width, int height) {
+        final int bottom = offset + (height - 1) * stride;
+        return isTransparent(pixels[offset])
+                || isTransparent(pixels[offset + width - 1])
+                || isTransparent(pixels[bottom])
+                || isTransparent(pixels[bottom + width - 1]);
+    }
+
+    private static boolean isTransparent(int pixel) {
+        return pixel >>> 24 == 0;
     }
 
 }
@@ -19,7 +19,7 @@
 package com.achep.acdisplay.utils.tasks;
 
 import android.annotation.TargetApi;
-import android.app.usage.UsageStats;
+import android.app.usage.UsageEvents;
 import android.app.usage.UsageStatsManager;
 import android.content.Context;
 import android.os.Build;
@@ -27,10 +27,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
-import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
-
 /**
  * @author Artem Chepurnoy
  */
@@ -41,56 +37,57 @@ class RunningTasksLollipop extends RunningTasks {
 
     private static final String USAGE_STATS_MANAGER = "usagestats";
 
+    /**
+     * The upper bound of the previous query; the next query continues
+     * from here, so we never walk through the same events twice.
+     */
+    private long mCursor;
+
+    @Nullable
+    private String mTopPackageName;
+
+    @NonNull
+    private final UsageEvents.Event mEvent = new UsageEvents.Event();
+
     /**
      * {@inheritDoc}
      */
     @Nullable
-    public String getRunningTasksTop(@NonNull Context context) {
+    public synchronized String getRunningTasksTop(@NonNull Context context) {
         try {
-            UsageStats usageStats = getUsageStatsTop(context);
-            return usageStats != null ? usageStats.getPackageName() : null;
+            queryEvents(context);
         } catch (SecurityException e) {
             Log.e(TAG, "Failed to get usage stats! Permissions denied!");
             e.printStackTrace();
         }
-        return null;
+        return mTopPackageName;
     }
 
     @SuppressWarnings("ResourceType")
-    @Nullable
-    private SortedMap<Long, UsageStats> getUsageStats(@NonNull Context context)
-            throws SecurityException {
+    private void queryEvents(@NonNull Context context) throws SecurityException {
         UsageStatsManager usm = (UsageStatsManager) context.getSystemService(USAGE_STATS_MANAGER);
 
-        // We get usage stats for the last 30 seconds
         final long timeEnd = System.currentTimeMillis();
-        final long timeBegin = timeEnd - 30 * 1000; // +30 sec.
-        List<UsageStats> statsList = usm.queryUsageStats(UsageStatsManager.INTERVAL_DAILY,
-                timeBegin,
-                timeEnd);
+        final long timeBegin = mCursor > 0 && mCursor <= timeEnd
+                ? mCursor
+                // We get usage events for the last 30 seconds
+                : timeEnd - 30 * 1000; // +30 sec.
+        UsageEvents events = usm.queryEvents(timeBegin, timeEnd);
+        mCursor = timeEnd;
 
-        if (statsList != null) {
-            // Sort the stats by the last time used
-            SortedMap<Long, UsageStats> statsSortedMap = new TreeMap<>();
-            for (final UsageStats usageStats : statsList) {
-                // Filter system decor apps
-                if ("com.android.systemui".equals(usageStats.getPackageName())) {
+        if (events != null) {
+            final UsageEvents.Event event = mEvent;
+            while (events.hasNextEvent()) {
+                events.getNextEvent(event);
+                if (event.getEventType() != UsageEvents.Event.MOVE_TO_FOREGROUND
+                        // Filter system decor apps
+                        || "com.android.systemui".equals(event.getPackageName())) {
                     continue;
                 }
 
-                statsSortedMap.put(usageStats.getLastTimeUsed(), usageStats);
+                mTopPackageName = event.getPackageName();
             }
-            return statsSortedMap;
         }
-        return null;
-    }
-
-    @Nullable
-    private UsageStats getUsageStatsTop(@NonNull Context context) throws SecurityException {
-        SortedMap<Long, UsageStats> statsSortedMap = getUsageStats(context);
-        return statsSortedMap != null && !statsSortedMap.isEmpty()
-                ? statsSortedMap.get(statsSortedMap.lastKey())
-                : null;
     }
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.utils.tasks;
+
+import android.content.Context;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import android.text.TextUtils;
+import android.util.Log;
+
+import static com.achep.base.Build.DEBUG;
+
+/**
+ * Keeps track of the current foreground package. The state is pushed
+ * by the window events of the {@link com.achep.acdisplay.services.AccessibilityService}
+ * when it is enabled, otherwise it must be {@link #sync(Context) synced} incrementally
+ * from a worker thread.
+ * <p>
+ * Reading the cached state is cheap and doesn't touch any system service,
+ * so it is safe to do it right from the screen-on broadcast.
+ *
+ * @author Artem Chepurnoy
+ */
+public class TopActivityTracker {
+
+    private static final String TAG = "TopActivityTracker";
+
+    /**
+     * The package of the system decor: status bar, notification shade
+     * and stock keyguard. It is never treated as a foreground app.
+     */
+    private static final String PACKAGE_SYSTEM_UI = "com.android.systemui";
+
+    private static TopActivityTracker sInstance;
+
+    @Nullable
+    private volatile String mPackageName;
+    private volatile long mTimestamp;
+
+    /**
+     * {@code true} if someone pushes the window events to this
+     * tracker, {@code false} otherwise.
+     */
+    private volatile boolean mEventDriven;
+
+    @NonNull
+    public static synchronized TopActivityTracker getInstance() {
+        if (sInstance == null) {
+            sInstance = new TopActivityTracker();
+        }
+        return sInstance;
+    }
+
+    private TopActivityTracker() { /* singleton */ }
+
+    /**
+     * Sets whether the foreground changes are pushed to this tracker
+     * via {@link #onForegroundChanged(CharSequence)} or not.
+     */
+    public void setEventDriven(boolean eventDriven) {
+        mEventDriven = eventDriven;
+    }
+
+    /**
+     * @return {@code true} if the cached state is always up-to-date and
+     * no {@link #sync(Context) syncing} is needed, {@code false} otherwise.
+     */
+    public boolean isEventDriven() {
+        return mEventDriven;
+    }
+
+    /**
+     * Should be called when the foreground package has (probably) changed.
+     *
+     * @param packageName the package name of the new foreground window.
+     */
+    public void onForegroundChanged(@Nullable CharSequence packageName) {
+        if (packageName == null
+                || TextUtils.equals(packageName, mPackageName)
+                || TextUtils.equals(packageName, PACKAGE_SYSTEM_UI)) {
+            return;
+        }
+
+        mPackageName = packageName.toString();
+        mTimestamp = SystemClock.elapsedRealtime();
+        if (DEBUG) Log.d(TAG, "New top activity is " + mPackageName);
+    }
+
+    /**
+     * Asks the system for the latest foreground package. This may involve
+     * a number of binder calls, so <b>never</b> call it on the main thread.
+     */
+    @WorkerThread
+    public void sync(@NonNull Context context) {
+        onForegroundChanged(RunningTasks.getInstance().getRunningTasksTop(context));
+    }
+
+    /**
+     * @return the package name of the latest foreground window.
+     * @see #getTimestamp()
+     */
+    @Nullable
+    public String getPackageName() {
+        return mPackageName;
+    }
+
+    /**
+     * @return the {@link SystemClock#elapsedRealtime()} of the latest
+     * foreground change.
+     * @see #getPackageName()
+     */
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+}
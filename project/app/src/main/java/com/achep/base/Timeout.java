@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2014 AChep@xda <artemchep@gmail.com>
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -18,22 +18,27 @@
  */
 package com.achep.base;
 
-import android.os.Message;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
 import androidx.annotation.NonNull;
-import android.view.animation.LinearInterpolator;
+import android.view.Choreographer;
 import android.widget.ProgressBar;
 
-import com.achep.acdisplay.ui.animations.ProgressBarAnimation;
-import com.achep.base.async.WeakHandler;
 import com.achep.base.interfaces.ISubscriptable;
 import com.achep.base.interfaces.ITimeout;
-import com.achep.base.tests.Check;
 import com.achep.base.utils.MathUtils;
 
 import java.util.ArrayList;
 
 /**
+ * The countdown timer of the keyguard and AcDisplay screens.
+ * <p>
+ * The timeout is a pair of its duration and the time that has elapsed: pausing
+ * and resuming only moves the elapsed time to the accumulator and back, and the
+ * only timer is the single runnable posted to the {@link Clock clock}. All methods
+ * must be called from the thread of the clock, which is the main thread by default.
+ *
  * @author Artem Chepurnoy
  */
 public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventListener> {
@@ -41,7 +46,7 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
     private static final String TAG = "Timeout";
 
     public static final int EVENT_TIMEOUT = 0;
-    public static final int EVENT_SET = 1;
+    public static final int EVENT_CHANGED = 1;
     public static final int EVENT_CLEARED = 2;
     public static final int EVENT_PAUSED = 3;
     public static final int EVENT_RESUMED = 4;
@@ -52,27 +57,107 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
 
     }
 
-    private static final int SET = 0;
-    private static final int RESUME = 1;
-    private static final int PAUSE = 2;
-    private static final int CLEAR = 3;
-    private static final int TIMEOUT = 4;
+    /**
+     * The monotonic clock and the timer of the timeout.
+     *
+     * @author Artem Chepurnoy
+     */
+    public interface Clock {
+
+        /**
+         * @return the monotonic time, in millis.
+         */
+        long uptimeMillis();
+
+        /**
+         * Runs the runnable at given {@link #uptimeMillis() time}.
+         */
+        void schedule(@NonNull Runnable runnable, long uptimeMillis);
+
+        /**
+         * Cancels the scheduled runnable.
+         */
+        void cancel(@NonNull Runnable runnable);
+
+    }
+
+    /**
+     * The clock of the main thread.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static class MainClock implements Clock {
+
+        @NonNull
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+
+        @Override
+        public void schedule(@NonNull Runnable runnable, long uptimeMillis) {
+            mHandler.postAtTime(runnable, uptimeMillis);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable runnable) {
+            mHandler.removeCallbacks(runnable);
+        }
+
+    }
 
     private final ArrayList<OnTimeoutEventListener> mListeners = new ArrayList<>(3);
-    private final H mHandler = new H(this);
+    @NonNull
+    private final Clock mClock;
+    @NonNull
+    private final Runnable mTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onTimeout();
+        }
+    };
 
-    private long mTimeoutPausedAt;
-    private long mTimeoutDuration;
-    private long mTimeoutAt;
+    /**
+     * The duration of the timeout, or {@code 0} if it is not set.
+     */
+    private long mDuration;
+
+    /**
+     * The time elapsed before the latest {@link #resume() resume}.
+     */
+    private long mElapsed;
+
+    /**
+     * The time of the latest {@link #resume() resume}.
+     */
+    private long mResumedAt;
+    private boolean mPaused;
+
+    public Timeout() {
+        this(newMainClock());
+    }
+
+    /**
+     * @return the new clock that runs on the main thread.
+     */
+    @NonNull
+    public static Clock newMainClock() {
+        return new MainClock();
+    }
+
+    public Timeout(@NonNull Clock clock) {
+        mClock = clock;
+        mResumedAt = clock.uptimeMillis();
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void registerListener(@NonNull OnTimeoutEventListener listener) {
-        synchronized (this) {
-            mListeners.add(listener);
-        }
+        mListeners.add(listener);
     }
 
     /**
@@ -80,14 +165,12 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
      */
     @Override
     public void unregisterListener(@NonNull OnTimeoutEventListener listener) {
-        synchronized (this) {
-            mListeners.remove(listener);
-        }
+        mListeners.remove(listener);
     }
 
     private void notifyListeners(final int event) {
-        synchronized (this) {
-            for (OnTimeoutEventListener l : mListeners) l.onTimeoutEvent(this, event);
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onTimeoutEvent(this, event);
         }
     }
 
@@ -102,13 +185,32 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} The paused timeout stays paused.
      */
     @Override
     public void set(final int delay, boolean override) {
-        final int overrideInt = MathUtils.bool(override);
-        final Message msg = Message.obtain(mHandler, SET, delay, overrideInt);
-        mHandler.sendMessage(msg);
+        if (isOngoing() && !override && getRemainingTime() < delay) {
+            // The current timeout is nearer.
+            return;
+        }
+
+        mDuration = delay;
+        mElapsed = 0;
+        mResumedAt = mClock.uptimeMillis();
+        schedule();
+        notifyListeners(EVENT_CHANGED);
+    }
+
+    /**
+     * Delays the running timeout by given time; does nothing
+     * if the timeout is paused.
+     */
+    public void delay(long delayMillis) {
+        if (!mPaused && isOngoing()) {
+            mElapsed -= delayMillis;
+            schedule();
+            notifyListeners(EVENT_CHANGED);
+        }
     }
 
     /**
@@ -116,7 +218,12 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
      */
     @Override
     public void pause() {
-        mHandler.sendEmptyMessage(PAUSE);
+        if (!mPaused) {
+            mElapsed += mClock.uptimeMillis() - mResumedAt;
+            mPaused = true;
+            mClock.cancel(mTimeoutRunnable);
+            notifyListeners(EVENT_PAUSED);
+        }
     }
 
     /**
@@ -124,154 +231,153 @@ public class Timeout implements ITimeout, ISubscriptable<Timeout.OnTimeoutEventL
      */
     @Override
     public void resume() {
-        mHandler.sendEmptyMessage(RESUME);
+        if (mPaused) {
+            mPaused = false;
+            mResumedAt = mClock.uptimeMillis();
+            schedule();
+            notifyListeners(EVENT_RESUMED);
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} The paused timeout stays paused.
      */
     @Override
     public void clear() {
-        mHandler.sendEmptyMessage(CLEAR);
+        mDuration = 0;
+        mElapsed = 0;
+        mClock.cancel(mTimeoutRunnable);
+        notifyListeners(EVENT_CLEARED);
     }
 
-    //-- OTHER -----------------------------------------------------------------
-
-    private long uptimeMillis() {
-        return SystemClock.uptimeMillis();
+    /**
+     * @return {@code true} if the timeout is set, {@code false} otherwise.
+     */
+    public boolean isOngoing() {
+        return mDuration > 0;
     }
 
-    private void checkThread() {
-        final Thread handlerThread = mHandler.getLooper().getThread();
-        final Thread currentThread = Thread.currentThread();
-        Check.getInstance().isTrue(handlerThread.equals(currentThread));
+    /**
+     * @return {@code true} if the timeout is paused, {@code false} otherwise.
+     */
+    public boolean isPaused() {
+        return mPaused;
     }
 
-    //-- HANDLER --------------------------------------------------------------
-
     /**
-     * @author Artem Chepurnoy
+     * @return the time left till the timeout, or {@code 0} if
+     * the timeout is not {@link #isOngoing() set}.
      */
-    private static class H extends WeakHandler<Timeout> {
-
-        public H(@NonNull Timeout object) {
-            super(object);
-        }
-
-        @Override
-        protected void onHandleMassage(@NonNull Timeout timeout, Message msg) {
-            switch (msg.what) {
-                case SET:
-                    timeout.internalSet(msg.arg1, msg.arg2 != 0);
-                    break;
-                case RESUME:
-                    timeout.internalResume();
-                    break;
-                case PAUSE:
-                    timeout.internalPause();
-                    break;
-                case CLEAR:
-                    timeout.internalClear();
-                    break;
-                case TIMEOUT:
-                    timeout.internalTimeout();
-                    break;
-                default:
-                    throw new IllegalArgumentException();
-            }
-        }
-
+    public long getRemainingTime() {
+        return isOngoing() ? mDuration - getElapsedTime() : 0;
     }
 
-    private void internalSet(long delayMillis, boolean resetOld) {
-        checkThread();
-        final boolean isPaused = mTimeoutPausedAt != 0;
-        final long timeoutAt = uptimeMillis() + delayMillis;
-        final long timeoutAtOld = mTimeoutAt + (isPaused
-                ? uptimeMillis() - mTimeoutPausedAt
-                : 0);
-
-        if (mTimeoutAt == 0 || timeoutAtOld > timeoutAt || resetOld) {
-            mTimeoutDuration = delayMillis;
-            mTimeoutAt = timeoutAt;
-
-            if (isPaused) {
-                mTimeoutPausedAt = uptimeMillis();
-                notifyListeners(EVENT_SET);
-            } else {
-                notifyListeners(EVENT_SET);
-                mHandler.removeMessages(TIMEOUT);
-                mHandler.sendEmptyMessageAtTime(TIMEOUT, mTimeoutAt);
-            }
-        }
+    /**
+     * @return the elapsed part of the timeout, from {@code 0} to {@code 1}.
+     */
+    public float getProgress() {
+        return isOngoing()
+                ? MathUtils.range((float) getElapsedTime() / mDuration, 0f, 1f)
+                : 0f;
     }
 
-    private void internalResume() {
-        if (mTimeoutPausedAt != 0) {
-            checkThread();
-
-            final long pausedAt = mTimeoutPausedAt;
-            mTimeoutPausedAt = 0;
-
-            if (mTimeoutAt > 0) {
-                long delta = uptimeMillis() - pausedAt;
-                mTimeoutAt += delta;
-                mHandler.sendEmptyMessageAtTime(TIMEOUT, mTimeoutAt);
-                notifyListeners(EVENT_RESUMED);
-            }
-        }
+    private long getElapsedTime() {
+        return mPaused ? mElapsed : mElapsed + mClock.uptimeMillis() - mResumedAt;
     }
 
-    private void internalPause() {
-        if (mTimeoutPausedAt == 0) {
-            checkThread();
-            mTimeoutPausedAt = uptimeMillis();
-            mHandler.removeMessages(TIMEOUT);
-            notifyListeners(EVENT_PAUSED);
+    private void schedule() {
+        mClock.cancel(mTimeoutRunnable);
+        if (!mPaused && isOngoing()) {
+            mClock.schedule(mTimeoutRunnable, mResumedAt + mDuration - mElapsed);
         }
     }
 
-    private void internalClear() {
-        checkThread();
-        mTimeoutAt = 0;
-        mTimeoutDuration = 0;
-        mTimeoutPausedAt = 0;
-        mHandler.removeMessages(TIMEOUT);
-        notifyListeners(EVENT_CLEARED);
-    }
+    private void onTimeout() {
+        if (mPaused || !isOngoing()) {
+            return;
+        } else if (getRemainingTime() > 0) {
+            schedule(); // Too early
+            return;
+        }
 
-    private void internalTimeout() {
-        checkThread();
-        mTimeoutAt = 0;
-        mTimeoutDuration = 0;
-        Check.getInstance().isTrue(mTimeoutPausedAt == 0);
+        mDuration = 0;
+        mElapsed = 0;
         notifyListeners(EVENT_TIMEOUT);
     }
 
     //-- GUI ------------------------------------------------------------------
 
     /**
+     * Displays the remaining time of the timeout in a progress bar,
+     * updating it on every frame while the timeout is running.
+     *
      * @author Artem Chepurnoy
      */
-    public static class Gui implements Timeout.OnTimeoutEventListener {
+    public static class Gui implements OnTimeoutEventListener, Choreographer.FrameCallback {
 
         private static final int MAX = 300;
 
-        private final ProgressBarAnimation mProgressBarAnimation;
+        @NonNull
         private final ProgressBar mProgressBar;
+        private Timeout mTimeout;
+        private boolean mFrameScheduled;
 
         public Gui(@NonNull ProgressBar progressBar) {
             mProgressBar = progressBar;
             mProgressBar.setMax(MAX);
             mProgressBar.setProgress(MAX);
-            mProgressBarAnimation = new ProgressBarAnimation(mProgressBar, MAX, 0);
-            mProgressBarAnimation.setInterpolator(new LinearInterpolator());
         }
 
         @Override
         public void onTimeoutEvent(@NonNull Timeout timeout, int event) {
-            // TODO: Write the timeout's gui
+            mTimeout = timeout;
+            switch (event) {
+                case EVENT_CLEARED:
+                    stop();
+                    mProgressBar.setProgress(MAX);
+                    break;
+                case EVENT_TIMEOUT:
+                    stop();
+                    mProgressBar.setProgress(0);
+                    break;
+                default:
+                    if (timeout.isOngoing()) updateProgress();
+                    if (timeout.isOngoing() && !timeout.isPaused()) {
+                        if (!mFrameScheduled) {
+                            mFrameScheduled = true;
+                            Choreographer.getInstance().postFrameCallback(this);
+                        }
+                    } else stop();
+                    break;
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameScheduled = false;
+            if (mTimeout != null && mTimeout.isOngoing() && !mTimeout.isPaused()) {
+                updateProgress();
+                mFrameScheduled = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
         }
+
+        private void updateProgress() {
+            final int progress = (int) (MAX * (1f - mTimeout.getProgress()));
+            if (mProgressBar.getProgress() != progress) mProgressBar.setProgress(progress);
+        }
+
+        /**
+         * Stops updating the progress bar; call it when the
+         * progress bar is not shown anymore.
+         */
+        public void stop() {
+            if (mFrameScheduled) {
+                mFrameScheduled = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.base.async;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The registry of shared background executors. Use these instead of creating
+ * new threads: each pool has a bounded number of threads, so bursts of work
+ * (like loads of incoming notifications) queue up instead of spawning more
+ * threads, and every pool keeps counters of its queue depth, wait time and
+ * run time, see {@link #dump(PrintWriter)}.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class AppExecutors {
+
+    /**
+     * The task is handled before any queued task of lower priority.
+     */
+    public static final int PRIORITY_HIGH = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_LOW = 2;
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How long idle threads are kept alive.
+     */
+    private static final long KEEP_ALIVE = 30; // sec.
+
+    private static final Pool sIo = new Pool("io", 4,
+            Process.THREAD_PRIORITY_BACKGROUND);
+    private static final Pool sCpu = new Pool("cpu", CPU_COUNT,
+            Process.THREAD_PRIORITY_DEFAULT);
+    private static final Pool sImage = new Pool("image", Math.min(CPU_COUNT, 2),
+            Process.THREAD_PRIORITY_DEFAULT);
+
+    /**
+     * @return the pool for blocking work: disk, network and binder calls.
+     */
+    @NonNull
+    public static Pool io() {
+        return sIo;
+    }
+
+    /**
+     * @return the pool for computations that are split into
+     * a task per core.
+     */
+    @NonNull
+    public static Pool cpu() {
+        return sCpu;
+    }
+
+    /**
+     * @return the pool for decoding and processing of images, such
+     * as notification icons and backgrounds.
+     */
+    @NonNull
+    public static Pool image() {
+        return sImage;
+    }
+
+    /**
+     * Prints the counters of all pools.
+     */
+    public static void dump(@NonNull PrintWriter pw) {
+        pw.println("Executors:");
+        sIo.dump(pw);
+        sCpu.dump(pw);
+        sImage.dump(pw);
+    }
+
+    private AppExecutors() {
+    }
+
+    /**
+     * The bounded thread pool with priority lanes and counters.
+     *
+     * @author Artem Chepurnoy
+     */
+    public static final class Pool extends ThreadPoolExecutor {
+
+        @NonNull
+        private final String mName;
+
+        private final AtomicLong mSequence = new AtomicLong();
+        private final AtomicLong mCompleted = new AtomicLong();
+        private final AtomicInteger mQueueDepthMax = new AtomicInteger();
+        private final AtomicLong mWaitTimeSum = new AtomicLong();
+        private final AtomicLong mWaitTimeMax = new AtomicLong();
+        private final AtomicLong mRunTimeSum = new AtomicLong();
+        private final AtomicLong mRunTimeMax = new AtomicLong();
+
+        private Pool(@NonNull String name, int size, int threadPriority) {
+            super(size, size, KEEP_ALIVE, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<Runnable>(),
+                    new Factory(name, threadPriority));
+            allowCoreThreadTimeOut(true);
+            mName = name;
+        }
+
+        /**
+         * Executes the runnable with {@link #PRIORITY_NORMAL normal} priority.
+         */
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            execute(runnable, PRIORITY_NORMAL);
+        }
+
+        /**
+         * @param priority one of {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL}
+         *                 or {@link #PRIORITY_LOW}.
+         */
+        public void execute(@NonNull Runnable runnable, int priority) {
+            super.execute(new Task(runnable, priority, mSequence.getAndIncrement()));
+            setIfGreater(mQueueDepthMax, getQueue().size());
+        }
+
+        @NonNull
+        public String getName() {
+            return mName;
+        }
+
+        public int getQueueDepth() {
+            return getQueue().size();
+        }
+
+        public int getQueueDepthMax() {
+            return mQueueDepthMax.get();
+        }
+
+        /**
+         * @return the number of finished tasks.
+         */
+        public long getCompletedCount() {
+            return mCompleted.get();
+        }
+
+        /**
+         * @return the average time tasks spent in the queue, in nanoseconds.
+         */
+        public long getWaitTimeAverage() {
+            final long n = mCompleted.get();
+            return n == 0 ? 0 : mWaitTimeSum.get() / n;
+        }
+
+        public long getWaitTimeMax() {
+            return mWaitTimeMax.get();
+        }
+
+        /**
+         * @return the average time tasks spent running, in nanoseconds.
+         */
+        public long getRunTimeAverage() {
+            final long n = mCompleted.get();
+            return n == 0 ? 0 : mRunTimeSum.get() / n;
+        }
+
+        public long getRunTimeMax() {
+            return mRunTimeMax.get();
+        }
+
+        public void dump(@NonNull PrintWriter pw) {
+            pw.println("  " + mName + ":"
+                    + " threads=" + getPoolSize() + "/" + getMaximumPoolSize()
+                    + " active=" + getActiveCount()
+                    + " queue=" + getQueueDepth()
+                    + " queue_max=" + getQueueDepthMax()
+                    + " completed=" + getCompletedCount()
+                    + " wait_avg=" + TimeUnit.NANOSECONDS.toMillis(getWaitTimeAverage()) + "ms"
+                    + " wait_max=" + TimeUnit.NANOSECONDS.toMillis(getWaitTimeMax()) + "ms"
+                    + " run_avg=" + TimeUnit.NANOSECONDS.toMillis(getRunTimeAverage()) + "ms"
+                    + " run_max=" + TimeUnit.NANOSECONDS.toMillis(getRunTimeMax()) + "ms");
+        }
+
+        private static void setIfGreater(@NonNull AtomicInteger atomic, int value) {
+            int current;
+            while (value > (current = atomic.get())) {
+                if (atomic.compareAndSet(current, value)) break;
+            }
+        }
+
+        private static void setIfGreater(@NonNull AtomicLong atomic, long value) {
+            long current;
+            while (value > (current = atomic.get())) {
+                if (atomic.compareAndSet(current, value)) break;
+            }
+        }
+
+        /**
+         * The queued runnable; ordered by priority, and then by
+         * the order of submitting.
+         */
+        private final class Task implements Runnable, Comparable<Task> {
+
+            @NonNull
+            private final Runnable mRunnable;
+            private final int mPriority;
+            private final long mSequence;
+            private final long mQueueTime = System.nanoTime();
+
+            Task(@NonNull Runnable runnable, int priority, long sequence) {
+                mRunnable = runnable;
+                mPriority = priority;
+                mSequence = sequence;
+            }
+
+            @Override
+            public void run() {
+                final long start = System.nanoTime();
+                final long waitTime = start - mQueueTime;
+                try {
+                    mRunnable.run();
+                } finally {
+                    final long runTime = System.nanoTime() - start;
+                    mWaitTimeSum.addAndGet(waitTime);
+                    mRunTimeSum.addAndGet(runTime);
+                    setIfGreater(mWaitTimeMax, waitTime);
+                    setIfGreater(mRunTimeMax, runTime);
+                    mCompleted.incrementAndGet();
+                }
+            }
+
+            @Override
+            public int compareTo(@NonNull Task another) {
+                if (mPriority != another.mPriority) {
+                    return mPriority < another.mPriority ? -1 : 1;
+                }
+                return mSequence < another.mSequence ? -1 : mSequence == another.mSequence ? 0 : 1;
+            }
+
+        }
+
+    }
+
+    /**
+     * Creates the named threads of given priority.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static final class Factory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+        @NonNull
+        private final String mName;
+        private final int mPriority;
+
+        Factory(@NonNull String name, int priority) {
+            mName = name;
+            mPriority = priority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mPriority);
+                    runnable.run();
+                }
+            }, "AppExecutors-" + mName + "-" + mCount.getAndIncrement());
+        }
+
+    }
+
+}
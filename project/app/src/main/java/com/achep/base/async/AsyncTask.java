@@ -36,6 +36,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import timber.log.Timber;
 
@@ -82,11 +84,9 @@ public abstract class AsyncTask<A, B, C> extends android.os.AsyncTask<A, B, C> {
 
         private static final String TAG = "DownloadText";
 
-        private static final int MAX_THREAD_NUM = 5;
-
         private final WeakReference<Callback> mCallback;
         private final ConcurrentHashMap<String, String> mMap;
-        private final List<LoaderThread> mThreadList;
+        private final List<Future<?>> mFutures;
 
         private boolean mReduceThreads = false;
 
@@ -111,19 +111,17 @@ public abstract class AsyncTask<A, B, C> extends android.os.AsyncTask<A, B, C> {
             void onDownloaded(@NonNull String[] texts);
         }
 
-        private static class LoaderThread extends Thread {
+        private static class Loader implements Runnable {
 
             private final ConcurrentHashMap<String, String> mMap;
             private final String mUrl;
 
-            public LoaderThread(ConcurrentHashMap<String, String> map, String url) {
+            public Loader(ConcurrentHashMap<String, String> map, String url) {
                 mMap = map;
                 mUrl = url;
             }
 
             @Override
-            // TODO: Calculate how much downloading will take
-            // to be able to kick threads effectively.
             public void run() {
                 Timber.tag(TAG).d("Fetching from " + mUrl);
 
@@ -159,9 +157,8 @@ public abstract class AsyncTask<A, B, C> extends android.os.AsyncTask<A, B, C> {
         public DownloadText(@NonNull Callback callback) {
             mCallback = new WeakReference<>(callback);
 
-            int initialCapacity = Math.min(MAX_THREAD_NUM, 5);
-            mMap = new ConcurrentHashMap<>(initialCapacity);
-            mThreadList = new ArrayList<>(initialCapacity);
+            mMap = new ConcurrentHashMap<>(5);
+            mFutures = new ArrayList<>(5);
         }
 
         @Override
@@ -171,44 +168,19 @@ public abstract class AsyncTask<A, B, C> extends android.os.AsyncTask<A, B, C> {
             for (String url : urls) {
                 if (TextUtils.isEmpty(url)) continue;
 
-                // Control the amount of running threads.
-                final int threadSize = mThreadList.size();
-                if (mReduceThreads ? threadSize > 1 : threadSize > MAX_THREAD_NUM) {
-
-                    // Search for the best candidate to be
-                    // finished.
-                    LoaderThread thread = null;
-                    for (int i = 0; i < threadSize; i++) {
-                        thread = mThreadList.get(i);
-                        if (!thread.isAlive()) {
-                            // No need to search more,
-                            // dead thread is a great choice.
-                            break;
-                        } else if (i == threadSize - 1) {
-                            thread = mThreadList.get(0);
-                        }
-                    }
-
-                    assert thread != null;
-                    joinThread(thread);
-                    mThreadList.remove(thread);
-                }
-
-                LoaderThread thread = new LoaderThread(mMap, url);
-                thread.start();
-                mThreadList.add(thread);
+                // The number of parallel downloads is limited
+                // by the io pool.
+                if (mReduceThreads) joinFutures();
+                mFutures.add(AppExecutors.io().submit(new Loader(mMap, url)));
 
                 if (isCancelled()) {
-                    fireThreads();
+                    cancelFutures();
                     return null;
                 }
             }
 
-            // Wait for all threads.
-            for (LoaderThread thread : mThreadList) {
-                joinThread(thread);
-            }
-            mThreadList.clear();
+            // Wait for all downloads.
+            joinFutures();
 
             // Extract results to the array.
             for (int i = 0; i < urls.length; i++) {
@@ -219,29 +191,27 @@ public abstract class AsyncTask<A, B, C> extends android.os.AsyncTask<A, B, C> {
         }
 
         /**
-         * Joins given thread, if it is alive.
-         *
-         * @param thread thread to be joined
+         * Waits for all running downloads to finish.
          */
-        private void joinThread(@NonNull LoaderThread thread) {
-            if (thread.isAlive()) {
+        private void joinFutures() {
+            for (Future<?> future : mFutures) {
                 while (true) {
                     try {
-                        thread.join();
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) { /* pretty please! */
+                    } catch (ExecutionException e) {
                         break;
-                    } catch (InterruptedException e) { /* pretty please! */ }
+                    }
                     // Well, at least it didn't explode.
                 }
             }
+            mFutures.clear();
         }
 
-        private void fireThreads() { // is it correct?
-            for (LoaderThread thread : mThreadList) {
-                if (thread.isAlive() && !thread.isInterrupted()) {
-                    thread.interrupt();
-                }
-            }
-            mThreadList.clear();
+        private void cancelFutures() {
+            for (Future<?> future : mFutures) future.cancel(true);
+            mFutures.clear();
         }
 
         @Override
@@ -19,74 +19,192 @@
 package com.achep.base.async;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.achep.base.interfaces.IThreadFinishable;
 
-import java.util.Iterator;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import timber.log.Timber;
 
 /**
- * Created by Artem Chepurnoy on 17.04.2015.
+ * The thread that handles the tasks sent from any number of threads, one by one.
+ * <p>
+ * Tasks are kept in a lock-free multi-producer single-consumer linked queue:
+ * sending a task never blocks (unless the {@link #OVERFLOW_BLOCK} policy is set)
+ * and the idle thread is parked instead of waiting on a monitor. The thread drains
+ * tasks in batches to a reusable array, so handling takes no allocations.
+ * <p>
+ * The queue may have a capacity, then the {@link #OVERFLOW_DROP_OLDEST overflow policy}
+ * decides what happens to the backlog.
+ *
+ * @author Artem Chepurnoy
  */
 public abstract class TaskQueueThread<T> extends Thread implements IThreadFinishable {
 
     private static final String TAG = "TaskQueueThread";
 
-    private final Queue<T> mQueue = new ConcurrentLinkedQueue<>();
-    private boolean mWaiting = false;
+    /**
+     * When the backlog is over the capacity, the oldest tasks are
+     * dropped before handling the next batch.
+     *
+     * @see #onTaskDropped(Object)
+     */
+    public static final int OVERFLOW_DROP_OLDEST = 0;
+
+    /**
+     * Tasks with the same {@link #getTaskKey(Object) key} in one batch (of
+     * capacity size) are coalesced into the latest of them.
+     *
+     * @see #onTaskDropped(Object)
+     */
+    public static final int OVERFLOW_COALESCE = 1;
+
+    /**
+     * Sending a task to the full queue blocks the producer
+     * until the backlog is handled.
+     */
+    public static final int OVERFLOW_BLOCK = 2;
+
+    /**
+     * The size of the drain array of the unbounded queue.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * The node of the linked queue; its value is cleared by the one who
+     * has claimed the task: the handling thread, or the one that cancels it.
+     */
+    private static final class Node<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+
+        volatile Node<T> next;
+        volatile Object value;
+
+        Node(@Nullable T value) {
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        T claim() {
+            return (T) VALUE.getAndSet(this, null);
+        }
+
+        boolean claim(@NonNull Object expected) {
+            return VALUE.compareAndSet(this, expected, null);
+        }
+
+    }
+
+    /**
+     * The last added node; producers swap it.
+     */
+    private final AtomicReference<Node<T>> mTail;
+
+    /**
+     * The stub node, its successor is the oldest task. Only the
+     * handling thread moves it.
+     */
+    private volatile Node<T> mHead;
 
-    protected boolean mRunning = true;
+    private final AtomicInteger mSize = new AtomicInteger();
+    private final int mCapacity;
+    private final int mOverflowPolicy;
+    @NonNull
+    private final Object[] mDrain;
+    @Nullable
+    private final ConcurrentLinkedQueue<Thread> mBlockedProducers;
+
+    private volatile boolean mParked;
+
+    protected volatile boolean mRunning = true;
+
+    /**
+     * Creates the thread with the unbounded queue.
+     */
+    public TaskQueueThread() {
+        this(0, OVERFLOW_DROP_OLDEST);
+    }
+
+    /**
+     * @param capacity       the capacity of the queue, or {@code 0} if it's unbounded
+     * @param overflowPolicy one of {@link #OVERFLOW_DROP_OLDEST}, {@link #OVERFLOW_COALESCE}
+     *                       or {@link #OVERFLOW_BLOCK}.
+     */
+    public TaskQueueThread(int capacity, int overflowPolicy) {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity must not be negative!");
+
+        Node<T> stub = new Node<>(null);
+        mHead = stub;
+        mTail = new AtomicReference<>(stub);
+        mCapacity = capacity;
+        mOverflowPolicy = overflowPolicy;
+        mDrain = new Object[capacity > 0 ? capacity : BATCH_SIZE];
+        mBlockedProducers = capacity > 0 && overflowPolicy == OVERFLOW_BLOCK
+                ? new ConcurrentLinkedQueue<Thread>()
+                : null;
+    }
 
     @Override
     public void finish() {
         finish(false);
     }
 
+    /**
+     * Stops the thread after the current batch of tasks and waits for it.
+     *
+     * @param clearAllTasks {@code true} to cancel all pending tasks
+     */
     public void finish(boolean clearAllTasks) {
         if (isAlive()) {
             mRunning = false;
-            if (clearAllTasks) {
-                synchronized (this) {
-                    mQueue.clear();
-                    if (mWaiting) notifyAll();
-                }
-            }
+            if (clearAllTasks) clearAllTasks();
+            LockSupport.unpark(this);
+            unparkProducers();
+
+            if (currentThread() == this) return;
+
+            boolean interrupted = false;
             while (true) {
                 try {
                     join();
                     break;
-                } catch (InterruptedException e) { /* pretty please! */ }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
             }
+
+            // Restore the interrupted status, so the
+            // caller may handle it.
+            if (interrupted) currentThread().interrupt();
         }
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public void run() {
         Timber.tag(TAG).d("Starting thread...");
         super.run();
 
-        Queue<T> queue = new ConcurrentLinkedQueue<>();
+        final Object[] drain = mDrain;
         while (mRunning) {
-            synchronized (this) {
-                if (mQueue.isEmpty())
-                    try {
-                        // Wait for a next #sendEvent(Event),
-                        // where this thread will be unlocked.
-                        mWaiting = true;
-                        wait();
-                    } catch (InterruptedException ignored) {
-                    } finally {
-                        mWaiting = false;
-                    }
-
-                // Move all pending events to a local copy, so we don't need
-                // to block main queue.
-                while (!mQueue.isEmpty()) {
-                    queue.add(mQueue.poll());
-                }
+            final int n = drain(drain);
+            if (n == 0) {
+                mParked = true;
+                // Check the queue once more after publishing that we are
+                // going to park: a producer either sees the flag, or we
+                // see its task.
+                if (mHead.next == null && mRunning) LockSupport.park(this);
+                mParked = false;
+                continue;
             }
 
             if (isLost()) {
@@ -94,39 +212,157 @@ public abstract class TaskQueueThread<T> extends Thread implements IThreadFinish
                 break;
             }
 
-            Iterator<T> iterator = queue.iterator();
-            while (iterator.hasNext()) {
-                T object = iterator.next();
+            for (int i = 0; i < n; i++) {
+                final T object = (T) drain[i];
+                drain[i] = null;
+                if (object == null) continue; // coalesced
                 // ~~
                 onHandleTask(object);
                 // ~~
-                iterator.remove();
             }
         }
 
-
+        unparkProducers();
         Timber.tag(TAG).d("Stopping thread...");
     }
 
-    public void sendTask(@NonNull T object) {
-        synchronized (this) {
-            mQueue.add(object);
+    /**
+     * Moves the next batch of tasks to given array.
+     *
+     * @return the number of moved tasks.
+     */
+    @SuppressWarnings("unchecked")
+    private int drain(@NonNull Object[] drain) {
+        if (mCapacity > 0 && mOverflowPolicy == OVERFLOW_DROP_OLDEST) {
+            for (int excess = mSize.get() - mCapacity; excess > 0; excess--) {
+                final T object = poll();
+                if (object == null) break;
+                onTaskDropped(object);
+            }
+        }
 
-            // Release the thread lock if needed.
-            if (mWaiting) notifyAll();
+        int n = 0;
+        T object;
+        while (n < drain.length && (object = poll()) != null) {
+            drain[n++] = object;
+        }
+
+        if (n > 1 && mCapacity > 0 && mOverflowPolicy == OVERFLOW_COALESCE) {
+            // Keep only the latest task of each key.
+            for (int i = 0; i < n - 1; i++) {
+                final Object key = getTaskKey((T) drain[i]);
+                for (int j = i + 1; j < n; j++) {
+                    if (drain[j] != null && equals(key, getTaskKey((T) drain[j]))) {
+                        onTaskDropped((T) drain[i]);
+                        drain[i] = null;
+                        break;
+                    }
+                }
+            }
         }
+
+        if (n > 0) unparkProducers();
+        return n;
+    }
+
+    /**
+     * @return the oldest pending task, or {@code null} if there are none.
+     */
+    @Nullable
+    private T poll() {
+        Node<T> head = mHead;
+        Node<T> next;
+        while ((next = head.next) != null) {
+            head = next;
+            mHead = head;
+
+            final T object = head.claim();
+            if (object != null) {
+                mSize.decrementAndGet();
+                return object;
+            }
+            // The task has been cleared.
+        }
+        return null;
+    }
+
+    private void unparkProducers() {
+        if (mBlockedProducers == null) return;
+        for (Thread thread : mBlockedProducers) LockSupport.unpark(thread);
     }
 
+    private static boolean equals(@Nullable Object a, @Nullable Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Adds the task to the end of the queue and wakes the thread up.
+     */
+    public void sendTask(@NonNull T object) {
+        if (mBlockedProducers != null && currentThread() != this) {
+            final Thread thread = currentThread();
+            while (mSize.get() >= mCapacity && mRunning) {
+                mBlockedProducers.add(thread);
+                // Check again after publishing that we are going to park:
+                // the handling thread either sees us, or we see the space.
+                if (mSize.get() >= mCapacity && mRunning) LockSupport.park(this);
+                mBlockedProducers.remove(thread);
+            }
+        }
+
+        final Node<T> node = new Node<>(object);
+        mTail.getAndSet(node).next = node;
+        mSize.incrementAndGet();
+
+        // Release the thread if needed.
+        if (mParked) LockSupport.unpark(this);
+    }
+
+    /**
+     * Cancels the pending task, if it hasn't been handled yet.
+     */
     public void clearTask(@NonNull T object) {
-        synchronized (this) {
-            mQueue.remove(object);
+        for (Node<T> node = mHead.next; node != null; node = node.next) {
+            final Object value = node.value;
+            if (value != null && value.equals(object) && node.claim(value)) {
+                mSize.decrementAndGet();
+                return;
+            }
         }
     }
 
+    /**
+     * Cancels all pending tasks.
+     */
     public void clearAllTasks() {
-        synchronized (this) {
-            mQueue.clear();
+        for (Node<T> node = mHead.next; node != null; node = node.next) {
+            if (node.claim() != null) mSize.decrementAndGet();
         }
+        unparkProducers();
+    }
+
+    /**
+     * @return the number of pending tasks.
+     */
+    public int getTaskCount() {
+        return mSize.get();
+    }
+
+    /**
+     * @return the key to {@link #OVERFLOW_COALESCE coalesce} tasks by;
+     * the task itself by default.
+     */
+    @Nullable
+    protected Object getTaskKey(@NonNull T object) {
+        return object;
+    }
+
+    /**
+     * Called on the handling thread when the task is dropped
+     * because of the overflow.
+     */
+    protected void onTaskDropped(@NonNull T object) {
+        Timber.tag(TAG).d("Dropped the task because of overflow: " + object);
     }
 
     protected abstract void onHandleTask(T object);
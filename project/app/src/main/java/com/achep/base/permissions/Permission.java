@@ -20,6 +20,8 @@ package com.achep.base.permissions;
 
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.StringRes;
@@ -97,7 +99,17 @@ public abstract class Permission implements
     @NonNull
     protected final ArrayList<OnPermissionStateChanged> mListeners = new ArrayList<>();
 
+    private volatile boolean mObserving;
+    private volatile boolean mGranted;
+
     public interface OnPermissionStateChanged {
+
+        /**
+         * Called on the main thread when the permission gets granted or revoked,
+         * but only while the permission is {@link #startObserving(Handler) observed}.
+         */
+        void onPermissionStateChanged(@NonNull Permission permission, boolean granted);
+
     }
 
     public Permission(@NonNull Context context) {
@@ -124,12 +136,84 @@ public abstract class Permission implements
         }
     }
 
+    private void notifyListeners(boolean granted) {
+        synchronized (this) {
+            for (int i = mListeners.size() - 1; i >= 0; i--) {
+                mListeners.get(i).onPermissionStateChanged(this, granted);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void onLowMemory() { /* empty */ }
 
+    /**
+     * {@inheritDoc}
+     * While the permission is {@link #startObserving(Handler) observed} this
+     * returns the cached state, so it's cheap enough to be called on hot paths.
+     */
+    @Override
+    public final boolean isGranted() {
+        return mObserving ? mGranted : queryGranted();
+    }
+
+    /**
+     * Asks the system whether the permission is granted. This may parse
+     * secure settings or call system services, so this is expensive.
+     */
+    protected abstract boolean queryGranted();
+
+    /**
+     * @return The secure settings which the state of the permission depends on.
+     * The observer should {@link #refresh() refresh} the state on their changes.
+     */
+    @NonNull
+    public Uri[] getObservedUris() {
+        return new Uri[0];
+    }
+
+    /**
+     * Starts caching the state of the permission. The owner is responsible for
+     * {@link #refresh() refreshing} it on changes of the {@link #getObservedUris() settings}
+     * and of the package; permissions that have other sources of changes should
+     * subscribe to them here.
+     *
+     * @param handler the handler of the main thread to post the changes to
+     * @see #stopObserving()
+     */
+    public void startObserving(@NonNull Handler handler) {
+        mGranted = queryGranted();
+        mObserving = true;
+    }
+
+    /**
+     * @see #startObserving(Handler)
+     */
+    public void stopObserving() {
+        mObserving = false;
+    }
+
+    /**
+     * Re-queries the state of the permission and notifies the
+     * listeners if it has changed. Should be called from the main thread.
+     */
+    public void refresh() {
+        if (mObserving) setGranted(queryGranted());
+    }
+
+    /**
+     * Updates the cached state of the permission, if it is
+     * {@link #startObserving(Handler) observed}.
+     */
+    protected void setGranted(boolean granted) {
+        if (!mObserving || mGranted == granted) return;
+        mGranted = granted;
+        notifyListeners(granted);
+    }
+
     /**
      * {@inheritDoc}
      */
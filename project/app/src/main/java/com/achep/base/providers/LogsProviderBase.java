@@ -109,7 +109,8 @@ public abstract class LogsProviderBase extends ContentProvider {
 
     @Override
     public String getType(@NonNull Uri uri) {
-        return "text/plain";
+        final String fileName = uri.getLastPathSegment();
+        return fileName != null && fileName.endsWith(".gz") ? "application/gzip" : "text/plain";
     }
 
     /**
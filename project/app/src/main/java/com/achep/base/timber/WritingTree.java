@@ -81,7 +81,7 @@ public class WritingTree extends Timber.DebugTree {
         private volatile boolean mSleepy;
 
         public T() {
-            mFile = new File(Environment.getExternalStorageDirectory() + "/" + FILENAME);
+            mFile = getFile();
             if (!FileUtils.deleteRecursive(mFile)) Log.w(TAG, "Failed to remove the ");
             setPriority(Thread.MIN_PRIORITY);
         }
@@ -161,6 +161,14 @@ public class WritingTree extends Timber.DebugTree {
         super();
     }
 
+    /**
+     * @return the file the logs are written to.
+     */
+    @NonNull
+    public static File getFile() {
+        return new File(Environment.getExternalStorageDirectory(), FILENAME);
+    }
+
     @Override
     protected void log(int priority, String tag, String message, Throwable t) {
         synchronized (this) {
@@ -75,14 +75,11 @@ public class SwitchBarPermissible implements Permission.OnPermissionStateChanged
             return;
         }
 
-        boolean enabled = true;
         for (Permission permission : mPermissions) {
             permission.registerListener(this);
-            if (enabled) enabled = permission.isGranted();
         }
 
-        ViewUtils.setVisible(mSwitchBar.getIconView(), !enabled);
-        setChecked(mSwitchBar.isChecked() && enabled);
+        updateState();
     }
 
     /**
@@ -98,6 +95,20 @@ public class SwitchBarPermissible implements Permission.OnPermissionStateChanged
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onPermissionStateChanged(@NonNull Permission permission, boolean granted) {
+        updateState();
+    }
+
+    private void updateState() {
+        final boolean enabled = hasAccess();
+        ViewUtils.setVisible(mSwitchBar.getIconView(), !enabled);
+        setChecked(mSwitchBar.isChecked() && enabled);
+    }
+
     private boolean hasAccess() {
         if (mPermissions == null) return true;
         for (Permission permission : mPermissions)
@@ -23,6 +23,11 @@ package com.achep.base.ui.drawables;
  */
 public class PlayPauseDrawable extends TransformationDrawable {
 
+    /**
+     * Enough for a smooth transition at up to 120 frames per second.
+     */
+    private static final int KEYFRAMES = 36;
+
     /**
      * Pause icon
      */
@@ -49,6 +54,7 @@ public class PlayPauseDrawable extends TransformationDrawable {
 
     public PlayPauseDrawable() {
         super(VERTEX_PAUSE, VERTEX_PLAY, VERTEX_STOP);
+        setKeyframes(KEYFRAMES);
     }
 
     public void transformToPause() {
@@ -20,6 +20,7 @@ package com.achep.base.ui.drawables;
 
 import android.annotation.TargetApi;
 import android.content.res.ColorStateList;
+import android.graphics.Color;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
@@ -28,11 +29,19 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.RippleDrawable;
 import android.os.Build;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.util.Log;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
+ * The ripple drawable that applies its color filter to the ripple too.
+ * <p>
+ * The {@link PorterDuffColorFilter porter-duff filters} of the common modes are
+ * applied by {@link #setColor(ColorStateList) re-coloring} the ripple, which is
+ * a public API; other filters fall back to the hidden paint of the ripple.
+ *
  * Created by Artem Chepurnoy on 09.01.2015.
  *
  * @author Artem Chepurnoy
@@ -40,6 +49,54 @@ import java.lang.reflect.Method;
 @TargetApi(Build.VERSION_CODES.LOLLIPOP)
 public class RippleDrawable2 extends RippleDrawable {
 
+    private static final String TAG = "RippleDrawable2";
+
+    private static final int[] STATE_DISABLED = new int[]{};
+    private static final int[] STATE_ENABLED = new int[]{android.R.attr.state_enabled};
+    private static final int[][] STATES = new int[][]{
+            new int[]{-android.R.attr.state_enabled},
+            new int[]{},
+    };
+
+    /**
+     * The hidden {@code RippleDrawable#getRipplePaint()}, resolved once
+     * on first use; {@code null} if it is not available.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static final class RipplePaintMethod {
+
+        @Nullable
+        static final Method METHOD = resolve();
+
+        @Nullable
+        private static Method resolve() {
+            try {
+                Method method = RippleDrawable.class.getDeclaredMethod("getRipplePaint");
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException | SecurityException e) {
+                Log.w(TAG, "Failed to access the paint of the ripple.");
+                return null;
+            }
+        }
+
+    }
+
+    /**
+     * The original color of the ripple.
+     */
+    @NonNull
+    private final ColorStateList mColor;
+
+    /**
+     * The color and the mode of the current
+     * {@link #setColorFilter(int, PorterDuff.Mode) tint}.
+     */
+    private int mTintColor;
+    @Nullable
+    private PorterDuff.Mode mTintMode;
+
     /**
      * Creates a new ripple drawable with the specified ripple color and
      * optional content and mask drawables.
@@ -48,8 +105,9 @@ public class RippleDrawable2 extends RippleDrawable {
      * @param content The content drawable, may be {@code null}
      * @param mask    The mask drawable, may be {@code null}
      */
-    public RippleDrawable2(ColorStateList color, Drawable content, Drawable mask) {
+    public RippleDrawable2(@NonNull ColorStateList color, Drawable content, Drawable mask) {
         super(color, content, mask);
+        mColor = color;
     }
 
     /**
@@ -57,7 +115,27 @@ public class RippleDrawable2 extends RippleDrawable {
      */
     @Override
     public void setColorFilter(int color, @NonNull PorterDuff.Mode mode) {
-        setColorFilter(new PorterDuffColorFilter(color, mode));
+        if (!isTintSupported(mode)) {
+            setColorFilter(new PorterDuffColorFilter(color, mode));
+            return;
+        } else if (mode == mTintMode && color == mTintColor) {
+            return; // Already tinted
+        }
+
+        final int def = mColor.getDefaultColor();
+        super.setColorFilter(new PorterDuffColorFilter(color, mode));
+        setColor(new ColorStateList(STATES, new int[]{
+                tint(mColor.getColorForState(STATE_DISABLED, def), color, mode),
+                tint(mColor.getColorForState(STATE_ENABLED, def), color, mode),
+        }));
+        if (mTintMode == null) {
+            // Drop the filter of the ripple, if it was set by the
+            // fallback; the color is tinted already.
+            Paint paint = getRipplePaint();
+            if (paint != null) paint.setColorFilter(null);
+        }
+        mTintColor = color;
+        mTintMode = mode;
     }
 
     /**
@@ -66,21 +144,67 @@ public class RippleDrawable2 extends RippleDrawable {
     @Override
     public void setColorFilter(ColorFilter colorFilter) {
         super.setColorFilter(colorFilter);
-        getRipplePaint().setColorFilter(colorFilter);
-        // FIXME: Ripple backfires with original color.
+        if (mTintMode != null) {
+            mTintMode = null;
+            setColor(mColor);
+        }
+
+        Paint paint = getRipplePaint();
+        if (paint != null) paint.setColorFilter(colorFilter);
     }
 
+    @Nullable
     private Paint getRipplePaint() {
-        try {
-            Method method = RippleDrawable.class.getDeclaredMethod("getRipplePaint");
-            method.setAccessible(true);
-            return (Paint) method.invoke(this);
-        } catch (NoSuchMethodException
-                | InvocationTargetException
-                | IllegalAccessException ignored) {
+        final Method method = RipplePaintMethod.METHOD;
+        if (method != null) {
+            try {
+                return (Paint) method.invoke(this);
+            } catch (InvocationTargetException | IllegalAccessException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if the mode may be applied by
+     * {@link #tint(int, int, PorterDuff.Mode) tinting} the color of the
+     * ripple, {@code false} otherwise.
+     */
+    static boolean isTintSupported(@NonNull PorterDuff.Mode mode) {
+        switch (mode) {
+            case SRC:
+            case SRC_IN:
+            case MULTIPLY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the color of the ripple filtered by
+     * the porter-duff filter of given color and mode.
+     * @see #isTintSupported(PorterDuff.Mode)
+     */
+    static int tint(int rippleColor, int color, @NonNull PorterDuff.Mode mode) {
+        switch (mode) {
+            case SRC:
+                return color;
+            case SRC_IN:
+                return Color.argb(
+                        Color.alpha(color) * Color.alpha(rippleColor) / 255,
+                        Color.red(color),
+                        Color.green(color),
+                        Color.blue(color));
+            case MULTIPLY:
+                return Color.argb(
+                        Color.alpha(color) * Color.alpha(rippleColor) / 255,
+                        Color.red(color) * Color.red(rippleColor) / 255,
+                        Color.green(color) * Color.green(rippleColor) / 255,
+                        Color.blue(color) * Color.blue(rippleColor) / 255);
+            default:
+                throw new IllegalArgumentException("Unsupported mode: " + mode);
         }
-        // Normally should never happen.
-        return new Paint();
     }
 
 }
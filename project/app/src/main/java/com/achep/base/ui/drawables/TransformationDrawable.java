@@ -18,7 +18,6 @@
  */
 package com.achep.base.ui.drawables;
 
-import android.animation.Animator;
 import android.animation.ObjectAnimator;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -37,28 +36,62 @@ import com.achep.base.utils.FloatProperty;
 /**
  * A class for creating simple transformation buttons. It is very simple to
  * use and perfectly fits simple Material icons' transformation.
+ * <p>
+ * By default the path is rebuilt from the interpolated vertexes on every frame;
+ * with the {@link #setKeyframes(int) keyframes} set, the transitions between the
+ * shapes pick the nearest of the precomputed paths instead. Neither the frames
+ * nor the interruptions of the transition allocate.
  *
  * @author Artem Chepurnoy
  * @see com.achep.base.ui.drawables.PlayPauseDrawable
  */
 public abstract class TransformationDrawable extends Drawable {
 
+    private static final long DURATION = 300; // ms.
+
     private final Path mPath;
     private final Paint mPaint;
     private final float[][][] mVertex;
     private final float[][] mVertexFrom;
 
+    /**
+     * The precomputed paths of the transitions from the shape {@code a} to
+     * the shape {@code b}, where {@code a <= b}; {@code null} if the
+     * {@link #setKeyframes(int) keyframes} are not set.
+     */
+    @Nullable
+    private Path[][][] mKeyframes;
+    private int mKeyframesCount;
+
+    /**
+     * The path that is drawn: either the {@link #mPath} or one of the
+     * {@link #mKeyframes keyframes}.
+     */
+    @NonNull
+    private Path mCurrentPath;
+
     private int mSize = Integer.MAX_VALUE;
+    private float mLeft;
+    private float mTop;
+    private float mActualSize;
 
     private float mProgress;
+    private float mAnimationStart;
     private int mToShape;
 
-    private final Animator mAnimator = ObjectAnimator.ofFloat(this, TRANSFORM, 0f, 1f);
+    /**
+     * The shape the transition starts from, or {@code -1} if it starts
+     * from the middle of the other transition.
+     */
+    private int mFromShape;
+
+    private final ObjectAnimator mAnimator = ObjectAnimator.ofFloat(this, TRANSFORM, 0f, 1f);
     private final static Property<TransformationDrawable, Float> TRANSFORM =
             new FloatProperty<TransformationDrawable>("setTransformation") {
                 @Override
                 public void setValue(TransformationDrawable object, float value) {
-                    object.setTransformation(value);
+                    final float start = object.mAnimationStart;
+                    object.setTransformation(start + (1f - start) * value);
                 }
 
                 @Override
@@ -74,6 +107,7 @@ public abstract class TransformationDrawable extends Drawable {
 
         mPath = new Path();
         mPath.setFillType(Path.FillType.WINDING);
+        mCurrentPath = mPath;
 
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
@@ -86,11 +120,15 @@ public abstract class TransformationDrawable extends Drawable {
     }
 
     public void transformToShape(int i, boolean animate) {
-        if (setTargetShape(i) && animate && !mAnimator.isRunning()) {
-            // If the target shape is new, then we probably should animate the
-            // change.
+        if (!setTargetShape(i)) return;
+        if (mAnimator.isStarted()) mAnimator.cancel();
+        if (animate) {
+            // Carry on from the current progress, so the interrupted
+            // transition doesn't jump.
+            mAnimationStart = mProgress;
+            mAnimator.setDuration((long) (DURATION * (1f - mProgress)));
             mAnimator.start();
-        }
+        } else setTransformation(1f);
     }
 
     /**
@@ -100,46 +138,144 @@ public abstract class TransformationDrawable extends Drawable {
      */
     public void setSize(int size) {
         mSize = size;
+        onGeometryChanged();
+    }
+
+    /**
+     * Sets the number of precomputed paths per transition between two shapes,
+     * or {@code 0} to build the path on every frame. The precomputed paths
+     * take the memory, but are free to draw.
+     */
+    public void setKeyframes(int count) {
+        if (mKeyframesCount == count) return;
+        mKeyframesCount = count;
+        if (count > 0) {
+            final int length = mVertex.length;
+            mKeyframes = new Path[length][length][];
+            for (int a = 0; a < length; a++) {
+                mKeyframes[a][a] = new Path[]{new Path()};
+                for (int b = a + 1; b < length; b++) {
+                    Path[] paths = mKeyframes[a][b] = new Path[count + 1];
+                    for (int k = 0; k <= count; k++) paths[k] = new Path();
+                }
+            }
+        } else mKeyframes = null;
+        onGeometryChanged();
     }
 
     public boolean setTargetShape(int i) {
         if (mToShape == i) return false;
-        updateVertexFrom();
+        if (mFromShape == i) {
+            // Going back to where the transition started: the state in the
+            // middle of transition from A to B at P is the state of transition
+            // from B to A at 1-P.
+            copyVertex(mVertex[mToShape]);
+            mFromShape = mToShape;
+            mProgress = 1f - mProgress;
+        } else {
+            if (mKeyframes != null && mFromShape >= 0 && mProgress > 0f && mProgress < 1f) {
+                // Start from the keyframe that is drawn.
+                mProgress = (float) Math.round(mProgress * mKeyframesCount) / mKeyframesCount;
+            }
+
+            if (mProgress == 1f) {
+                mFromShape = mToShape;
+            } else if (mProgress != 0f) {
+                mFromShape = -1;
+            }
+            updateVertexFrom();
+            mProgress = 0f;
+        }
         mToShape = i;
         return true;
     }
 
     public void setTransformation(float progress) {
         mProgress = progress;
-        Rect rect = getBounds();
+        if (mKeyframes != null && mFromShape >= 0 && progress >= 0f && progress <= 1f) {
+            mCurrentPath = getKeyframe(mFromShape, mToShape, progress);
+        } else {
+            buildPath(mPath, mVertexFrom, mVertex[mToShape], progress);
+            mCurrentPath = mPath;
+        }
+        invalidateSelf();
+    }
+
+    public float getTransformation() {
+        return mProgress;
+    }
+
+    /**
+     * @return the path that is currently drawn.
+     */
+    @NonNull
+    Path getPath() {
+        return mCurrentPath;
+    }
 
-        final float size = Math.min(Math.min(
+    /**
+     * @return the precomputed path nearest to given state of the transition.
+     */
+    @NonNull
+    private Path getKeyframe(int from, int to, float progress) {
+        assert mKeyframes != null;
+        if (from == to) return mKeyframes[from][to][0];
+
+        final int count = mKeyframesCount;
+        final int k = Math.round(progress * count);
+        return from < to
+                ? mKeyframes[from][to][k]
+                : mKeyframes[to][from][count - k];
+    }
+
+    /**
+     * Rebuilds the path and the {@link #mKeyframes keyframes} to
+     * the current bounds and size.
+     */
+    private void onGeometryChanged() {
+        Rect rect = getBounds();
+        mActualSize = Math.min(Math.min(
                 rect.right - rect.left,
                 rect.bottom - rect.top), mSize);
-        final float left = rect.left + (rect.right - rect.left - size) / 2;
-        final float top = rect.top + (rect.bottom - rect.top - size) / 2;
-
-        mPath.reset();
-        mPath.moveTo(
-                left + calcTransformation(0, 0, progress, size),
-                top + calcTransformation(1, 0, progress, size));
-        for (int i = 1; i < mVertex[0][0].length; i++) {
-            mPath.lineTo(
-                    left + calcTransformation(0, i, progress, size),
-                    top + calcTransformation(1, i, progress, size));
+        mLeft = rect.left + (rect.right - rect.left - mActualSize) / 2;
+        mTop = rect.top + (rect.bottom - rect.top - mActualSize) / 2;
+
+        if (mKeyframes != null) {
+            final int count = mKeyframesCount;
+            for (int a = 0; a < mKeyframes.length; a++) {
+                buildPath(mKeyframes[a][a][0], mVertex[a], mVertex[a], 1f);
+                for (int b = a + 1; b < mKeyframes.length; b++) {
+                    Path[] paths = mKeyframes[a][b];
+                    for (int k = 0; k <= count; k++) {
+                        buildPath(paths[k], mVertex[a], mVertex[b], (float) k / count);
+                    }
+                }
+            }
         }
 
-        mPath.close();
-        invalidateSelf();
+        setTransformation(mProgress);
     }
 
-    public float getTransformation() {
-        return mProgress;
+    private void buildPath(@NonNull Path path,
+                           @NonNull float[][] from, @NonNull float[][] to,
+                           float progress) {
+        path.rewind();
+        path.setFillType(Path.FillType.WINDING);
+        path.moveTo(
+                mLeft + calcTransformation(from, to, 0, 0, progress, mActualSize),
+                mTop + calcTransformation(from, to, 1, 0, progress, mActualSize));
+        for (int i = 1; i < from[0].length; i++) {
+            path.lineTo(
+                    mLeft + calcTransformation(from, to, 0, i, progress, mActualSize),
+                    mTop + calcTransformation(from, to, 1, i, progress, mActualSize));
+        }
+        path.close();
     }
 
-    private float calcTransformation(int type, int i, float progress, float size) {
-        float v0 = mVertexFrom[type][i] * (1f - progress);
-        float v1 = mVertex[mToShape][type][i] * progress;
+    private static float calcTransformation(@NonNull float[][] from, @NonNull float[][] to,
+                                            int type, int i, float progress, float size) {
+        float v0 = from[type][i] * (1f - progress);
+        float v1 = to[type][i] * progress;
         return (v0 + v1) * size;
     }
 
@@ -148,20 +284,26 @@ public abstract class TransformationDrawable extends Drawable {
      * from this state to one of the defined {@link #mVertex by vertexes}.
      */
     private void updateVertexFrom() {
+        final float[][] to = mVertex[mToShape];
         int length = mVertexFrom[0].length;
         for (int i = 0; i < length; i++) {
-            mVertexFrom[0][i] = calcTransformation(0, i, mProgress, 1f);
-            mVertexFrom[1][i] = calcTransformation(1, i, mProgress, 1f);
+            mVertexFrom[0][i] = calcTransformation(mVertexFrom, to, 0, i, mProgress, 1f);
+            mVertexFrom[1][i] = calcTransformation(mVertexFrom, to, 1, i, mProgress, 1f);
         }
     }
 
+    private void copyVertex(@NonNull float[][] vertex) {
+        System.arraycopy(vertex[0], 0, mVertexFrom[0], 0, mVertexFrom[0].length);
+        System.arraycopy(vertex[1], 0, mVertexFrom[1], 0, mVertexFrom[1].length);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
-        setTransformation(mProgress);
+        onGeometryChanged();
     }
 
     /**
@@ -169,7 +311,7 @@ public abstract class TransformationDrawable extends Drawable {
      */
     @Override
     public void draw(Canvas canvas) {
-        canvas.drawPath(mPath, mPaint);
+        canvas.drawPath(mCurrentPath, mPaint);
     }
 
     /**
@@ -27,6 +27,7 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Process;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
@@ -45,8 +46,11 @@ import com.achep.acdisplay.providers.LogAttachmentProvider;
 import com.achep.acdisplay.ui.DialogHelper;
 import com.achep.base.Build;
 import com.achep.base.Device;
+import com.achep.base.async.AppExecutors;
+import com.achep.base.async.AsyncTask;
 import com.achep.base.content.ConfigBase;
 import com.achep.base.providers.LogsProviderBase;
+import com.achep.base.timber.WritingTree;
 import com.achep.base.utils.FileUtils;
 import com.achep.base.utils.IntentUtils;
 import com.achep.base.utils.PackageUtils;
@@ -60,11 +64,20 @@ import com.afollestad.materialdialogs.MaterialDialog;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
 
 import static com.achep.base.Build.DEBUG;
 
@@ -75,7 +88,14 @@ import static com.achep.base.Build.DEBUG;
  */
 public class FeedbackDialog extends DialogFragment implements ConfigBase.OnConfigChangedListener {
 
+    /**
+     * The maximum number of characters of the attached log; it's
+     * compressed to a few hundreds of kilobytes.
+     */
+    private static final long MAX_LOG_LENGTH = 4 * 1024 * 1024;
+
     private View mFaqContainer;
+    private AttachLogTask mAttachLogTask;
 
     private Spinner mSpinner;
     private EditText mEditText;
@@ -114,6 +134,15 @@ public class FeedbackDialog extends DialogFragment implements ConfigBase.OnConfi
         super.onPause();
     }
 
+    @Override
+    public void onDestroy() {
+        if (mAttachLogTask != null) {
+            AsyncTask.stop(mAttachLogTask);
+            mAttachLogTask.dismissProgressDialog();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onConfigChanged(@NonNull ConfigBase config,
                                 @NonNull String key,
@@ -224,22 +253,31 @@ public class FeedbackDialog extends DialogFragment implements ConfigBase.OnConfi
 
     private void send(@NonNull CharSequence title,
                       @NonNull CharSequence body, boolean attachLog) {
-        Activity context = getActivity();
-        String[] recipients = {Build.SUPPORT_EMAIL};
-        Intent intent = new Intent()
-                .putExtra(Intent.EXTRA_EMAIL, recipients)
-                .putExtra(Intent.EXTRA_SUBJECT, title)
-                .putExtra(Intent.EXTRA_TEXT, body);
-
         if (attachLog) {
-            attachLog(intent);
-            intent.setAction(Intent.ACTION_SEND);
-            intent.setType("message/rfc822");
-        } else {
-            intent.setAction(Intent.ACTION_SENDTO);
-            intent.setData(Uri.parse("mailto:")); // only email apps should handle it
+            // Send it after the log is attached.
+            AsyncTask.stop(mAttachLogTask);
+            mAttachLogTask = new AttachLogTask(title, body);
+            mAttachLogTask.executeOnExecutor(AppExecutors.io());
+            return;
         }
 
+        Intent intent = createIntent(title, body)
+                .setAction(Intent.ACTION_SENDTO)
+                .setData(Uri.parse("mailto:")); // only email apps should handle it
+        send(intent);
+    }
+
+    private void send(@NonNull CharSequence title,
+                      @NonNull CharSequence body, @Nullable Uri log) {
+        Intent intent = createIntent(title, body)
+                .setAction(Intent.ACTION_SEND)
+                .setType("message/rfc822");
+        if (log != null) intent.putExtra(Intent.EXTRA_STREAM, log);
+        send(intent);
+    }
+
+    private void send(@NonNull Intent intent) {
+        Activity context = getActivity();
         if (IntentUtils.hasActivityForThat(context, intent)) {
             startActivity(intent);
             dismiss();
@@ -248,6 +286,15 @@ public class FeedbackDialog extends DialogFragment implements ConfigBase.OnConfi
         }
     }
 
+    @NonNull
+    private Intent createIntent(@NonNull CharSequence title, @NonNull CharSequence body) {
+        String[] recipients = {Build.SUPPORT_EMAIL};
+        return new Intent()
+                .putExtra(Intent.EXTRA_EMAIL, recipients)
+                .putExtra(Intent.EXTRA_SUBJECT, title)
+                .putExtra(Intent.EXTRA_TEXT, body);
+    }
+
     /**
      * Creates the title of the email.
      *
@@ -324,41 +371,157 @@ public class FeedbackDialog extends DialogFragment implements ConfigBase.OnConfi
         return getResources().getInteger(R.integer.config_feedback_minMessageLength);
     }
 
-    private void attachLog(@NonNull Intent intent) {
-        Context context = getActivity();
-
-        try {
-            String log = Logcat.capture();
-            if (log == null)
-                throw new Exception("Failed to capture the logcat.");
-
-            // Prepare cache directory.
-            File cacheDir = context.getCacheDir();
-            if (cacheDir == null)
-                throw new Exception("Cache directory is inaccessible");
-            File directory = new File(cacheDir, LogsProviderBase.DIRECTORY);
-            FileUtils.deleteRecursive(directory); // Clean-up cache folder
-            if (!directory.mkdirs())
-                throw new Exception("Failed to create cache directory.");
-
-            // Create log file.
-            @SuppressLint("SimpleDateFormat")
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
-            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-            String fileName = "AcDisplay_log_" + sdf.format(new Date()) + ".txt";
-            File file = new File(directory, fileName);
-
-            // Write to the file.
-            if (!FileUtils.writeToFile(file, log))
-                throw new Exception("Failed to write log to the file.");
-
-            // Put extra stream to the intent.
-            Uri uri = Uri.parse("content://" + LogAttachmentProvider.AUTHORITY + "/" + fileName);
-            intent.putExtra(Intent.EXTRA_STREAM, uri);
-        } catch (Exception e) {
-            String message = ResUtils.getString(getResources(), R.string.feedback_error_accessing_log, e.getMessage());
-            ToastUtils.showLong(context, message);
+    /**
+     * Streams the logcat of this app and the {@link WritingTree file log} to a
+     * gzip archive in the cache directory, which the {@link LogAttachmentProvider}
+     * then serves, and sends the email.
+     *
+     * @author Artem Chepurnoy
+     */
+    private class AttachLogTask extends AsyncTask<Void, Long, Uri> {
+
+        @NonNull
+        private final CharSequence mTitle;
+        @NonNull
+        private final CharSequence mBody;
+        @NonNull
+        private final Context mContext;
+
+        private MaterialDialog mProgressDialog;
+        private String mError;
+
+        public AttachLogTask(@NonNull CharSequence title, @NonNull CharSequence body) {
+            mTitle = title;
+            mBody = body;
+            mContext = getActivity().getApplicationContext();
+        }
+
+        @Override
+        protected void onPreExecute() {
+            super.onPreExecute();
+            mProgressDialog = new MaterialDialog.Builder(getActivity())
+                    .content(R.string.feedback_attaching_log)
+                    .progress(true, 0)
+                    .cancelable(false)
+                    .show();
+        }
+
+        @Override
+        protected Uri doInBackground(Void... params) {
+            try {
+                // Prepare cache directory.
+                File cacheDir = mContext.getCacheDir();
+                if (cacheDir == null)
+                    throw new Exception("Cache directory is inaccessible");
+                File directory = new File(cacheDir, LogsProviderBase.DIRECTORY);
+                FileUtils.deleteRecursive(directory); // Clean-up cache folder
+                if (!directory.mkdirs())
+                    throw new Exception("Failed to create cache directory.");
+
+                // Create log file.
+                @SuppressLint("SimpleDateFormat")
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
+                sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+                String fileName = "AcDisplay_log_" + sdf.format(new Date()) + ".txt.gz";
+                File file = new File(directory, fileName);
+
+                // Write to the file.
+                if (!writeLog(file))
+                    throw new Exception("Failed to capture the logcat.");
+                if (isCancelled()) return null;
+
+                return Uri.parse("content://" + LogAttachmentProvider.AUTHORITY + "/" + fileName);
+            } catch (Exception e) {
+                mError = e.getMessage();
+                return null;
+            }
+        }
+
+        private boolean writeLog(@NonNull File file) {
+            Writer writer = null;
+            try {
+                writer = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(new FileOutputStream(file)), "UTF-8"));
+
+                writer.write("--- logcat ---\n");
+                Logcat.Filter filter = new Logcat.Filter(Process.myPid(), "AndroidRuntime");
+                long length = Logcat.capture(writer, filter, MAX_LOG_LENGTH, new Logcat.Callback() {
+                    @Override
+                    public boolean onProgress(long length) {
+                        publishProgress(length);
+                        return !isCancelled();
+                    }
+                });
+
+                // Merge the file log in.
+                File treeFile = WritingTree.getFile();
+                if (treeFile.canRead() && !isCancelled()) {
+                    writer.write("--- " + WritingTree.FILENAME + " ---\n");
+                    BufferedReader br = new BufferedReader(new InputStreamReader(
+                            new FileInputStream(treeFile), "UTF-8"));
+                    try {
+                        String line;
+                        while ((line = br.readLine()) != null && !isCancelled()) {
+                            if (length + line.length() + 1 > MAX_LOG_LENGTH) {
+                                writer.write(Logcat.CUT_MARKER);
+                                writer.write('\n');
+                                break;
+                            }
+
+                            writer.write(line);
+                            writer.write('\n');
+                            length += line.length() + 1;
+                        }
+                    } finally {
+                        br.close();
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) { /* unlucky */ }
+                }
+            }
+        }
+
+        @Override
+        protected void onProgressUpdate(Long... values) {
+            super.onProgressUpdate(values);
+            final long kb = values[values.length - 1] / 1024;
+            mProgressDialog.setContent(getString(R.string.feedback_attaching_log_progress, kb));
         }
+
+        @Override
+        protected void onPostExecute(Uri uri) {
+            super.onPostExecute(uri);
+            dismissProgressDialog();
+            if (!isAdded()) return;
+
+            if (uri == null) {
+                String message = ResUtils.getString(getResources(),
+                        R.string.feedback_error_accessing_log, mError);
+                ToastUtils.showLong(mContext, message);
+            }
+
+            send(mTitle, mBody, uri);
+        }
+
+        @Override
+        protected void onCancelled(Uri uri) {
+            super.onCancelled(uri);
+            dismissProgressDialog();
+        }
+
+        public void dismissProgressDialog() {
+            if (mProgressDialog != null && mProgressDialog.isShowing()) {
+                mProgressDialog.dismiss();
+            }
+        }
+
     }
 
 }
@@ -18,14 +18,15 @@
  */
 package com.achep.base.utils.logcat;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.achep.base.utils.IOUtils;
 import com.stericson.RootTools.RootTools;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Writer;
 
 /**
  * @author Artem Chepurnoy
@@ -33,28 +34,150 @@ import java.io.InputStreamReader;
 public class Logcat {
 
     /**
-     * Captures the application logcat.
+     * The maximum number of the latest lines to read from the logcat.
      */
-    @Nullable
-    public static String capture() {
+    private static final int MAX_LINES = 20000;
+
+    /**
+     * How often to report the progress, in characters.
+     */
+    private static final int PROGRESS_STEP = 64 * 1024;
+
+    /**
+     * The line that ends the log which has been cut down to
+     * the maximum length.
+     */
+    public static final String CUT_MARKER = "--- The log is cut down ---";
+
+    /**
+     * Interface definition for a callback to be invoked
+     * while capturing the logcat.
+     */
+    public interface Callback {
+
+        /**
+         * @param length the number of written characters
+         * @return {@code false} to stop capturing, {@code true} otherwise.
+         */
+        boolean onProgress(long length);
+
+    }
+
+    /**
+     * Accepts the lines of given process and the lines with given tags,
+     * such as {@code AndroidRuntime} that reports the crashes of previous
+     * processes. Lines of unknown format, like the buffer separators, are
+     * accepted too.
+     *
+     * @author Artem Chepurnoy
+     */
+    public static class Filter {
+
+        @NonNull
+        private final String mPid;
+        @NonNull
+        private final String[] mTags;
+
+        public Filter(int pid, @NonNull String... tags) {
+            mPid = Integer.toString(pid);
+            mTags = tags;
+        }
+
+        /**
+         * @param line the line of the {@code threadtime} format:
+         *             {@code date time pid tid level tag: message}
+         */
+        public boolean accept(@NonNull String line) {
+            int start = 0;
+            int end = 0;
+            for (int i = 0; i <= 5; i++) {
+                start = skipSpaces(line, end);
+                if (start == line.length()) return true; // unknown format
+                end = i == 5 ? line.indexOf(':', start) : skipToken(line, start);
+
+                if (i == 2 && isToken(line, start, end, mPid)) {
+                    return true;
+                }
+            }
+
+            if (end == -1) return true; // unknown format
+            for (String tag : mTags) {
+                if (isToken(line, start, end, tag)) return true;
+            }
+            return false;
+        }
+
+        private static int skipSpaces(@NonNull String line, int i) {
+            final int length = line.length();
+            while (i < length && line.charAt(i) == ' ') i++;
+            return i;
+        }
+
+        private static int skipToken(@NonNull String line, int i) {
+            final int length = line.length();
+            while (i < length && line.charAt(i) != ' ') i++;
+            return i;
+        }
+
+        private static boolean isToken(@NonNull String line, int start, int end,
+                                       @NonNull String token) {
+            // Tags are padded with spaces.
+            while (end > start && line.charAt(end - 1) == ' ') end--;
+            return end - start == token.length() && line.startsWith(token, start);
+        }
+
+    }
+
+    /**
+     * Streams the latest lines of the logcat that are accepted by the filter
+     * to the writer, line by line, so the log is never held in memory.
+     *
+     * @param maxLength the maximum number of characters to write
+     * @return the number of written characters.
+     */
+    public static long capture(@NonNull Writer writer, @NonNull Filter filter,
+                               long maxLength, @Nullable Callback callback)
+            throws IOException {
+        final String lines = Integer.toString(MAX_LINES);
         final String[] command;
         if (RootTools.isAccessGiven()) {
-            command = new String[]{"su", "logcat", "-v", "threadtime", "-d"};
-        } else command = new String[]{"logcat", "-v", "threadtime", "-d"};
+            command = new String[]{"su", "logcat", "-v", "threadtime", "-d", "-t", lines};
+        } else command = new String[]{"logcat", "-v", "threadtime", "-d", "-t", lines};
 
+        long length = 0;
+        long progress = 0;
         BufferedReader br = null;
+        Process process = Runtime.getRuntime().exec(command);
         try {
-            Process process = Runtime.getRuntime().exec(command);
             br = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            return IOUtils.readTextFromBufferedReader(br);
-        } catch (IOException e) {
-            return null;
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!filter.accept(line)) continue;
+                if (length + line.length() + 1 > maxLength) {
+                    writer.write(CUT_MARKER);
+                    writer.write('\n');
+                    break;
+                }
+
+                writer.write(line);
+                writer.write('\n');
+                length += line.length() + 1;
+
+                if (callback != null && length - progress >= PROGRESS_STEP) {
+                    progress = length;
+                    if (!callback.onProgress(length)) break;
+                }
+            }
         } finally {
             if (br != null) {
                 try {
                     br.close();
                 } catch (IOException e) { /* unlucky */ }
             }
+            // We may have stopped reading early.
+            process.destroy();
         }
+
+        return length;
     }
 }
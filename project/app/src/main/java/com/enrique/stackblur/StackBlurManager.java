@@ -26,13 +26,14 @@ package com.enrique.stackblur;
 import android.content.Context;
 import android.graphics.Bitmap;
 
+import com.achep.base.async.AppExecutors;
+
 import java.io.FileOutputStream;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class StackBlurManager {
-    static final int EXECUTOR_THREADS = Runtime.getRuntime().availableProcessors();
-    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(EXECUTOR_THREADS);
+    static final ExecutorService EXECUTOR = AppExecutors.cpu();
+    static final int EXECUTOR_THREADS = AppExecutors.cpu().getMaximumPoolSize();
 
     /**
      * Original image
@@ -120,20 +120,27 @@ public class ShakeDetector implements SensorEventListener {
     @Override
     public void onSensorChanged(@NonNull SensorEvent event) {
         Check.getInstance().isTrue(event.sensor.getType() == Sensor.TYPE_ACCELEROMETER);
-        long now = SystemClock.elapsedRealtime();
+        final float[] values = event.values;
+        onSensorChanged(values[0], values[1], values[2], SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Handles the accelerometer values, that were received at given time. Allows
+     * to replay the recorded sensor traces with a virtual clock.
+     *
+     * @param now the time of the event, in millis
+     */
+    public void onSensorChanged(float x, float y, float z, long now) {
         // If a shake in last X seconds ignore.
         if (lastShake != 0 && (now - lastShake) < IGNORE_EVENTS_AFTER_SHAKE) return;
 
-        float x = event.values[0];
-        float y = event.values[1];
-        float z = event.values[2];
         if (last_x != 0 && last_y != 0 && last_z != 0 && (last_x != x || last_y != y || last_z != z)) {
             DataPoint dp = new DataPoint(last_x - x, last_y - y, last_z - z, now);
             mDataPoints.add(dp);
 
             if ((now - lastUpdate) > SHAKE_CHECK_THRESHOLD) {
                 lastUpdate = now;
-                checkShake();
+                checkShake(now);
             }
         }
 
@@ -142,9 +149,8 @@ public class ShakeDetector implements SensorEventListener {
         last_z = z;
     }
 
-    private void checkShake() {
-        long curTime = SystemClock.elapsedRealtime();
-        long cutOffTime = curTime - KEEP_DATA_POINTS_FOR;
+    private void checkShake(long now) {
+        long cutOffTime = now - KEEP_DATA_POINTS_FOR;
 
         // Remove outdated data points.
         while (mDataPoints.size() > 0 && mDataPoints.get(0).time < cutOffTime) {
@@ -172,7 +178,7 @@ public class ShakeDetector implements SensorEventListener {
                 last_x = 0;
                 last_y = 0;
                 last_z = 0;
-                lastShake = SystemClock.elapsedRealtime();
+                lastShake = now;
                 mDataPoints.clear();
                 // Notify the listener.
                 mListener.onShakeDetected();
@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import androidx.annotation.NonNull;
+
+import com.achep.acdisplay.services.SensorsDump;
+import com.achep.acdisplay.services.activemode.detectors.IdleExitDetector;
+import com.achep.acdisplay.services.activemode.detectors.ProximityGestureDetector;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Random;
+
+import uk.co.jarofgreen.lib.ShakeDetector;
+
+/**
+ * Replays recorded or synthetic sensor traces through the active mode detectors
+ * with a virtual clock, and reports the detection quality and cost. The replay
+ * needs no hardware, so it runs on the JVM; the cost is measured by
+ * a {@link Meter meter}.
+ *
+ * @author Artem Chepurnoy
+ */
+public final class DetectorReplay {
+
+    /**
+     * The sample period of {@link android.hardware.SensorManager#SENSOR_DELAY_GAME}.
+     */
+    public static final int SAMPLE_PERIOD = 20; // ms.
+
+    /**
+     * Detections that happen this late after the end of a gesture
+     * are still counted as true positives.
+     */
+    public static final int DETECTION_TOLERANCE = 500; // ms.
+
+    /**
+     * The detector under replay.
+     */
+    public interface Detector {
+
+        /**
+         * @return the time of detection, caused by this sample, or {@code -1}
+         * if nothing has been detected.
+         */
+        long onSample(long time, float x, float y, float z);
+
+    }
+
+    /**
+     * Measures the cost of the replay on the current thread.
+     */
+    public interface Meter {
+
+        /**
+         * @return the CPU time of the current thread, in nanoseconds.
+         */
+        long getCpuTimeNanos();
+
+        /**
+         * @return the number of bytes allocated by the current thread so far,
+         * or {@code -1} if not supported.
+         */
+        long getAllocatedBytes();
+
+    }
+
+    /**
+     * The meter of the JVM the tests are run on.
+     */
+    public static final class JvmMeter implements Meter {
+
+        @NonNull
+        private final ThreadMXBean mThreadMXBean = ManagementFactory.getThreadMXBean();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getCpuTimeNanos() {
+            return mThreadMXBean.isCurrentThreadCpuTimeSupported()
+                    ? mThreadMXBean.getCurrentThreadCpuTime()
+                    : System.nanoTime();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAllocatedBytes() {
+            if (mThreadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean =
+                        (com.sun.management.ThreadMXBean) mThreadMXBean;
+                if (bean.isThreadAllocatedMemorySupported()
+                        && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+            return -1;
+        }
+
+    }
+
+    /**
+     * @return the replayable {@link ShakeDetector}.
+     */
+    @NonNull
+    public static Detector newShakeDetector() {
+        final boolean[] detected = new boolean[1];
+        final ShakeDetector detector = new ShakeDetector(new ShakeDetector.Listener() {
+            @Override
+            public void onShakeDetected() {
+                detected[0] = true;
+            }
+        });
+        return new Detector() {
+            @Override
+            public long onSample(long time, float x, float y, float z) {
+                detected[0] = false;
+                detector.onSensorChanged(x, y, z, time);
+                return detected[0] ? time : -1;
+            }
+        };
+    }
+
+    /**
+     * @return the replayable {@link IdleExitDetector}.
+     */
+    @NonNull
+    public static Detector newIdleExitDetector() {
+        final boolean[] detected = new boolean[1];
+        final IdleExitDetector detector = new IdleExitDetector(new IdleExitDetector.Listener() {
+            @Override
+            public void onShakeDetected() {
+                detected[0] = true;
+            }
+        });
+        return new Detector() {
+            @Override
+            public long onSample(long time, float x, float y, float z) {
+                detected[0] = false;
+                detector.onSensorChanged(x, y, z, time);
+                return detected[0] ? time : -1;
+            }
+        };
+    }
+
+    /**
+     * @return the replayable {@link ProximityGestureDetector}; the {@code x} value
+     * of samples is treated as the distance: zero is near, anything else is far.
+     */
+    @NonNull
+    public static Detector newProximityDetector(@NonNull ProximityGestureDetector.Program... programs) {
+        final ProximityGestureDetector detector = new ProximityGestureDetector(programs);
+        return new Detector() {
+
+            private boolean mStarted;
+            private boolean mNear;
+            private long mPendingTime = -1;
+
+            @Override
+            public long onSample(long time, float x, float y, float z) {
+                final boolean near = x == 0f;
+                if (!mStarted) {
+                    mStarted = true;
+                    mNear = near;
+                    detector.reset(near, time);
+                    return -1;
+                }
+
+                long result = -1;
+                if (mPendingTime >= 0 && mPendingTime <= time) {
+                    // The state has lasted long enough.
+                    result = mPendingTime;
+                    mPendingTime = -1;
+                    detector.reset();
+                }
+
+                if (near != mNear) {
+                    mNear = near;
+                    final long delay = detector.onEvent(near, time);
+                    mPendingTime = delay >= 0 ? time + delay : -1;
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * The sequence of samples with the labeled gestures.
+     */
+    public static final class Trace {
+
+        final long[] times;
+        final float[] values;
+        final long[] gestures;
+
+        private Trace(@NonNull long[] times, @NonNull float[] values, @NonNull long[] gestures) {
+            this.times = times;
+            this.values = values;
+            this.gestures = gestures;
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        /**
+         * Creates the trace of given sensor from the recorded dump. Recorded traces
+         * have no labeled gestures, so every detection counts as a false positive,
+         * unless the gestures are passed as {@code start, end} pairs.
+         */
+        @NonNull
+        public static Trace fromDump(@NonNull SensorsDump dump, int sensorType,
+                                     @NonNull long... gestures) {
+            int size = 0;
+            for (int i = 0; i < dump.size(); i++) if (dump.getType(i) == sensorType) size++;
+
+            long[] times = new long[size];
+            float[] values = new float[size * 3];
+            for (int i = 0, j = 0; i < dump.size(); i++) {
+                if (dump.getType(i) != sensorType) continue;
+                times[j] = dump.getTimestamp(i) / 1000000L; // nanos to millis
+                for (int k = 0; k < 3; k++) values[j * 3 + k] = dump.getValue(i, k);
+                j++;
+            }
+            return new Trace(times, values, gestures);
+        }
+
+        /**
+         * Builds synthetic accelerometer and proximity traces.
+         */
+        public static class Builder {
+
+            private final ArrayList<Long> mTimes = new ArrayList<>();
+            private final ArrayList<float[]> mValues = new ArrayList<>();
+            private final ArrayList<Long> mGestures = new ArrayList<>();
+            private final Random mRandom;
+            private long mTime;
+
+            public Builder(long seed) {
+                mRandom = new Random(seed);
+            }
+
+            /**
+             * Device is lying still: gravity with a bit of sensor noise.
+             */
+            @NonNull
+            public Builder still(int duration) {
+                for (int t = 0; t < duration; t += SAMPLE_PERIOD) {
+                    add(noise(), noise(), 9.81f + noise());
+                }
+                return this;
+            }
+
+            /**
+             * Device is being shaken along the {@code x} axis.
+             */
+            @NonNull
+            public Builder shake(int duration, float amplitude, float frequency) {
+                beginGesture();
+                for (int t = 0; t < duration; t += SAMPLE_PERIOD) {
+                    final double phase = 2 * Math.PI * frequency * t / 1000d;
+                    add((float) (amplitude * Math.sin(phase)) + noise(), noise(), 9.81f + noise());
+                }
+                return endGesture();
+            }
+
+            /**
+             * Device is suddenly moved after lying still.
+             */
+            @NonNull
+            public Builder jolt(float amplitude) {
+                beginGesture();
+                add(amplitude, amplitude, 9.81f + amplitude);
+                return endGesture();
+            }
+
+            /**
+             * Proximity sensor is near or far for given time; the {@code x}
+             * value is the distance.
+             */
+            @NonNull
+            public Builder proximity(boolean near, int duration) {
+                for (int t = 0; t < duration; t += SAMPLE_PERIOD) add(near ? 0f : 5f, 0f, 0f);
+                return this;
+            }
+
+            /**
+             * Marks the beginning of a gesture that should be detected.
+             *
+             * @see #endGesture()
+             */
+            @NonNull
+            public Builder beginGesture() {
+                mGestures.add(mTime);
+                return this;
+            }
+
+            /**
+             * Marks the end of a gesture that should be detected.
+             *
+             * @see #beginGesture()
+             */
+            @NonNull
+            public Builder endGesture() {
+                mGestures.add(mTime);
+                return this;
+            }
+
+            private float noise() {
+                return (float) mRandom.nextGaussian() * 0.02f;
+            }
+
+            private void add(float x, float y, float z) {
+                mTimes.add(mTime);
+                mValues.add(new float[]{x, y, z});
+                mTime += SAMPLE_PERIOD;
+            }
+
+            @NonNull
+            public Trace build() {
+                final int size = mTimes.size();
+                long[] times = new long[size];
+                float[] values = new float[size * 3];
+                for (int i = 0; i < size; i++) {
+                    times[i] = mTimes.get(i);
+                    System.arraycopy(mValues.get(i), 0, values, i * 3, 3);
+                }
+
+                long[] gestures = new long[mGestures.size()];
+                for (int i = 0; i < gestures.length; i++) gestures[i] = mGestures.get(i);
+                return new Trace(times, values, gestures);
+            }
+
+        }
+
+    }
+
+    /**
+     * The result of the replay.
+     */
+    public static final class Report {
+
+        public int samples;
+        public int truePositives;
+        public int falsePositives;
+        public int falseNegatives;
+        public long latencyMax;
+        public long latencySum;
+        public long cpuTimeNanos;
+        /**
+         * The number of bytes allocated during the replay, or {@code -1}
+         * if the meter does not support it.
+         */
+        public long allocatedBytes;
+
+        public long getLatencyAverage() {
+            return truePositives == 0 ? 0 : latencySum / truePositives;
+        }
+
+        public long getCpuTimePerSampleNanos() {
+            return samples == 0 ? 0 : cpuTimeNanos / samples;
+        }
+
+        public float getAllocatedBytesPerSample() {
+            if (allocatedBytes < 0) return -1;
+            return samples == 0 ? 0 : (float) allocatedBytes / samples;
+        }
+
+        @Override
+        public String toString() {
+            return "Report[samples=" + samples
+                    + " tp=" + truePositives
+                    + " fp=" + falsePositives
+                    + " fn=" + falseNegatives
+                    + " latency_avg=" + getLatencyAverage() + "ms"
+                    + " latency_max=" + latencyMax + "ms"
+                    + " cpu_per_sample=" + getCpuTimePerSampleNanos() + "ns"
+                    + " alloc_bytes_per_sample=" + getAllocatedBytesPerSample() + "]";
+        }
+
+    }
+
+    /**
+     * Feeds the trace through given detector, measured by the {@link JvmMeter}.
+     */
+    @NonNull
+    public static Report replay(@NonNull Trace trace, @NonNull Detector detector) {
+        return replay(trace, detector, new JvmMeter());
+    }
+
+    /**
+     * Feeds the trace through given detector.
+     */
+    @NonNull
+    public static Report replay(@NonNull Trace trace, @NonNull Detector detector,
+                                @NonNull Meter meter) {
+        final int size = trace.size();
+        final int gestureCount = trace.gestures.length / 2;
+        final long[] detections = new long[size];
+        int detectionCount = 0;
+
+        // Reading the counter may allocate by itself.
+        long allocatedBytesOverhead = meter.getAllocatedBytes();
+        allocatedBytesOverhead = meter.getAllocatedBytes() - allocatedBytesOverhead;
+
+        final long allocatedBytesStart = meter.getAllocatedBytes();
+        final long cpuTimeStart = meter.getCpuTimeNanos();
+        for (int i = 0; i < size; i++) {
+            final long time = detector.onSample(trace.times[i],
+                    trace.values[i * 3],
+                    trace.values[i * 3 + 1],
+                    trace.values[i * 3 + 2]);
+            if (time >= 0) detections[detectionCount++] = time;
+        }
+        final long cpuTimeEnd = meter.getCpuTimeNanos();
+        final long allocatedBytesEnd = meter.getAllocatedBytes();
+
+        Report report = new Report();
+        report.samples = size;
+        report.cpuTimeNanos = cpuTimeEnd - cpuTimeStart;
+        report.allocatedBytes = allocatedBytesStart < 0
+                ? -1
+                : Math.max(allocatedBytesEnd - allocatedBytesStart - allocatedBytesOverhead, 0);
+
+        // Match the detections with gestures: the first detection
+        // within the gesture is a hit, others are false positives.
+        final boolean[] hit = new boolean[gestureCount];
+        for (int i = 0; i < detectionCount; i++) {
+            final long time = detections[i];
+            boolean matched = false;
+            for (int j = 0; j < gestureCount; j++) {
+                final long start = trace.gestures[j * 2];
+                final long end = trace.gestures[j * 2 + 1] + DETECTION_TOLERANCE;
+                if (time >= start && time <= end && !hit[j]) {
+                    hit[j] = matched = true;
+                    final long latency = time - start;
+                    report.truePositives++;
+                    report.latencySum += latency;
+                    report.latencyMax = Math.max(report.latencyMax, latency);
+                    break;
+                }
+            }
+
+            if (!matched) report.falsePositives++;
+        }
+
+        for (boolean h : hit) if (!h) report.falseNegatives++;
+        return report;
+    }
+
+}
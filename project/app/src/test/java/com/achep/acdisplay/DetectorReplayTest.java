@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import com.achep.acdisplay.services.activemode.detectors.ProximityGestureDetector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM unit tests that replay synthetic sensor traces through the active
+ * mode detectors. The reports are put into the messages of assertions.
+ *
+ * @author Artem Chepurnoy
+ */
+public class DetectorReplayTest {
+
+    @Test
+    public void testShakeDetector() {
+        DetectorReplay.Trace shake = new DetectorReplay.Trace.Builder(1)
+                .still(3000)
+                .shake(2000, 10f, 6f)
+                .still(3000)
+                .build();
+        DetectorReplay.Report report = DetectorReplay.replay(shake,
+                DetectorReplay.newShakeDetector());
+        assertEquals("shake: " + report, 1, report.truePositives);
+        assertEquals("shake: " + report, 0, report.falsePositives);
+
+        DetectorReplay.Trace still = new DetectorReplay.Trace.Builder(2).still(5000).build();
+        report = DetectorReplay.replay(still, DetectorReplay.newShakeDetector());
+        assertEquals("shake_still: " + report, 0, report.falsePositives);
+    }
+
+    @Test
+    public void testIdleExitDetector() {
+        DetectorReplay.Trace jolt = new DetectorReplay.Trace.Builder(3)
+                .still(3000)
+                .jolt(3f)
+                .still(3000)
+                .build();
+        DetectorReplay.Report report = DetectorReplay.replay(jolt,
+                DetectorReplay.newIdleExitDetector());
+        assertEquals("idle_exit: " + report, 1, report.truePositives);
+
+        DetectorReplay.Trace still = new DetectorReplay.Trace.Builder(4).still(5000).build();
+        report = DetectorReplay.replay(still, DetectorReplay.newIdleExitDetector());
+        assertEquals("idle_exit_still: " + report, 0, report.falsePositives);
+    }
+
+    @Test
+    public void testProximityDetector() {
+        DetectorReplay.Trace wave = new DetectorReplay.Trace.Builder(5)
+                .proximity(false, 1000)
+                .beginGesture()
+                .proximity(true, 300)
+                .proximity(false, 300)
+                .proximity(true, 300)
+                .endGesture()
+                .proximity(false, 2000)
+                .build();
+        DetectorReplay.Report report = DetectorReplay.replay(wave,
+                DetectorReplay.newProximityDetector(
+                        ProximityGestureDetector.newWaveToWakeProgram()));
+        assertEquals("wave_to_wake: " + report, 1, report.truePositives);
+        assertEquals("wave_to_wake: " + report, 0, report.falsePositives);
+        assertTrue("wave_to_wake: " + report, report.allocatedBytes <= 0);
+    }
+
+    @Test
+    public void testMeter() {
+        final long[] cpuTime = {0};
+        DetectorReplay.Meter meter = new DetectorReplay.Meter() {
+            @Override
+            public long getCpuTimeNanos() {
+                return cpuTime[0] += 1000;
+            }
+
+            @Override
+            public long getAllocatedBytes() {
+                return -1;
+            }
+        };
+
+        DetectorReplay.Trace still = new DetectorReplay.Trace.Builder(6).still(1000).build();
+        DetectorReplay.Report report = DetectorReplay.replay(still,
+                DetectorReplay.newShakeDetector(), meter);
+        assertEquals(1000, report.cpuTimeNanos);
+        assertEquals(-1, report.allocatedBytes);
+        assertEquals(still.size(), report.samples);
+    }
+
+}
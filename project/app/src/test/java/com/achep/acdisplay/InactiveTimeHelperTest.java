@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM unit tests for the boundaries of the inactive time.
+ *
+ * @author Artem Chepurnoy
+ */
+public class InactiveTimeHelperTest {
+
+    private static final int FROM = 22 * 60; // 22:00
+    private static final int TO = 7 * 60; // 07:00
+
+    private TimeZone mTimeZone;
+
+    @Before
+    public void setUp() {
+        mTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mTimeZone);
+    }
+
+    @Test
+    public void testMidnightSpanningRange() {
+        // Active: waits for the start.
+        assertFalse(InactiveTimeHelper.isInactiveTime(FROM, TO, at(2015, 6, 1, 12, 0)));
+        assertEquals(at(2015, 6, 1, 22, 0), next(FROM, TO, at(2015, 6, 1, 12, 0)));
+
+        // Inactive: waits for the end; the last minute is inclusive.
+        assertTrue(InactiveTimeHelper.isInactiveTime(FROM, TO, at(2015, 6, 1, 23, 30)));
+        assertEquals(at(2015, 6, 2, 7, 1), next(FROM, TO, at(2015, 6, 1, 23, 30)));
+        assertTrue(InactiveTimeHelper.isInactiveTime(FROM, TO, at(2015, 6, 2, 7, 0)));
+        assertEquals(at(2015, 6, 2, 7, 1), next(FROM, TO, at(2015, 6, 2, 7, 0)));
+
+        // Right after the end.
+        assertFalse(InactiveTimeHelper.isInactiveTime(FROM, TO, at(2015, 6, 2, 7, 1)));
+        assertEquals(at(2015, 6, 2, 22, 0), next(FROM, TO, at(2015, 6, 2, 7, 1)));
+    }
+
+    @Test
+    public void testDaytimeRange() {
+        final int from = 9 * 60;
+        final int to = 18 * 60;
+        assertEquals(at(2015, 6, 2, 9, 0), next(from, to, at(2015, 6, 1, 20, 0)));
+        assertEquals(at(2015, 6, 1, 18, 1), next(from, to, at(2015, 6, 1, 9, 0)));
+    }
+
+    @Test
+    public void testDaylightSavingTime() {
+        // The clocks go forward at 02:00 of the 29th of March, 2015.
+        assertEquals(at(2015, 3, 29, 7, 1), next(FROM, TO, at(2015, 3, 28, 23, 0)));
+        // The clocks go back at 03:00 of the 25th of October, 2015.
+        assertEquals(at(2015, 10, 25, 7, 1), next(FROM, TO, at(2015, 10, 24, 23, 0)));
+    }
+
+    @Test
+    public void testAllDayRange() {
+        assertEquals(-1, next(0, 24 * 60 - 1, at(2015, 6, 1, 12, 0)));
+        assertEquals(-1, next(600, 600, at(2015, 6, 1, 12, 0)));
+        assertEquals(-1, next(601, 600, at(2015, 6, 1, 12, 0)));
+    }
+
+    private static long next(int from, int to, long millis) {
+        return InactiveTimeHelper.getNextTransitionTime(from, to, millis);
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay;
+
+import com.achep.acdisplay.services.activemode.detectors.ProximityGestureDetector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JVM unit tests for the proximity gesture detector.
+ *
+ * @author Artem Chepurnoy
+ */
+public class ProximityGestureDetectorTest {
+
+    @Test
+    public void testPocket() {
+        ProximityGestureDetector detector = new ProximityGestureDetector(
+                ProximityGestureDetector.newPocketProgram(4000));
+
+        // Short stay in the pocket is not enough.
+        detector.reset();
+        assertEquals(-1, detector.onEvent(true, 1000));
+        assertEquals(-1, detector.onEvent(false, 3000));
+
+        // Long enough stay in the pocket.
+        assertEquals(-1, detector.onEvent(true, 4000));
+        assertEquals(0, detector.onEvent(false, 9000));
+    }
+
+    @Test
+    public void testPocketImmediateStart() {
+        ProximityGestureDetector detector = new ProximityGestureDetector(
+                ProximityGestureDetector.newPocketProgram(4000));
+
+        // The first segment after the reset ignores the start delay...
+        detector.reset(true, 1000);
+        assertEquals(0, detector.onEvent(false, 1500));
+
+        // ...but only the first one.
+        assertEquals(-1, detector.onEvent(true, 2000));
+        assertEquals(-1, detector.onEvent(false, 2500));
+    }
+
+    @Test
+    public void testWaveToWake() {
+        ProximityGestureDetector.Program program = ProximityGestureDetector.newWaveToWakeProgram();
+        ProximityGestureDetector detector = new ProximityGestureDetector(program);
+        detector.reset(false, 0);
+
+        assertEquals(-1, detector.onEvent(true, 1000));
+        assertEquals(-1, detector.onEvent(false, 1300));
+        assertEquals(-1, detector.onEvent(true, 1600));
+        assertEquals(0, detector.onEvent(false, 1900));
+
+        // Too slow wave.
+        detector.reset();
+        assertEquals(-1, detector.onEvent(true, 3000));
+        assertEquals(-1, detector.onEvent(false, 3300));
+        assertEquals(-1, detector.onEvent(true, 5000));
+        assertEquals(-1, detector.onEvent(false, 5300));
+
+        // Disabled program never fits.
+        detector.setProgramEnabled(program, false);
+        assertEquals(-1, detector.onEvent(true, 6000));
+        assertEquals(-1, detector.onEvent(false, 6300));
+        assertEquals(-1, detector.onEvent(true, 6600));
+        assertEquals(-1, detector.onEvent(false, 6900));
+    }
+
+    @Test
+    public void testDoubleWaveAndHold() {
+        ProximityGestureDetector detector = new ProximityGestureDetector(
+                ProximityGestureDetector.newDoubleWaveProgram(),
+                ProximityGestureDetector.newHoldProgram(1500));
+        detector.reset(false, 0);
+
+        // The hold program is waiting for the near state to last.
+        assertEquals(1500, detector.onEvent(true, 1000));
+        assertEquals(-1, detector.onEvent(false, 1200));
+        assertEquals(1500, detector.onEvent(true, 1400));
+        // The double wave is complete.
+        assertEquals(0, detector.onEvent(false, 1600));
+    }
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.notifications;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.RemoteInput;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM unit tests for the outbox of the quick replies, sending
+ * the replies with a fake sender.
+ *
+ * @author Artem Chepurnoy
+ */
+public class ReplyOutboxTest {
+
+    private static final String PREF_NAME = "reply_outbox_test";
+
+    private static final String KEY = "com.example|1|null";
+    private static final String RESULT_KEY = "reply";
+    private static final String TEXT = "On my way";
+
+    /**
+     * The outbox that sends the replies to nowhere.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static class FakeOutbox extends ReplyOutbox {
+
+        final ArrayList<Action> sentActions = new ArrayList<>();
+        final ArrayList<String> sentTexts = new ArrayList<>();
+        boolean online;
+        long time = 1000;
+        @Nullable
+        Action freshAction;
+
+        FakeOutbox(@NonNull Context context) {
+            super(context, PREF_NAME);
+        }
+
+        @Override
+        protected boolean sendReply(@NonNull Action action,
+                                    @NonNull String resultKey, @NonNull String text) {
+            if (!online) return false;
+            assertEquals(RESULT_KEY, resultKey);
+            sentActions.add(action);
+            sentTexts.add(text);
+            return true;
+        }
+
+        @Nullable
+        @Override
+        protected Action findAction(@NonNull String key, @NonNull String resultKey) {
+            return freshAction;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return time;
+        }
+
+    }
+
+    /**
+     * The context that keeps its shared preferences in memory.
+     *
+     * @author Artem Chepurnoy
+     */
+    private static class FakeContext extends ContextWrapper {
+
+        private final HashMap<String, FakePreferences> mPrefs = new HashMap<>();
+
+        FakeContext() {
+            super(null);
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(String name, int mode) {
+            FakePreferences prefs = mPrefs.get(name);
+            if (prefs == null) {
+                prefs = new FakePreferences();
+                mPrefs.put(name, prefs);
+            }
+            return prefs;
+        }
+
+    }
+
+    /**
+     * @author Artem Chepurnoy
+     */
+    private static class FakePreferences implements SharedPreferences {
+
+        private final HashMap<String, Object> mValues = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(mValues);
+        }
+
+        @Nullable
+        @Override
+        public String getString(String key, @Nullable String defValue) {
+            return mValues.containsKey(key) ? (String) mValues.get(key) : defValue;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        @Override
+        public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+            return mValues.containsKey(key) ? (Set<String>) mValues.get(key) : defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return mValues.containsKey(key) ? (Integer) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return mValues.containsKey(key) ? (Long) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return mValues.containsKey(key) ? (Float) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return mValues.containsKey(key) ? (Boolean) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return mValues.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new FakeEditor();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) { /* unused */ }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(
+                OnSharedPreferenceChangeListener listener) { /* unused */ }
+
+        /**
+         * @author Artem Chepurnoy
+         */
+        private class FakeEditor implements Editor {
+
+            private final HashMap<String, Object> mChanges = new HashMap<>();
+            private final ArrayList<String> mRemovals = new ArrayList<>();
+            private boolean mClear;
+
+            private Editor put(String key, Object value) {
+                mChanges.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putString(String key, @Nullable String value) {
+                return put(key, value);
+            }
+
+            @Override
+            public Editor putStringSet(String key, @Nullable Set<String> values) {
+                return put(key, values);
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                return put(key, value);
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                return put(key, value);
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                return put(key, value);
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                return put(key, value);
+            }
+
+            @Override
+            public Editor remove(String key) {
+                mRemovals.add(key);
+                return this;
+            }
+
+            @Override
+            public Editor clear() {
+                mClear = true;
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                if (mClear) mValues.clear();
+                for (String key : mRemovals) mValues.remove(key);
+                mValues.putAll(mChanges);
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+
+        }
+
+    }
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = new FakeContext();
+    }
+
+    @Test
+    public void testSent() {
+        FakeOutbox outbox = new FakeOutbox(mContext);
+        outbox.online = true;
+        Action action = newReplyAction();
+        outbox.putDraft(KEY, RESULT_KEY, "On my");
+
+        assertEquals(ReplyOutbox.RESULT_SENT, send(outbox, action));
+        assertFalse(outbox.isPending(KEY));
+        assertNull(outbox.getDraft(KEY, RESULT_KEY));
+
+        // The reply is sent with the action.
+        assertEquals(1, outbox.sentActions.size());
+        assertSame(action, outbox.sentActions.get(0));
+        assertEquals(TEXT, outbox.sentTexts.get(0));
+    }
+
+    @Test
+    public void testRetryWithFreshAction() {
+        FakeOutbox outbox = new FakeOutbox(mContext);
+        assertEquals(ReplyOutbox.RESULT_QUEUED, send(outbox, newReplyAction()));
+        assertTrue(outbox.isPending(KEY));
+
+        // The outbox survives the restart of the app.
+        outbox = new FakeOutbox(mContext);
+        assertTrue(outbox.isPending(KEY));
+
+        // No notification: nothing to retry with.
+        final ArrayList<Integer> results = listen(outbox);
+        outbox.retry(KEY);
+        assertTrue(outbox.isPending(KEY));
+
+        // The notification is updated and the network is back.
+        outbox.online = true;
+        outbox.freshAction = newReplyAction();
+        outbox.retry(KEY);
+        assertFalse(outbox.isPending(KEY));
+        assertSame(outbox.freshAction, outbox.sentActions.get(0));
+        assertEquals(TEXT, outbox.sentTexts.get(0));
+
+        assertEquals(2, results.size());
+        assertEquals(ReplyOutbox.RESULT_QUEUED, (int) results.get(0));
+        assertEquals(ReplyOutbox.RESULT_SENT, (int) results.get(1));
+    }
+
+    @Test
+    public void testFailedReplyBecomesDraft() {
+        FakeOutbox outbox = new FakeOutbox(mContext);
+        outbox.freshAction = newReplyAction();
+        assertEquals(ReplyOutbox.RESULT_QUEUED, send(outbox, outbox.freshAction));
+        for (int i = 1; i < ReplyOutbox.MAX_ATTEMPTS; i++) outbox.retry(KEY);
+
+        assertFalse(outbox.isPending(KEY));
+        assertEquals(TEXT, outbox.getDraft(KEY, RESULT_KEY));
+    }
+
+    @Test
+    public void testExpiredReplyBecomesDraft() {
+        FakeOutbox outbox = new FakeOutbox(mContext);
+        assertEquals(ReplyOutbox.RESULT_QUEUED, send(outbox, newReplyAction()));
+
+        // It is too late to send the reply.
+        outbox.online = true;
+        outbox.freshAction = newReplyAction();
+        outbox.time += ReplyOutbox.MAX_AGE + 1;
+        outbox.retry(KEY);
+
+        assertFalse(outbox.isPending(KEY));
+        assertTrue(outbox.sentActions.isEmpty());
+        assertEquals(TEXT, outbox.getDraft(KEY, RESULT_KEY));
+    }
+
+    @Test
+    public void testDrafts() {
+        FakeOutbox outbox = new FakeOutbox(mContext);
+        assertNull(outbox.getDraft(KEY, RESULT_KEY));
+        outbox.putDraft(KEY, RESULT_KEY, TEXT);
+        assertEquals(TEXT, new FakeOutbox(mContext).getDraft(KEY, RESULT_KEY));
+        assertNull(outbox.getDraft(KEY, "another_" + RESULT_KEY));
+        outbox.putDraft(KEY, RESULT_KEY, "");
+        assertNull(outbox.getDraft(KEY, RESULT_KEY));
+    }
+
+    @NonNull
+    private ArrayList<Integer> listen(@NonNull ReplyOutbox outbox) {
+        final ArrayList<Integer> results = new ArrayList<>();
+        outbox.registerListener(new ReplyOutbox.OnReplyResultListener() {
+            @Override
+            public void onReplyResult(@NonNull ReplyOutbox outbox,
+                                      @NonNull String key, @NonNull String text, int result) {
+                results.add(result);
+            }
+        });
+        return results;
+    }
+
+    private int send(@NonNull ReplyOutbox outbox, @NonNull Action action) {
+        assert action.remoteInputs != null;
+        return outbox.send(KEY, action, action.remoteInputs[0], TEXT);
+    }
+
+    /**
+     * @return the reply action of a new fake notification.
+     */
+    @NonNull
+    private static Action newReplyAction() {
+        RemoteInput remoteInput = new RemoteInput.Builder(RESULT_KEY)
+                .setLabel("Reply")
+                .build();
+        return new Action(0, "Reply", null, new RemoteInput[]{remoteInput});
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.services;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Converts the binary {@link SensorsDump sensors dumps} to CSV files next to them:
+ * {@code java SensorsDumpCsv dump_sensors_1.bin [dump_sensors_2.bin ...]}
+ *
+ * @author Artem Chepurnoy
+ */
+public final class SensorsDumpCsv {
+
+    public static void main(String[] args) throws IOException {
+        for (String path : args) {
+            SensorsDump dump = SensorsDump.readFromFile(new File(path));
+            Writer writer = new FileWriter(path + ".csv");
+            try {
+                dump.writeCsv(writer);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private SensorsDumpCsv() {
+    }
+
+}
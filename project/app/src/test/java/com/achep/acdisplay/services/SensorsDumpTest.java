@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.services;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * JVM unit tests for the ring buffer and the file formats of
+ * the {@link SensorsDump sensors dump}.
+ *
+ * @author Artem Chepurnoy
+ */
+public class SensorsDumpTest {
+
+    private static final int TYPE_ACCELEROMETER = 1;
+    private static final int TYPE_PROXIMITY = 8;
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("dump_sensors", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        SensorsDump dump = new SensorsDump(8);
+        dump.add(1000L, TYPE_ACCELEROMETER, new float[]{0.5f, -9.81f, 3f, 42f});
+        dump.add(2000L, TYPE_PROXIMITY, new float[]{5f});
+        dump.add(Long.MAX_VALUE, TYPE_ACCELEROMETER, new float[]{Float.NaN, 0f, -0f});
+        dump.writeToFile(mFile);
+
+        SensorsDump read = SensorsDump.readFromFile(mFile);
+        assertDumpEquals(dump, read);
+
+        // Only three values are stored, the missing ones are zeros.
+        assertEquals(3f, read.getValue(0, 2), 0f);
+        assertEquals(0f, read.getValue(1, 1), 0f);
+        assertEquals(0f, read.getValue(1, 2), 0f);
+    }
+
+    @Test
+    public void testEmptyRoundTrip() throws IOException {
+        new SensorsDump(4).writeToFile(mFile);
+        assertEquals(0, SensorsDump.readFromFile(mFile).size());
+    }
+
+    @Test
+    public void testOverflowKeepsNewest() throws IOException {
+        final int capacity = 4;
+        SensorsDump dump = new SensorsDump(capacity);
+        for (int i = 0; i < 10; i++) {
+            dump.add(i, TYPE_PROXIMITY, new float[]{i});
+        }
+
+        assertEquals(capacity, dump.size());
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(6 + i, dump.getTimestamp(i));
+            assertEquals(6 + i, dump.getValue(i, 0), 0f);
+        }
+
+        // The wrapped buffer is written from the oldest event.
+        dump.writeToFile(mFile);
+        assertDumpEquals(dump, SensorsDump.readFromFile(mFile));
+
+        dump.clear();
+        assertEquals(0, dump.size());
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        SensorsDump dump = new SensorsDump(2);
+        dump.add(1000L, TYPE_ACCELEROMETER, new float[]{0.5f, -9.81f, 3f});
+        dump.add(2000L, TYPE_PROXIMITY, new float[]{5f});
+        dump.add(3000L, TYPE_PROXIMITY, new float[]{0f});
+
+        StringWriter writer = new StringWriter();
+        dump.writeCsv(writer);
+        assertEquals(SensorsDump.CSV_HEADER + "\n"
+                + "2000;8;5.0;0.0;0.0\n"
+                + "3000;8;0.0;0.0;0.0\n", writer.toString());
+    }
+
+    @Test
+    public void testNotADump() throws IOException {
+        FileOutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write("timestamp;type;x;y;z\n".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        try {
+            SensorsDump.readFromFile(mFile);
+            fail("The text file was read as a dump.");
+        } catch (IOException e) { /* expected */ }
+    }
+
+    @Test
+    public void testTruncatedDump() throws IOException {
+        SensorsDump dump = new SensorsDump(2);
+        dump.add(1000L, TYPE_PROXIMITY, new float[]{5f});
+        dump.writeToFile(mFile);
+
+        // Cut the last byte off.
+        final long length = mFile.length();
+        FileOutputStream out = new FileOutputStream(mFile, true);
+        try {
+            out.getChannel().truncate(length - 1);
+        } finally {
+            out.close();
+        }
+
+        try {
+            SensorsDump.readFromFile(mFile);
+            fail("The truncated dump was read.");
+        } catch (IOException e) { /* expected */ }
+    }
+
+    private static void assertDumpEquals(@NonNull SensorsDump expected,
+                                         @NonNull SensorsDump actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTimestamp(i), actual.getTimestamp(i));
+            assertEquals(expected.getType(i), actual.getType(i));
+            for (int axis = 0; axis < 3; axis++) {
+                // Compares the bits, so NaN equals NaN.
+                assertEquals(Float.floatToIntBits(expected.getValue(i, axis)),
+                        Float.floatToIntBits(actual.getValue(i, axis)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 AChep@xda <artemchep@gmail.com>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package com.achep.acdisplay.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM unit tests and a microbenchmark of the pure functions of
+ * the {@link BitmapUtils}.
+ *
+ * @author Artem Chepurnoy
+ */
+public class BitmapUtilsTest {
+
+    private static final int RED = 0xFFFF0000;
+    private static final int BLUE = 0xFF0000FF;
+
+    @Test
+    public void testAverageColor() {
+        int[] pixels = {RED, BLUE, RED, BLUE};
+        assertEquals(0xFF800080, BitmapUtils.getAverageColor(pixels, 0, 4, false));
+        assertEquals(RED, BitmapUtils.getAverageColor(pixels, 0, 1, false));
+        assertEquals(BLUE, BitmapUtils.getAverageColor(pixels, 1, 1, true));
+
+        // The color is weighted by the alpha.
+        pixels = new int[]{0x40FF0000, 0xC00000FF};
+        assertEquals(0x804000BF, BitmapUtils.getAverageColor(pixels, 0, 2, false));
+    }
+
+    @Test
+    public void testAverageColorIgnoresTransparent() {
+        // The color of the transparent pixels does not matter.
+        int[] pixels = {RED, 0x0000FF00, 0x00FFFFFF, 0};
+        assertEquals(0x40FF0000, BitmapUtils.getAverageColor(pixels, 0, 4, false));
+        assertEquals(RED, BitmapUtils.getAverageColor(pixels, 0, 4, true));
+
+        assertEquals(0, BitmapUtils.getAverageColor(new int[]{0, 0x00FFFFFF}, 0, 2, false));
+        assertEquals(0, BitmapUtils.getAverageColor(new int[]{0, 0x00FFFFFF}, 0, 2, true));
+    }
+
+    @Test
+    public void testTransparentCorners() {
+        final int size = 5;
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, RED);
+        assertFalse(BitmapUtils.hasTransparentCorners(pixels, 0, size, size, size));
+
+        // The transparent pixel is not in the corner.
+        pixels[size + 1] = 0;
+        assertFalse(BitmapUtils.hasTransparentCorners(pixels, 0, size, size, size));
+
+        // Only the alpha matters.
+        pixels[size * size - 1] = 0x00FFFFFF;
+        assertTrue(BitmapUtils.hasTransparentCorners(pixels, 0, size, size, size));
+        // ...of the sub-image.
+        assertFalse(BitmapUtils.hasTransparentCorners(pixels, 0, size, size - 1, size - 1));
+    }
+
+    @Test
+    public void testSamplePosition() {
+        // Every pixel is sampled if the size fits the grid.
+        for (int i = 0; i < 10; i++) assertEquals(i, BitmapUtils.getSamplePosition(i, 10, 10));
+
+        assertEquals(5, BitmapUtils.getSamplePosition(0, 1, 10));
+        assertEquals(1000, BitmapUtils.getSamplePosition(0, 24, 48000));
+        assertEquals(47000, BitmapUtils.getSamplePosition(23, 24, 48000));
+    }
+
+    /**
+     * The time limit of a single analysis of the full sample grid; it's
+     * generous, so that slow machines do not fail the build.
+     */
+    private static final long BENCHMARK_LIMIT = 100000; // ns.
+
+    @Test
+    public void testBenchmark() {
+        final int length = BitmapUtils.SAMPLE_GRID_SIZE * BitmapUtils.SAMPLE_GRID_SIZE;
+        final int[] pixels = new int[length];
+        final Random random = new Random(0);
+        for (int i = 0; i < length; i++) pixels[i] = random.nextInt();
+
+        final long expected = (long) BitmapUtils.getAverageColor(pixels, 0, length, true)
+                + BitmapUtils.getAverageColor(pixels, 0, length, false);
+
+        final int count = 20000;
+        for (int round = 0; round < 2; round++) { // the first round is a warm-up
+            long sum = 0;
+            long time = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sum += BitmapUtils.getAverageColor(pixels, 0, length, i % 2 == 0);
+            }
+            time = (System.nanoTime() - time) / count;
+
+            // The results are deterministic.
+            assertEquals(expected * count / 2, sum);
+            if (round > 0) {
+                assertTrue("getAverageColor(" + length + " samples) took " + time + "ns",
+                        time < BENCHMARK_LIMIT);
+            }
+        }
+    }
+
+}